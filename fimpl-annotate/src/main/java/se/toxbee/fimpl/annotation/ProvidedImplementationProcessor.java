@@ -41,17 +41,26 @@
 package se.toxbee.fimpl.annotation;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.regex.Pattern;
 
 import javax.annotation.processing.AbstractProcessor;
@@ -76,21 +85,33 @@ import javax.tools.Diagnostic.Kind;
 import javax.tools.FileObject;
 import javax.tools.StandardLocation;
 
+import se.toxbee.fimpl.common.BinaryIndex;
 import se.toxbee.fimpl.common.ImplementationInformation;
 import se.toxbee.fimpl.common.ImplementationInformation.Impl;
 import se.toxbee.fimpl.common.Util;
 
 /**
- * ProvidedImplementationProcessor processes concrete types annotated<br/>
- * with {@link se.toxbee.fimpl.annotation.ProvidedImplementation}
+ * <p>ProvidedImplementationProcessor processes concrete types annotated<br/>
+ * with {@link se.toxbee.fimpl.annotation.ProvidedImplementation}</p>
+ *
+ * <p>If the option {@value #OPTION_INDEX} is true, a single {@link BinaryIndex}<br/>
+ * of all implementations is also written to {@value #OPTION_INDEX_LOCATION}<br/>
+ * (default: {@link #OPTION_DEFAULT_INDEX_LOCATION}) once processing is over.</p>
+ *
+ * <p>If the option {@value #OPTION_SUPERTYPES} is true, the transitive supertypes of each<br/>
+ * implementation are recorded as a fifth field, see {@link ImplementationInformation#getSupertypes()}.<br/>
+ * This lets "interface" filters be answered without loading any classes.</p>
  *
  * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
  * @version 1.0.1
  * @since Feb, 05, 2014
  */
 @SupportedOptions({ ProvidedImplementationProcessor.OPTION_META_LOCATION,
-					ProvidedImplementationProcessor.OPTION_METAINF_ONLY })
-@SupportedSourceVersion( SourceVersion.RELEASE_7 )
+					ProvidedImplementationProcessor.OPTION_METAINF_ONLY,
+					ProvidedImplementationProcessor.OPTION_INDEX,
+					ProvidedImplementationProcessor.OPTION_INDEX_LOCATION,
+					ProvidedImplementationProcessor.OPTION_SUPERTYPES })
+@SupportedSourceVersion( SourceVersion.RELEASE_8 )
 public class ProvidedImplementationProcessor extends AbstractProcessor {
 	/* ----------------------------------------------
 	 * Public API: Configurable.
@@ -99,6 +120,9 @@ public class ProvidedImplementationProcessor extends AbstractProcessor {
 
 	public static final String OPTION_META_LOCATION = "meta.location";
 	public static final String OPTION_METAINF_ONLY = "meta.inf.only";
+	public static final String OPTION_INDEX = "meta.index";
+	public static final String OPTION_INDEX_LOCATION = "meta.index.location";
+	public static final String OPTION_SUPERTYPES = "meta.supertypes";
 
 	/* ----------------------------------------------
 	 * Private Config.
@@ -107,6 +131,9 @@ public class ProvidedImplementationProcessor extends AbstractProcessor {
 
 	public static String OPTION_DEFAULT_META_LOCATION = "META-INF/services/";
 	public static boolean OPTION_DEFAULT_METAINF_ONLY = false;
+	public static boolean OPTION_DEFAULT_INDEX = false;
+	public static String OPTION_DEFAULT_INDEX_LOCATION = "META-INF/fimpl.idx";
+	public static boolean OPTION_DEFAULT_SUPERTYPES = false;
 
 	private static final Class<ProvidedImplementation> ANNOTATION_CLAZZ = ProvidedImplementation.class;
 	private final String ANNOTATION_TYPE = ANNOTATION_CLAZZ.getName();
@@ -118,6 +145,14 @@ public class ProvidedImplementationProcessor extends AbstractProcessor {
 
 	String metaLocation;
 	boolean metaInfOnly;
+	boolean index;
+	String indexLocation;
+	boolean supertypes;
+
+	/*
+	 * All implementations seen in any round, written as a BinaryIndex when processing is over.
+	 */
+	final Map<String, Set<ImplementationInformation>> indexStore;
 
 	final Pattern tabSplitter;
 	private Types util;
@@ -140,6 +175,7 @@ public class ProvidedImplementationProcessor extends AbstractProcessor {
 		super();
 
 		this.tabSplitter = Pattern.compile( "\t", Pattern.LITERAL );
+		this.indexStore = new HashMap<String, Set<ImplementationInformation>>();
 	}
 
 	@Override
@@ -160,11 +196,24 @@ public class ProvidedImplementationProcessor extends AbstractProcessor {
 
 		String metaOnly = opts.get( OPTION_METAINF_ONLY );
 		this.metaInfOnly = metaOnly == null ? OPTION_DEFAULT_METAINF_ONLY : Boolean.parseBoolean( metaOnly );
+
+		String index = opts.get( OPTION_INDEX );
+		this.index = index == null ? OPTION_DEFAULT_INDEX : Boolean.parseBoolean( index );
+
+		String indexLocation = opts.get( OPTION_INDEX_LOCATION );
+		this.indexLocation = indexLocation == null ? OPTION_DEFAULT_INDEX_LOCATION : indexLocation;
+
+		String supertypes = opts.get( OPTION_SUPERTYPES );
+		this.supertypes = supertypes == null ? OPTION_DEFAULT_SUPERTYPES : Boolean.parseBoolean( supertypes );
 	}
 
 	@Override
 	public boolean process( Set<? extends TypeElement> annotations, RoundEnvironment roundEnv ) {
 		if ( roundEnv.processingOver() ) {
+			if ( this.index ) {
+				this.writeIndex( this.processingEnv.getFiler() );
+			}
+
 			return false;
 		}
 
@@ -180,6 +229,13 @@ public class ProvidedImplementationProcessor extends AbstractProcessor {
 		// Now write them back out
 		this.writeMetaData( store, filer );
 
+		// Remember them for the index.
+		if ( this.index ) {
+			for ( Map.Entry<String, Set<ImplementationInformation>> e : store.entrySet() ) {
+				getSet( this.indexStore, e.getKey() ).addAll( e.getValue() );
+			}
+		}
+
 		return true;
 	}
 
@@ -199,7 +255,7 @@ public class ProvidedImplementationProcessor extends AbstractProcessor {
 
 				String line;
 				while ( (line = reader.readLine()) != null ) {
-					set.add( this.metaInfOnly ? new Impl( line ) : Impl.from( tabSplitter.split( line, 4 ) ) );
+					set.add( this.metaInfOnly ? new Impl( line ) : Impl.from( tabSplitter.split( line, 5 ) ) );
 				}
 			} catch ( FileNotFoundException x ) {
 				// doesn't exist
@@ -245,12 +301,77 @@ public class ProvidedImplementationProcessor extends AbstractProcessor {
 		}
 	}
 
+	private void writeIndex( Filer filer ) {
+		// Also load up any existing index, since this compilation may be partial
+		this.readExistingIndex( filer );
+
+		if ( this.indexStore.isEmpty() ) {
+			return;
+		}
+
+		OutputStream out = null;
+
+		try {
+			note( "Writing " + this.indexLocation );
+
+			FileObject f = filer.createResource( StandardLocation.CLASS_OUTPUT, "", this.indexLocation );
+			out = f.openOutputStream();
+			BinaryIndex.write( this.indexStore, out );
+		} catch ( IOException x ) {
+			error( "Failed to write implementation index: " + x );
+		} finally {
+			Util.close( out );
+		}
+	}
+
+	private void readExistingIndex( Filer filer ) {
+		InputStream in = null;
+
+		try {
+			FileObject f = filer.getResource( StandardLocation.CLASS_OUTPUT, "", this.indexLocation );
+			in = f.openInputStream();
+
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			byte[] buf = new byte[8192];
+			for ( int n; (n = in.read( buf )) > 0; ) {
+				bytes.write( buf, 0, n );
+			}
+
+			// Read it all before merging, a truncated index is only noticed half way.
+			BinaryIndex index = new BinaryIndex( ByteBuffer.wrap( bytes.toByteArray() ) );
+			Map<String, Set<ImplementationInformation>> existing = new HashMap<String, Set<ImplementationInformation>>();
+			for ( String interfase : index.interfaces() ) {
+				index.read( interfase, getSet( existing, interfase ) );
+			}
+
+			for ( Map.Entry<String, Set<ImplementationInformation>> e : existing.entrySet() ) {
+				// Discovered data has precedence over existing, add() never replaces.
+				getSet( this.indexStore, e.getKey() ).addAll( e.getValue() );
+			}
+		} catch ( FileNotFoundException x ) {
+			// doesn't exist
+		} catch ( NoSuchFileException x ) {
+			// doesn't exist
+		} catch ( IOException x ) {
+			error( "Failed to load existing implementation index: " + x );
+		} catch ( IllegalArgumentException x ) {
+			warning( "Ignoring invalid existing implementation index: " + x.getMessage() );
+		} catch ( BufferUnderflowException x ) {
+			warning( "Ignoring truncated existing implementation index." );
+		} catch ( IndexOutOfBoundsException x ) {
+			warning( "Ignoring truncated existing implementation index." );
+		} finally {
+			Util.close( in );
+		}
+	}
+
 	String formatImplementationMetadata( ImplementationInformation info ) {
 		// Format using our own meta-data format.
 		StringBuilder buf = new StringBuilder();
 		buf.append( info.getImplementorClass() );
 
-		int len = info.getExtras() == null ? (info.getType() == null ? (info.getPriority() == 0 ? 0 : 1) : 2) : 3;
+		int len = info.getSupertypes() != null ? 4 :
+				  info.getExtras() == null ? (info.getType() == null ? (info.getPriority() == 0 ? 0 : 1) : 2) : 3;
 
 		for ( int i = 1; i <= len; ++i ) {
 			buf.append( '\t' );
@@ -261,11 +382,15 @@ public class ProvidedImplementationProcessor extends AbstractProcessor {
 					break;
 
 				case 2:
-					buf.append( info.getType() );
+					buf.append( emptyIfNull( info.getType() ) );
 					break;
 
 				case 3:
-					buf.append( info.getExtras() );
+					buf.append( emptyIfNull( info.getExtras() ) );
+					break;
+
+				case 4:
+					buf.append( Impl.joinSupertypes( info.getSupertypes() ) );
 					break;
 			}
 		}
@@ -280,7 +405,8 @@ public class ProvidedImplementationProcessor extends AbstractProcessor {
 						implemented = getContract( type, pi );
 
 			if ( implemented != null ) {
-				ImplementationInformation info = new Impl( typeName( type ), pi.priority(), pi.type(), pi.extras() );
+				Set<String> supertypes = this.supertypes ? this.supertypeClosure( type ) : null;
+				ImplementationInformation info = new Impl( typeName( type ), pi.priority(), pi.type(), pi.extras(), supertypes );
 				Set<ImplementationInformation> set = getSet( store, typeName( implemented ) );
 				set.add( info );
 			}
@@ -372,6 +498,25 @@ public class ProvidedImplementationProcessor extends AbstractProcessor {
 	 * ----------------------------------------------
 	 */
 
+	/*
+	 * All supertypes of type, transitively and excluding java.lang.Object, sorted by name.
+	 */
+	private Set<String> supertypeClosure( TypeElement type ) {
+		Set<String> names = new TreeSet<String>();
+		Deque<TypeMirror> todo = new ArrayDeque<TypeMirror>();
+		todo.push( type.asType() );
+
+		while ( !todo.isEmpty() ) {
+			for ( TypeMirror m : this.util.directSupertypes( todo.pop() ) ) {
+				if ( m.getKind() == TypeKind.DECLARED && !isObject( type( m ) ) && names.add( typeName( type( m ) ) ) ) {
+					todo.push( m );
+				}
+			}
+		}
+
+		return Collections.unmodifiableSet( names );
+	}
+
 	private boolean isSubtype( TypeElement sub, TypeElement base ) {
 		return this.util.isSubtype( sub.asType(), base.asType() );
 	}
@@ -404,6 +549,10 @@ public class ProvidedImplementationProcessor extends AbstractProcessor {
 		return (TypeElement) ((DeclaredType) m).asElement();
 	}
 
+	private static Object emptyIfNull( Object o ) {
+		return o == null ? "" : o;
+	}
+
 	private String typeName( TypeElement type ) {
 		return this.elements.getBinaryName( type ).toString();
 	}
@@ -430,6 +579,10 @@ public class ProvidedImplementationProcessor extends AbstractProcessor {
 		msg().printMessage( Kind.ERROR, msg );
 	}
 
+	private void warning( String msg ) {
+		msg().printMessage( Kind.WARNING, msg );
+	}
+
 	private void note( String msg ) {
 		msg().printMessage( Kind.NOTE, msg );
 	}
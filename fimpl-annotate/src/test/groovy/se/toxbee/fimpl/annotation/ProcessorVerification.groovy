@@ -16,10 +16,12 @@
 
 package se.toxbee.fimpl.annotation
 
+import se.toxbee.fimpl.common.BinaryIndex
 import spock.lang.Shared
 import spock.lang.Specification
 
 import javax.tools.*
+import java.nio.ByteBuffer
 import java.nio.charset.Charset
 
 public class ProcessorVerification extends Specification {
@@ -33,6 +35,11 @@ public class ProcessorVerification extends Specification {
 			return [clazz( ZeInterface ), clazz( AnnotatedClass_1 ), clazz( AnnotatedClass_2 )];
 		}
 
+		@Override
+		Iterable<String> getOptions() {
+			return null
+		}
+
 		@Override
 		void test( List<Diagnostic<? extends JavaFileObject>> diagnostics, String stdoutS, Boolean result ) {
 			// No mandatory warnings or compilation errors should be found.
@@ -54,13 +61,68 @@ public class ProcessorVerification extends Specification {
 		}
 	}
 
+	class IndexTestCase extends TestCase {
+		@Override
+		Iterable<String> getOptions() {
+			return ["-A" + ProvidedImplementationProcessor.OPTION_INDEX + "=true"]
+		}
+
+		@Override
+		void test( List<Diagnostic<? extends JavaFileObject>> diagnostics, String stdoutS, Boolean result ) {
+			super.test( diagnostics, stdoutS, result )
+
+			def f = new File( OUTPUT_PATH + "/" + ProvidedImplementationProcessor.OPTION_DEFAULT_INDEX_LOCATION )
+			assert f.isFile()
+
+			def index = new BinaryIndex( ByteBuffer.wrap( f.bytes ) )
+			def infos = index.read( ZeInterface.getName(), [] )
+			assert infos.size() == 2
+			assert infos[0].implementorClass == "se.toxbee.fimpl.annotation.AnnotatedClass_1"
+			assert infos[0].priority == 1337
+			assert infos[0].type == "type"
+			assert infos[0].extras == "extras"
+			assert infos[1].implementorClass == "se.toxbee.fimpl.annotation.AnnotatedClass_2"
+		}
+	}
+
+	class SupertypesTestCase extends TestCase {
+		@Override
+		Iterable<String> getOptions() {
+			return ["-A" + ProvidedImplementationProcessor.OPTION_SUPERTYPES + "=true"]
+		}
+
+		@Override
+		void test( List<Diagnostic<? extends JavaFileObject>> diagnostics, String stdoutS, Boolean result ) {
+			assert result
+
+			def f = new File( OUTPUT_PATH + "/META-INF/services/" + ZeInterface.getName() )
+			def lines = f.readLines()
+			assert lines[0] == "se.toxbee.fimpl.annotation.AnnotatedClass_1\t1337\ttype\textras\tse.toxbee.fimpl.annotation.ZeInterface"
+			assert lines[1] == "se.toxbee.fimpl.annotation.AnnotatedClass_2\t0\t\t\tjava.io.Closeable,java.lang.AutoCloseable,se.toxbee.fimpl.annotation.ZeInterface"
+		}
+	}
+
 	def "TheTest"() {
 		given:
 			test( new TestCase() )
 	}
 
+	def "IndexTest"() {
+		given:
+			test( new IndexTestCase() )
+	}
+
+	def "SupertypesTest"() {
+		given:
+			test( new SupertypesTestCase() )
+		cleanup:
+			// Don't leave supertypes behind for the other cases.
+			new File( OUTPUT_PATH + "/META-INF/services/" + ZeInterface.getName() ).delete()
+	}
+
 	interface CompilerTestCase {
 		Iterable<String> getClassesToCompile()
+		Iterable<String> getOptions()
 		void test( List<Diagnostic<? extends JavaFileObject>> diagnostics, String stdoutS, Boolean result );
 	}
 
@@ -82,7 +144,7 @@ public class ProcessorVerification extends Specification {
 		fileManager.setLocation( StandardLocation.CLASS_OUTPUT, [ f ] );
 
 		// Compile, etc.
-		Boolean result = compiler.getTask( stdout, fileManager, collector, null, null, fileManager.getJavaFileObjects( files ) ).call();
+		Boolean result = compiler.getTask( stdout, fileManager, collector, currentTestCase.getOptions(), null, fileManager.getJavaFileObjects( files ) ).call();
 		String stdoutS = new String( stdoutStream.toByteArray() );
 
 		// Perform the verifications.
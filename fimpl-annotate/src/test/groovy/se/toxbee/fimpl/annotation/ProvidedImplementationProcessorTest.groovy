@@ -16,6 +16,7 @@
 
 package se.toxbee.fimpl.annotation
 
+import se.toxbee.fimpl.common.BinaryIndex
 import se.toxbee.fimpl.common.ImplementationInformation
 import spock.lang.Specification
 
@@ -25,6 +26,9 @@ import javax.annotation.processing.ProcessingEnvironment
 import javax.lang.model.SourceVersion
 import javax.lang.model.util.Elements
 import javax.lang.model.util.Types
+import javax.tools.Diagnostic
+import javax.tools.FileObject
+import javax.tools.StandardLocation
 
 class ProvidedImplementationProcessorTest extends Specification {
 	def "void-definition-test"() {
@@ -52,6 +56,8 @@ class ProvidedImplementationProcessorTest extends Specification {
 
 	class PE implements ProcessingEnvironment {
 		Map<String, String> opts
+		Messager messager
+		Filer filer
 
 		PE( Map<String, String> o ) {
 			opts = o
@@ -64,12 +70,12 @@ class ProvidedImplementationProcessorTest extends Specification {
 
 		@Override
 		Messager getMessager() {
-			return null
+			return messager
 		}
 
 		@Override
 		Filer getFiler() {
-			return null
+			return filer
 		}
 
 		@Override
@@ -102,14 +108,17 @@ class ProvidedImplementationProcessorTest extends Specification {
 		then: "Check that the given or default option values are used."
 			p.metaLocation == loc
 			p.metaInfOnly == only
+			p.supertypes == supertypes
 			p.isInitialized()
 		where:
 			opt     <<  [Collections.emptyMap(), new HashMap<String, String>() {{
 				put(ProvidedImplementationProcessor.OPTION_META_LOCATION, "l")
 				put(ProvidedImplementationProcessor.OPTION_METAINF_ONLY, "true")
+				put(ProvidedImplementationProcessor.OPTION_SUPERTYPES, "true")
 			}}]
 			loc     <<  [ProvidedImplementationProcessor.OPTION_DEFAULT_META_LOCATION, "l"]
 			only    <<  [ProvidedImplementationProcessor.OPTION_DEFAULT_METAINF_ONLY, true]
+			supertypes << [ProvidedImplementationProcessor.OPTION_DEFAULT_SUPERTYPES, true]
 	}
 
 	def "formatImplementationMetadata"() {
@@ -123,5 +132,30 @@ class ProvidedImplementationProcessorTest extends Specification {
 			"c\t0\tt"    | new ImplementationInformation.Impl( "c", 0, "t" )
 			"c\t1"       | new ImplementationInformation.Impl( "c", 1 )
 			"c"          | new ImplementationInformation.Impl( "c" )
+			"c\t0\t\te"   | new ImplementationInformation.Impl( "c", 0, null, "e" )
+			"c\t0\t\t\ta,b" | new ImplementationInformation.Impl( "c", 0, null, null, ["a", "b"] as Set )
+	}
+
+	def "Ignores a truncated existing index"() {
+		given:
+			def out = new ByteArrayOutputStream()
+			BinaryIndex.write( ["a.I": [new ImplementationInformation.Impl( "a.C", 1 )] as Set], out )
+			def bytes = Arrays.copyOf( out.toByteArray(), out.size() - 3 )
+
+			def file = Mock( FileObject )
+			file.openInputStream() >> new ByteArrayInputStream( bytes )
+			def filer = Mock( Filer )
+			filer.getResource( StandardLocation.CLASS_OUTPUT, "", _ ) >> file
+			def messager = Mock( Messager )
+
+			def p = new ProvidedImplementationProcessor()
+			p.init( new PE( Collections.emptyMap() ) )
+			p.processingEnv.messager = messager
+		when:
+			p.readExistingIndex( filer )
+		then:
+			p.indexStore.isEmpty()
+			1 * messager.printMessage( Diagnostic.Kind.WARNING, _ )
+			0 * messager.printMessage( Diagnostic.Kind.ERROR, _ )
 	}
 }
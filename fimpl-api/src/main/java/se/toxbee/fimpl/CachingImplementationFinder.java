@@ -0,0 +1,233 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.toxbee.fimpl;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import se.toxbee.fimpl.ImplementationResultSet.Impl;
+import se.toxbee.fimpl.common.ImplementationInformation;
+
+/**
+ * <p>CachingImplementationFinder is an {@link ImplementationFinder} that<br/>
+ * reads the implementations of each "interface" only once.</p>
+ *
+ * <p>The first {@link #find(Class)} for an "interface" reads and sorts a base set,<br/>
+ * which is then kept and never modified. Every call hands out a {@link Impl#copy()}<br/>
+ * of the base set, so callers are free to filter the result destructively.</p>
+ *
+ * <p>Cached entries are dropped with {@link #invalidate(Class)}, {@link #invalidateAll()}<br/>
+ * or when they become older than the time-to-live, if one is set.</p>
+ *
+ * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
+ * @version 1.0
+ * @since Feb, 20, 2014
+ */
+public class CachingImplementationFinder extends ImplementationFinder {
+	/**
+	 * An entry in the cache: the base set + when it expires.
+	 */
+	protected static class Entry {
+		protected final Impl<?> base;
+		protected final long expires;
+
+		protected Entry( Impl<?> base, long expires ) {
+			this.base = base;
+			this.expires = expires;
+		}
+	}
+
+	protected final ConcurrentMap<Class<?>, Entry> cache = new ConcurrentHashMap<Class<?>, Entry>();
+
+	/*
+	 * Time-to-live in nanoseconds, <= 0 means cached entries never expire.
+	 */
+	protected volatile long ttl;
+
+	/**
+	 * Constructs the finder, cached entries never expire.
+	 *
+	 * @param provider the provider implementation.
+	 */
+	public CachingImplementationFinder( ImplementationFactory provider ) {
+		this( provider, 0, TimeUnit.NANOSECONDS );
+	}
+
+	/**
+	 * Constructs the finder with a time-to-live for cached entries.
+	 *
+	 * @param provider the provider implementation.
+	 * @param ttl the time-to-live, <= 0 means that cached entries never expire.
+	 * @param unit the unit of ttl.
+	 */
+	public CachingImplementationFinder( ImplementationFactory provider, long ttl, TimeUnit unit ) {
+		super( provider );
+		this.setTimeToLive( ttl, unit );
+	}
+
+	/**
+	 * Sets the time-to-live of cached entries.<br/>
+	 * Only affects entries that are cached after the call.
+	 *
+	 * @param ttl the time-to-live, <= 0 means that cached entries never expire.
+	 * @param unit the unit of ttl.
+	 */
+	public void setTimeToLive( long ttl, TimeUnit unit ) {
+		this.ttl = ttl <= 0 ? 0 : unit.toNanos( ttl );
+	}
+
+	/**
+	 * Returns the time-to-live of cached entries.
+	 *
+	 * @param unit the unit to return the time-to-live in.
+	 * @return the time-to-live, 0 if cached entries never expire.
+	 */
+	public long getTimeToLive( TimeUnit unit ) {
+		return unit.convert( this.ttl, TimeUnit.NANOSECONDS );
+	}
+
+	/**
+	 * Drops the cached entry for the given "interface", if any.
+	 *
+	 * @param interfase the interface class object.
+	 */
+	public void invalidate( Class<?> interfase ) {
+		this.cache.remove( interfase );
+	}
+
+	/**
+	 * Drops all cached entries.
+	 */
+	public void invalidateAll() {
+		this.cache.clear();
+	}
+
+	/**
+	 * Returns whether or not there's a live cached entry for the given "interface".
+	 *
+	 * @param interfase the interface class object.
+	 * @return true if cached.
+	 */
+	public boolean isCached( Class<?> interfase ) {
+		Entry e = this.cache.get( interfase );
+		return e != null && !this.isExpired( e, System.nanoTime() );
+	}
+
+	/**
+	 * Finds the implementations for the given "interface".<br/>
+	 * The returned set is a copy of the cached base set.
+	 *
+	 * @param interfase the interface class object.
+	 * @param <I> the interface type.
+	 * @return the result set.
+	 */
+	@Override
+	public <I> Impl<I> find( Class<I> interfase ) {
+		return this.base( interfase ).copy();
+	}
+
+	/**
+	 * Finds the implementations for all the given "interfaces" at once.<br/>
+	 * Only those not cached are read, together. The returned sets are copies of the cached base sets.
+	 *
+	 * @param interfaces the interface class objects.
+	 * @return map of interface -> result set, in the order given.
+	 */
+	@Override
+	public Map<Class<?>, Impl<?>> findAll( Class<?>... interfaces ) {
+		Set<Class<?>> missing = new LinkedHashSet<Class<?>>();
+		for ( Class<?> interfase : interfaces ) {
+			if ( !this.isCached( interfase ) ) {
+				missing.add( interfase );
+			}
+		}
+
+		if ( !missing.isEmpty() ) {
+			long now = System.nanoTime();
+			Class<?>[] read = missing.toArray( new Class<?>[missing.size()] );
+			for ( Map.Entry<Class<?>, Iterator<ImplementationInformation>> e : this.findImplementationCollections( read ).entrySet() ) {
+				Impl<?> base = this.newResultSet( e.getKey(), e.getValue() );
+				this.cache.put( e.getKey(), new Entry( base, this.ttl == 0 ? 0 : now + this.ttl ) );
+			}
+		}
+
+		Map<Class<?>, Impl<?>> result = new LinkedHashMap<Class<?>, Impl<?>>();
+		for ( Class<?> interfase : interfaces ) {
+			if ( !result.containsKey( interfase ) ) {
+				result.put( interfase, this.find( interfase ) );
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Finds the implementations for the given "interface".<br/>
+	 * The returned iterator is backed by a copy of the cached base set.
+	 *
+	 * @param interfase the interface class object.
+	 * @param <I> the interface type.
+	 * @return the "collection".
+	 */
+	@Override
+	public <I> Iterator<ImplementationInformation> findRaw( Class<I> interfase ) {
+		return this.find( interfase ).iterator();
+	}
+
+	/**
+	 * Returns the cached base set for the given "interface", reading it if needed.<br/>
+	 * The base set must never be modified.
+	 *
+	 * @param interfase the interface class object.
+	 * @param <I> the interface type.
+	 * @return the base set.
+	 */
+	@SuppressWarnings("unchecked")
+	protected <I> Impl<I> base( Class<I> interfase ) {
+		long now = System.nanoTime();
+
+		Entry e = this.cache.get( interfase );
+		if ( e == null || this.isExpired( e, now ) ) {
+			// Read outside of any lock, if another thread wins the race we just use its entry.
+			Impl<I> base = this.newResultSet( interfase, this.findImplementationCollection( interfase ) );
+			Entry fresh = new Entry( base, this.ttl == 0 ? 0 : now + this.ttl );
+
+			if ( e == null ) {
+				Entry prev = this.cache.putIfAbsent( interfase, fresh );
+				e = prev == null ? fresh : prev;
+			} else {
+				e = this.cache.replace( interfase, e, fresh ) ? fresh : this.orFresh( interfase, fresh );
+			}
+		}
+
+		return (Impl<I>) e.base;
+	}
+
+	private Entry orFresh( Class<?> interfase, Entry fresh ) {
+		Entry e = this.cache.get( interfase );
+		return e == null ? fresh : e;
+	}
+
+	protected boolean isExpired( Entry e, long now ) {
+		return e.expires != 0 && now - e.expires >= 0;
+	}
+}
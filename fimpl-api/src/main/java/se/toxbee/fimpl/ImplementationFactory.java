@@ -36,4 +36,23 @@ public interface ImplementationFactory {
 	 * @return the reader.
 	 */
 	public ImplementationReader reader();
+
+	/**
+	 * Returns the instantiator of loaded implementations.
+	 *
+	 * @return the instantiator, a {@link ReflectiveInstantiator} by default.
+	 */
+	public default ImplementationInstantiator instantiator() {
+		return ReflectiveInstantiator.INSTANCE;
+	}
+
+	/**
+	 * Returns the listener that result sets report sorting and filtering to.<br/>
+	 * Defaults to {@link ImplementationListener#NONE}.
+	 *
+	 * @return the listener.
+	 */
+	public default ImplementationListener listener() {
+		return ImplementationListener.NONE;
+	}
 }
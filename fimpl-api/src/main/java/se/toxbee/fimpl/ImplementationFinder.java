@@ -16,6 +16,11 @@
 package se.toxbee.fimpl;
 
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 import se.toxbee.fimpl.ImplementationResultSet.Impl;
 import se.toxbee.fimpl.common.ImplementationInformation;
@@ -25,6 +30,12 @@ import static se.toxbee.fimpl.common.Util.guardNull;
 /**
  * <p>ImplementationFinder is the entry/front class API for fImpl.</p>
  *
+ * <p>The <tt>findAsync</tt> methods run {@link #find(Class)} on an executor,<br/>
+ * {@link ForkJoinPool#commonPool()} unless set with {@link #setExecutor(Executor)}.</p>
+ *
+ * <p>{@link #findAll(Class[])} finds many "interfaces" at once, letting the reader<br/>
+ * look for all of them in one go, see {@link ImplementationReader#readImplementationCollections(Class[])}.</p>
+ *
  * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
  * @version 1.0
  * @since Jan, 17, 2014
@@ -32,6 +43,8 @@ import static se.toxbee.fimpl.common.Util.guardNull;
 public class ImplementationFinder {
 	protected final ImplementationFactory provider;
 
+	protected volatile Executor executor = ForkJoinPool.commonPool();
+
 	/**
 	 * Constructs the finder.
 	 *
@@ -50,6 +63,24 @@ public class ImplementationFinder {
 		return this.provider;
 	}
 
+	/**
+	 * Sets the executor that the <tt>findAsync</tt> methods read with.
+	 *
+	 * @param executor the executor.
+	 */
+	public void setExecutor( Executor executor ) {
+		this.executor = guardNull( executor );
+	}
+
+	/**
+	 * Returns the executor that the <tt>findAsync</tt> methods read with.
+	 *
+	 * @return the executor.
+	 */
+	public Executor getExecutor() {
+		return this.executor;
+	}
+
 	/**
 	 * Finds the implementations for the given "interface".
 	 *
@@ -61,6 +92,59 @@ public class ImplementationFinder {
 		return new Impl<I>( this.provider, interfase, this.findRaw( interfase ) );
 	}
 
+	/**
+	 * Finds the implementations for all the given "interfaces" at once.
+	 *
+	 * @param interfaces the interface class objects.
+	 * @return map of interface -> result set, in the order given.
+	 */
+	public Map<Class<?>, Impl<?>> findAll( Class<?>... interfaces ) {
+		Map<Class<?>, Impl<?>> result = new LinkedHashMap<Class<?>, Impl<?>>();
+		for ( Map.Entry<Class<?>, Iterator<ImplementationInformation>> e : this.findImplementationCollections( interfaces ).entrySet() ) {
+			result.put( e.getKey(), this.newResultSet( e.getKey(), e.getValue() ) );
+		}
+
+		return result;
+	}
+
+	/**
+	 * Finds the implementations for the given "interface" on the executor.
+	 *
+	 * @param interfase the interface class object.
+	 * @param <I> the interface type.
+	 * @return the future result set, completed exceptionally if {@link #find(Class)} throws.
+	 */
+	public <I> CompletableFuture<Impl<I>> findAsync( Class<I> interfase ) {
+		guardNull( interfase );
+		return CompletableFuture.supplyAsync( () -> this.find( interfase ), this.executor );
+	}
+
+	/**
+	 * Finds the implementations for all the given "interfaces" on the executor,<br/>
+	 * one task per interface.
+	 *
+	 * @param interfaces the interface class objects.
+	 * @return the future map of interface -> result set, in the order given.<br/>
+	 *         Completed exceptionally if any {@link #find(Class)} throws.
+	 */
+	public CompletableFuture<Map<Class<?>, Impl<?>>> findAsync( Class<?>... interfaces ) {
+		Map<Class<?>, CompletableFuture<? extends Impl<?>>> futures = new LinkedHashMap<Class<?>, CompletableFuture<? extends Impl<?>>>();
+		for ( Class<?> interfase : interfaces ) {
+			if ( !futures.containsKey( interfase ) ) {
+				futures.put( interfase, this.findAsync( interfase ) );
+			}
+		}
+
+		return CompletableFuture.allOf( futures.values().toArray( new CompletableFuture<?>[futures.size()] ) ).thenApply( v -> {
+			Map<Class<?>, Impl<?>> result = new LinkedHashMap<Class<?>, Impl<?>>();
+			for ( Map.Entry<Class<?>, CompletableFuture<? extends Impl<?>>> e : futures.entrySet() ) {
+				result.put( e.getKey(), e.getValue().join() );
+			}
+
+			return result;
+		} );
+	}
+
 	/**
 	 * Finds the implementations for the given "interface".<br/>
 	 * Returns a "raw" ImplementationCollection object.
@@ -76,4 +160,12 @@ public class ImplementationFinder {
 	protected <I> Iterator<ImplementationInformation> findImplementationCollection( Class<I> interfase ) {
 		return this.provider.reader().readImplementationCollection( interfase );
 	}
+
+	protected Map<Class<?>, Iterator<ImplementationInformation>> findImplementationCollections( Class<?>... interfaces ) {
+		return this.provider.reader().readImplementationCollections( interfaces );
+	}
+
+	protected <I> Impl<I> newResultSet( Class<I> interfase, Iterator<ImplementationInformation> collection ) {
+		return new Impl<I>( this.provider, interfase, collection );
+	}
 }
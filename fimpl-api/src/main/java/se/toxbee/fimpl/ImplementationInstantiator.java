@@ -0,0 +1,37 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.toxbee.fimpl;
+
+/**
+ * ImplementationInstantiator creates instances of loaded implementation classes.
+ *
+ * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
+ * @version 1.0
+ * @since Mar, 04, 2014
+ */
+public interface ImplementationInstantiator {
+	/**
+	 * Creates an instance of clazz with the public constructor that best matches args.
+	 *
+	 * @param clazz the implementation class.
+	 * @param args the arguments to the constructor, none for the default constructor.
+	 * @param <I> the interface type.
+	 * @return the instance.
+	 * @throws IllegalArgumentException if clazz has no public constructor for args, or is abstract.
+	 * @throws RuntimeException wrapping any checked exception the constructor throws.
+	 */
+	public <I> I instantiate( Class<? extends I> clazz, Object... args );
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.toxbee.fimpl;
+
+/**
+ * <p>ImplementationListener is told how long each stage of finding and loading<br/>
+ * implementations takes, and how much work it did, per "interface".</p>
+ *
+ * <p>All methods do nothing by default, implement those of interest.<br/>
+ * When the listener is {@link #NONE}, nothing is measured at all.</p>
+ *
+ * <p>Listeners may be called from many threads at once.</p>
+ *
+ * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
+ * @version 1.0
+ * @since Mar, 08, 2014
+ */
+public interface ImplementationListener {
+	/**
+	 * The listener that listens to nothing.
+	 */
+	public static final ImplementationListener NONE = new ImplementationListener() {};
+
+	/**
+	 * Lookup of the index files (or whatever the reader reads) of one or more interfaces.
+	 *
+	 * @param interfaces the interfaces looked up together.
+	 * @param nanos the duration in nanoseconds.
+	 */
+	public default void lookup( Class<?>[] interfaces, long nanos ) {
+	}
+
+	/**
+	 * Parsing of the index files of an interface.
+	 *
+	 * @param interfase the interface.
+	 * @param streams the number of streams opened.
+	 * @param bytes the number of bytes read from the streams.
+	 * @param entries the number of entries produced.
+	 * @param nanos the duration in nanoseconds.
+	 */
+	public default void parse( Class<?> interfase, int streams, long bytes, int entries, long nanos ) {
+	}
+
+	/**
+	 * Sorting of a result set.
+	 *
+	 * @param interfase the interface.
+	 * @param entries the number of entries sorted.
+	 * @param nanos the duration in nanoseconds.
+	 */
+	public default void sort( Class<?> interfase, int entries, long nanos ) {
+	}
+
+	/**
+	 * Filtering of a result set.
+	 *
+	 * @param interfase the interface.
+	 * @param predicates the number of predicates.
+	 * @param evaluated the number of times a predicate was evaluated, 0 if answered by an index.
+	 * @param removed the number of entries removed.
+	 * @param nanos the duration in nanoseconds.
+	 */
+	public default void filter( Class<?> interfase, int predicates, int evaluated, int removed, long nanos ) {
+	}
+
+	/**
+	 * Loading of a class, only actual loads - not those answered from a cache.
+	 *
+	 * @param interfase the interface, i.e. the type the class is loaded as.
+	 * @param className the name of the class.
+	 * @param loaded false if it failed: not found or not of the type.
+	 * @param nanos the duration in nanoseconds.
+	 */
+	public default void load( Class<?> interfase, String className, boolean loaded, long nanos ) {
+	}
+}
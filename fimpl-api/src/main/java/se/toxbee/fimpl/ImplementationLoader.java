@@ -34,4 +34,13 @@ public interface ImplementationLoader {
 	 * @return the implementation class, or null on error.
 	 */
 	public <I> Class<? extends I> loadImplementation( ImplementationInformation info, Class<I> targetType );
+
+	/**
+	 * Returns the hierarchy of the classes the loader loads from, if it can tell subtypes without loading.
+	 *
+	 * @return the hierarchy, or null if it can't, which is the default.
+	 */
+	public default TypeHierarchy hierarchy() {
+		return null;
+	}
 }
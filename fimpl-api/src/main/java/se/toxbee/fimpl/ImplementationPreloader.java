@@ -0,0 +1,326 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.toxbee.fimpl;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import se.toxbee.fimpl.common.ImplementationInformation;
+
+import static se.toxbee.fimpl.common.Util.guardNull;
+
+/**
+ * <p>ImplementationPreloader loads the implementations of result sets ahead of time, in parallel,<br/>
+ * so that {@link ImplementationResultSet#first()} and friends don't pay for class loading<br/>
+ * on some request path later on. Loading goes through the {@link ImplementationLoader}<br/>
+ * of each result set, which may then answer from its cache, see {@link se.toxbee.fimpl.impl.StandardClassLoader}.</p>
+ *
+ * <p>By default each implementation is loaded as a task of its own on virtual threads<br/>
+ * where the platform has them, otherwise on the common fork-join pool.<br/>
+ * Classes are only initialized if asked to, see {@link #setInitialize(boolean)}.</p>
+ *
+ * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
+ * @version 1.0
+ * @since Mar, 10, 2014
+ */
+public class ImplementationPreloader {
+	/**
+	 * Listener of the progress of a preload, called from the loading threads.
+	 */
+	public static interface Listener {
+		/**
+		 * Listener that does nothing.
+		 */
+		public static final Listener NONE = new Listener() {};
+
+		/**
+		 * Called when an implementation was loaded, and initialized if asked to.
+		 *
+		 * @param interfase the interface.
+		 * @param info the implementation.
+		 * @param clazz the class.
+		 */
+		public default void loaded( Class<?> interfase, ImplementationInformation info, Class<?> clazz ) {
+		}
+
+		/**
+		 * Called when an implementation couldn't be loaded or initialized.
+		 *
+		 * @param interfase the interface.
+		 * @param info the implementation.
+		 * @param error the error, or null if the loader gave nothing, e.g. because there was no such class.
+		 */
+		public default void failed( Class<?> interfase, ImplementationInformation info, Throwable error ) {
+		}
+
+		/**
+		 * Called after each implementation, loaded or not.
+		 *
+		 * @param done the number of implementations done so far.
+		 * @param total the number of implementations to do.
+		 */
+		public default void progress( int done, int total ) {
+		}
+	}
+
+	/**
+	 * The outcome of a preload.
+	 */
+	public static class Result {
+		private final int total;
+		private final int loaded;
+		private final Map<ImplementationInformation, Throwable> failures;
+
+		protected Result( int total, int loaded, Map<ImplementationInformation, Throwable> failures ) {
+			this.total = total;
+			this.loaded = loaded;
+			this.failures = Collections.unmodifiableMap( failures );
+		}
+
+		/**
+		 * Returns the number of implementations that were preloaded.
+		 *
+		 * @return the number.
+		 */
+		public int total() {
+			return this.total;
+		}
+
+		/**
+		 * Returns the number of implementations that were loaded.
+		 *
+		 * @return the number.
+		 */
+		public int loaded() {
+			return this.loaded;
+		}
+
+		/**
+		 * Returns the implementations that failed, with the error or null, see {@link Listener#failed}.
+		 *
+		 * @return map of implementation -> error or null, in the order they failed.
+		 */
+		public Map<ImplementationInformation, Throwable> failures() {
+			return this.failures;
+		}
+
+		@Override
+		public String toString() {
+			return "Result[total=" + this.total + ", loaded=" + this.loaded + ", failed=" + this.failures.size() + ']';
+		}
+	}
+
+	private static volatile Executor defaultExecutor;
+
+	protected final ImplementationFinder finder;
+
+	protected volatile Executor executor;
+	protected volatile Listener listener = Listener.NONE;
+	protected volatile boolean initialize;
+
+	/**
+	 * Constructs the preloader.
+	 *
+	 * @param finder the finder used to find the implementations of interfaces.
+	 */
+	public ImplementationPreloader( ImplementationFinder finder ) {
+		this.finder = guardNull( finder );
+		this.executor = defaultExecutor();
+	}
+
+	/**
+	 * Sets the executor that implementations are loaded on, one task per implementation.
+	 *
+	 * @param executor the executor.
+	 */
+	public void setExecutor( Executor executor ) {
+		this.executor = guardNull( executor );
+	}
+
+	/**
+	 * Returns the executor that implementations are loaded on.
+	 *
+	 * @return the executor.
+	 */
+	public Executor getExecutor() {
+		return this.executor;
+	}
+
+	/**
+	 * Sets the listener of the progress.
+	 *
+	 * @param listener the listener, {@link Listener#NONE} for none.
+	 */
+	public void setListener( Listener listener ) {
+		this.listener = guardNull( listener );
+	}
+
+	/**
+	 * Sets whether or not the classes should also be initialized, running their static initializers.
+	 *
+	 * @param initialize true if they should, false by default.
+	 */
+	public void setInitialize( boolean initialize ) {
+		this.initialize = initialize;
+	}
+
+	/**
+	 * Returns whether or not the classes are also initialized.
+	 *
+	 * @return true if they are.
+	 */
+	public boolean isInitialize() {
+		return this.initialize;
+	}
+
+	/**
+	 * Finds the implementations of the given "interfaces" at once and preloads them.
+	 *
+	 * @param interfaces the interface class objects.
+	 * @return the future result, completed when all have been loaded or failed.
+	 */
+	public CompletableFuture<Result> preload( Class<?>... interfaces ) {
+		Map<Class<?>, ? extends ImplementationResultSet<?, ?>> sets = this.finder.findAll( interfaces );
+		return this.preload( sets.values() );
+	}
+
+	/**
+	 * Preloads the implementations of the given result sets, as they are now.
+	 *
+	 * @param sets the result sets.
+	 * @return the future result, completed when all have been loaded or failed.
+	 */
+	public CompletableFuture<Result> preload( ImplementationResultSet<?, ?>... sets ) {
+		List<ImplementationResultSet<?, ?>> list = new ArrayList<ImplementationResultSet<?, ?>>( sets.length );
+		Collections.addAll( list, sets );
+		return this.preload( list );
+	}
+
+	/**
+	 * Preloads the implementations of the given result sets, as they are now.
+	 *
+	 * @param sets the result sets.
+	 * @return the future result, completed when all have been loaded or failed.
+	 */
+	public CompletableFuture<Result> preload( Collection<? extends ImplementationResultSet<?, ?>> sets ) {
+		// Snapshot the work first, so that the sets may be filtered meanwhile.
+		List<Task> tasks = new ArrayList<Task>();
+		for ( ImplementationResultSet<?, ?> set : sets ) {
+			for ( ImplementationInformation info : set ) {
+				tasks.add( new Task( set, info ) );
+			}
+		}
+
+		Listener listener = this.listener;
+		boolean initialize = this.initialize;
+		int total = tasks.size();
+		AtomicInteger done = new AtomicInteger();
+		AtomicInteger loaded = new AtomicInteger();
+		Map<ImplementationInformation, Throwable> failures = Collections.synchronizedMap( new LinkedHashMap<ImplementationInformation, Throwable>() );
+
+		CompletableFuture<?>[] futures = new CompletableFuture<?>[total];
+		for ( int i = 0; i < total; ++i ) {
+			Task task = tasks.get( i );
+			futures[i] = CompletableFuture.runAsync( () -> {
+				try {
+					if ( task.load( initialize, listener ) ) {
+						loaded.incrementAndGet();
+					} else {
+						failures.put( task.info, null );
+					}
+				} catch ( Throwable t ) {
+					failures.put( task.info, t );
+					listener.failed( task.set.interfase(), task.info, t );
+				} finally {
+					listener.progress( done.incrementAndGet(), total );
+				}
+			}, this.executor );
+		}
+
+		return CompletableFuture.allOf( futures ).thenApply( v -> {
+			synchronized ( failures ) {
+				return new Result( total, loaded.get(), new LinkedHashMap<ImplementationInformation, Throwable>( failures ) );
+			}
+		} );
+	}
+
+	/**
+	 * One implementation to load.
+	 */
+	private static class Task {
+		final ImplementationResultSet<?, ?> set;
+		final ImplementationInformation info;
+
+		Task( ImplementationResultSet<?, ?> set, ImplementationInformation info ) {
+			this.set = set;
+			this.info = info;
+		}
+
+		boolean load( boolean initialize, Listener listener ) throws ClassNotFoundException {
+			Class<?> clazz = this.set.load( this.info );
+			if ( clazz == null ) {
+				listener.failed( this.set.interfase(), this.info, null );
+				return false;
+			}
+
+			if ( initialize ) {
+				Class.forName( clazz.getName(), true, clazz.getClassLoader() );
+			}
+
+			listener.loaded( this.set.interfase(), this.info, clazz );
+			return true;
+		}
+	}
+
+	/**
+	 * Returns an executor running each task on a virtual thread of its own<br/>
+	 * if the platform has them, otherwise the common fork-join pool.
+	 *
+	 * @return the executor.
+	 */
+	public static Executor defaultExecutor() {
+		Executor executor = defaultExecutor;
+		if ( executor == null ) {
+			defaultExecutor = executor = virtualThreads();
+		}
+
+		return executor;
+	}
+
+	private static Executor virtualThreads() {
+		try {
+			// Executors.newVirtualThreadPerTaskExecutor(), compiled for platforms without it.
+			Method m = java.util.concurrent.Executors.class.getMethod( "newVirtualThreadPerTaskExecutor" );
+			return (Executor) m.invoke( null );
+		} catch ( NoSuchMethodException e ) {
+			return ForkJoinPool.commonPool();
+		} catch ( ReflectiveOperationException e ) {
+			return ForkJoinPool.commonPool();
+		} catch ( RuntimeException e ) {
+			// E.g: unsupported without --enable-preview.
+			return ForkJoinPool.commonPool();
+		}
+	}
+}
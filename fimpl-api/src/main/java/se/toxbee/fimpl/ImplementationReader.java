@@ -16,6 +16,8 @@
 package se.toxbee.fimpl;
 
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import se.toxbee.fimpl.common.ImplementationInformation;
 
@@ -34,4 +36,23 @@ public interface ImplementationReader {
 	 * @return the collection.
 	 */
 	public <I> Iterator<ImplementationInformation> readImplementationCollection( Class<I> interfase );
+
+	/**
+	 * Reads ImplementationCollections for many interface class objects at once.<br/>
+	 * Readers that can should override this to share work between the interfaces,<br/>
+	 * by default it is {@link #readImplementationCollection(Class)} for each.
+	 *
+	 * @param interfaces the interface class objects.
+	 * @return map of interface -> collection, in the order given, without duplicates.
+	 */
+	public default Map<Class<?>, Iterator<ImplementationInformation>> readImplementationCollections( Class<?>... interfaces ) {
+		Map<Class<?>, Iterator<ImplementationInformation>> map = new LinkedHashMap<Class<?>, Iterator<ImplementationInformation>>();
+		for ( Class<?> interfase : interfaces ) {
+			if ( !map.containsKey( interfase ) ) {
+				map.put( interfase, this.readImplementationCollection( interfase ) );
+			}
+		}
+
+		return map;
+	}
 }
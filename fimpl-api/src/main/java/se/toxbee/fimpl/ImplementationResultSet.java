@@ -1,15 +1,27 @@
 package se.toxbee.fimpl;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.List;
 import java.util.Set;
+import java.util.Spliterator;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import se.toxbee.fimpl.common.ImplementationInformation;
+import se.toxbee.fimpl.predicates.ClassNameTransformer;
+import se.toxbee.fimpl.predicates.EqualsCompositePredicate;
+import se.toxbee.fimpl.predicates.EqualsPredicate;
 import se.toxbee.fimpl.predicates.Predicate;
+import se.toxbee.fimpl.predicates.PredicateInputTransformer;
+import se.toxbee.fimpl.predicates.TypeTransformer;
 import se.toxbee.fimpl.predicates.PredicateFactory;
+import se.toxbee.fimpl.predicates.PredicateOptimizer;
 
 import static se.toxbee.fimpl.common.Util.guardNull;
 
@@ -56,16 +68,21 @@ public abstract class ImplementationResultSet<I, R extends ImplementationResultS
 	protected Predicate<I>[] pendingPredicates = null;
 
 	/*
-	 * The "set" is actually a LinkedList.
+	 * The "set" is actually a sorted array + a liveness mask.
 	 *
 	 * Motivation:
-	 *  - insertion is VERY rare.
-	 *  - O(1) removal during iteration needed.
-	 *  - the "set" must be sortable by natural order (LinkedHashSet: insertion order)
-	 *      -> requires List interface.
-	 *  - the "set" must at least provide getFirst() in Deque interface.
+	 *  - insertion is VERY rare, and rebuilds the array.
+	 *  - O(1) removal during filtering needed -> clear a bit, no unlinking.
+	 *  - the "set" must be sorted by natural order.
+	 *  - the "set" must at least provide first().
+	 *  - one array instead of a node per element: less garbage, better locality.
 	 */
-	protected final LinkedList<ImplementationInformation> set;
+	protected final ImplementationStorage set;
+
+	/*
+	 * Number of predicate evaluations by the current filter, for the listener.
+	 */
+	protected int evaluated;
 
 	/* ----------------------
 	 * Constructors & related
@@ -87,7 +104,7 @@ public abstract class ImplementationResultSet<I, R extends ImplementationResultS
 		this.interfase = guardNull( interfase );
 
 		// Init the set.
-		this.set = new LinkedList<ImplementationInformation>();
+		this.set = new ImplementationStorage();
 
 		// Init the set data.
 		this.fixListState( this.fillSet( new HashSet<ImplementationInformation>(), initData ) );
@@ -116,11 +133,26 @@ public abstract class ImplementationResultSet<I, R extends ImplementationResultS
 	 * @param initSet set will be filled with initSet.
 	 */
 	protected void fixListState( Set<ImplementationInformation> initSet ) {
-		this.set.clear();
-		this.set.addAll( initSet );
+		ImplementationListener listener = this.listener();
+		if ( listener == ImplementationListener.NONE ) {
+			// Rebuilds & sorts set.
+			this.set.reset( initSet );
+			return;
+		}
 
-		// Sort set.
-		Collections.sort( this.set );
+		long start = System.nanoTime();
+		this.set.reset( initSet );
+		listener.sort( this.interfase, this.set.size(), System.nanoTime() - start );
+	}
+
+	/**
+	 * Returns the listener of the provider, never null.
+	 *
+	 * @return the listener.
+	 */
+	protected ImplementationListener listener() {
+		ImplementationListener listener = this.provider.listener();
+		return listener == null ? ImplementationListener.NONE : listener;
 	}
 
 	/**
@@ -136,7 +168,9 @@ public abstract class ImplementationResultSet<I, R extends ImplementationResultS
 	 *
 	 * <p>Performs a deep copy with:</p>
 	 * <ul>
-	 *     <li>the set, not copy of the actual elements in it.</li>
+	 *     <li>the set, not copy of the actual elements in it.<br/>
+	 *     This is O(1): the set is copy-on-write and shares its state with from<br/>
+	 *     until either side is modified.</li>
 	 * </ul>
 	 *
 	 * @param from the set to copy from.
@@ -149,7 +183,7 @@ public abstract class ImplementationResultSet<I, R extends ImplementationResultS
 		this.pendingPredicates = from.pendingPredicates;
 
 		// Deep copy of set itself (not elements).
-		this.set = new LinkedList<ImplementationInformation>( from.set );
+		this.set = new ImplementationStorage( from.set );
 	}
 
 	/**
@@ -168,7 +202,8 @@ public abstract class ImplementationResultSet<I, R extends ImplementationResultS
 	 *
 	 * <p>Performs a deep copy with:</p>
 	 * <ul>
-	 *     <li>the set, not copy of the actual elements in it.</li>
+	 *     <li>the set, not copy of the actual elements in it.<br/>
+	 *     This is O(1), see {@link #ImplementationResultSet(ImplementationResultSet)}.</li>
 	 * </ul>
 	 *
 	 * @return the shallow copy.
@@ -253,6 +288,46 @@ public abstract class ImplementationResultSet<I, R extends ImplementationResultS
 		return new ItrWrapper( this.decendingIterator() );
 	}
 
+	/**
+	 * Creates an instance of the first implementation, see {@link #first()},<br/>
+	 * through the {@link ImplementationInstantiator} of the provider.
+	 *
+	 * @param args the arguments to the constructor, none for the default constructor.
+	 * @return the instance, or null if the class couldn't be loaded.
+	 */
+	public I instantiate( Object... args ) {
+		return this.newInstance( this.first(), args );
+	}
+
+	/**
+	 * Creates an instance of every implementation that can be loaded, in order,<br/>
+	 * through the {@link ImplementationInstantiator} of the provider.
+	 *
+	 * @param args the arguments to each constructor, none for the default constructor.
+	 * @return the instances.
+	 */
+	public List<I> instances( Object... args ) {
+		List<I> instances = new ArrayList<I>( this.size() );
+		for ( Class<? extends I> clazz : this.loadingIterable() ) {
+			if ( clazz != null ) {
+				instances.add( this.newInstance( clazz, args ) );
+			}
+		}
+
+		return instances;
+	}
+
+	/**
+	 * Creates an instance of clazz through the {@link ImplementationInstantiator} of the provider.
+	 *
+	 * @param clazz the class, may be null.
+	 * @param args the arguments to the constructor.
+	 * @return the instance, or null if clazz is null.
+	 */
+	protected I newInstance( Class<? extends I> clazz, Object[] args ) {
+		return clazz == null ? null : this.provider.instantiator().<I>instantiate( clazz, args );
+	}
+
 	/**
 	 * Returns the first ImplementationInformation object.
 	 * It's the one with the highest priority.
@@ -260,7 +335,7 @@ public abstract class ImplementationResultSet<I, R extends ImplementationResultS
 	 * @return the first info.
 	 */
 	public ImplementationInformation firstInfo() {
-		return this.set.getFirst();
+		return this.set.first();
 	}
 
 	@Override
@@ -268,6 +343,45 @@ public abstract class ImplementationResultSet<I, R extends ImplementationResultS
 		return this.set.iterator();
 	}
 
+	/**
+	 * Returns a spliterator over the set as it is now, see {@link ImplementationStorage#spliterator()}.
+	 *
+	 * @return the spliterator.
+	 */
+	@Override
+	public Spliterator<ImplementationInformation> spliterator() {
+		return this.set.spliterator();
+	}
+
+	/**
+	 * Returns a sequential stream of the set as it is now, in order.
+	 *
+	 * @return the stream.
+	 */
+	public Stream<ImplementationInformation> stream() {
+		return StreamSupport.stream( this.spliterator(), false );
+	}
+
+	/**
+	 * Returns a parallel stream of the set as it is now, in order.
+	 *
+	 * @return the stream.
+	 */
+	public Stream<ImplementationInformation> parallelStream() {
+		return StreamSupport.stream( this.spliterator(), true );
+	}
+
+	/**
+	 * Returns a sequential stream that calls {@link #load(ImplementationInformation)}<br/>
+	 * on the elements of {@link #stream()}, like {@link #loadingIterable()} there may be nulls.<br/>
+	 * Call <tt>parallel()</tt> on it to load in parallel.
+	 *
+	 * @return the stream.
+	 */
+	public Stream<Class<? extends I>> loadingStream() {
+		return this.stream().map( this::load );
+	}
+
 	/**
 	 * Returns a descending iterator for set.
 	 *
@@ -398,7 +512,7 @@ public abstract class ImplementationResultSet<I, R extends ImplementationResultS
 		Set<ImplementationInformation> init = new HashSet<ImplementationInformation>();
 
 		// Add this set to init.
-		init.addAll( this.set );
+		this.set.addTo( init );
 
 		// Add "rhs" to init & Fix the state:
 		this.fixListState( this.fillSet( init, rhs ) );
@@ -476,6 +590,18 @@ public abstract class ImplementationResultSet<I, R extends ImplementationResultS
 		return this.use( PredicateFactory.<I>forClassName( pattern ) );
 	}
 
+	/**
+	 * Equivalent of {@link #use(Predicate[])}
+	 * with {@link se.toxbee.fimpl.predicates.PredicateFactory#forClassNameGlob(String)}.
+	 *
+	 * @param glob the class name glob, e.g: <tt>com.acme.*</tt>.
+	 * @return my()
+	 */
+	@SuppressWarnings("unchecked")
+	public R classNameGlob( String glob ) {
+		return this.use( PredicateFactory.<I>forClassNameGlob( glob ) );
+	}
+
 	/* ---------------------------------
 	 * Public API, Predicate Logic: Type
 	 * ---------------------------------
@@ -517,6 +643,18 @@ public abstract class ImplementationResultSet<I, R extends ImplementationResultS
 		return this.use( PredicateFactory.<I>forType( pattern ) );
 	}
 
+	/**
+	 * Equivalent of {@link #use(Predicate[])}
+	 * with {@link se.toxbee.fimpl.predicates.PredicateFactory#forTypeGlob(String)}.
+	 *
+	 * @param glob the type glob, e.g: <tt>image/*</tt>.
+	 * @return my()
+	 */
+	@SuppressWarnings("unchecked")
+	public R typeGlob( String glob ) {
+		return this.use( PredicateFactory.<I>forTypeGlob( glob ) );
+	}
+
 	/* ----------------------------------------
 	 * Public API, Predicate Logic: General API
 	 * ----------------------------------------
@@ -601,18 +739,47 @@ public abstract class ImplementationResultSet<I, R extends ImplementationResultS
 		predicates = this.recoverWithPending( predicates );
 
 		if ( predicates.length > 0 ) {
-			this.filterInner( removeOn, allMode, predicates );
+			ImplementationListener listener = this.listener();
+			if ( listener == ImplementationListener.NONE ) {
+				this.filterInner( removeOn, allMode, predicates );
+			} else {
+				int before = this.set.size();
+				this.evaluated = 0;
+
+				long start = System.nanoTime();
+				this.filterInner( removeOn, allMode, predicates );
+				listener.filter( this.interfase, predicates.length, this.evaluated, before - this.set.size(), System.nanoTime() - start );
+			}
 		}
 
 		return this.consumeIf();
 	}
 
 	protected void filterInner( boolean removeOn, boolean allMode, Predicate<I>[] predicates ) {
+		if ( predicates.length == 1 && this.filterIndexed( removeOn, allMode, predicates[0] ) ) {
+			return;
+		}
+
+		// Cheapest first.
+		predicates = PredicateOptimizer.optimize( predicates );
+
+		if ( predicates.length > 1 && removeOn != allMode ) {
+			// retainAll / removeAny: one pass per predicate is the same thing, and lets
+			// each use an index - the expensive ones then only see what survived the cheap.
+			// Same component type as predicates, which all go in it.
+			Predicate<I>[] one = Arrays.copyOf( predicates, 1 );
+			for ( Predicate<I> p : predicates ) {
+				one[0] = p;
+				this.filterInner( removeOn, allMode, one );
+			}
+
+			return;
+		}
+
 		boolean anyMode = !allMode;
-		Iterator<ImplementationInformation> iter = this.set.iterator();
 
-		while( iter.hasNext() ) {
-			ImplementationInformation info = iter.next();
+		for ( int i = this.set.next( 0 ); i >= 0; i = this.set.next( i + 1 ) ) {
+			ImplementationInformation info = this.set.get( i );
 
 			boolean remove = allMode;
 			for ( Predicate<I> p : predicates ) {
@@ -620,6 +787,7 @@ public abstract class ImplementationResultSet<I, R extends ImplementationResultS
 					return;
 				}
 
+				this.evaluated++;
 				if ( p.match( info, this, anyMode ) == anyMode )  {
 					remove = anyMode;
 					break;
@@ -627,11 +795,92 @@ public abstract class ImplementationResultSet<I, R extends ImplementationResultS
 			}
 
 			if ( remove == removeOn ) {
-				iter.remove();
+				this.set.remove( i );
 			}
 		}
 	}
 
+	/**
+	 * Filters with the secondary indexes of the storage, if the predicate is an equality<br/>
+	 * check on type or class name. With a single predicate, an entry is removed<br/>
+	 * iff whether it matches equals removeOn, regardless of mode.
+	 *
+	 * @param removeOn for which matcher result to keep, true = remove, false = retain
+	 * @param allMode using all mode, or any mode.
+	 * @param predicate the predicate.
+	 * @return true if filtered, false if the predicate can't be answered by an index.
+	 */
+	protected boolean filterIndexed( boolean removeOn, boolean allMode, Predicate<I> predicate ) {
+		BitSet mask;
+		if ( predicate instanceof EqualsPredicate ) {
+			EqualsPredicate<I, ?> p = (EqualsPredicate<I, ?>) predicate;
+			ImplementationStorage.Index index = indexOf( p.transformer() );
+			if ( index == null ) {
+				return false;
+			}
+
+			mask = this.set.indexed( index, p.matcher() );
+		} else if ( predicate instanceof EqualsCompositePredicate ) {
+			EqualsCompositePredicate<I, ?> p = (EqualsCompositePredicate<I, ?>) predicate;
+			ImplementationStorage.Index index = indexOf( p.transformer() );
+			Object[] matchers = p.matchers();
+			if ( index == null || matchers == null ) {
+				return false;
+			}
+
+			mask = this.indexedComposite( index, matchers, allMode );
+		} else {
+			return false;
+		}
+
+		if ( removeOn ) {
+			if ( mask != null ) {
+				this.set.remove( mask );
+			}
+		} else {
+			this.set.retain( mask == null ? new BitSet() : mask );
+		}
+
+		return true;
+	}
+
+	private BitSet indexedComposite( ImplementationStorage.Index index, Object[] matchers, boolean allMode ) {
+		if ( allMode ) {
+			Set<Object> distinct = new HashSet<Object>( Arrays.asList( matchers ) );
+			switch ( distinct.size() ) {
+				case 0:
+					// Vacuously matches everything.
+					BitSet all = new BitSet();
+					all.set( 0, this.set.array.length );
+					return all;
+
+				case 1:
+					return this.set.indexed( index, matchers[0] );
+
+				default:
+					return null;
+			}
+		}
+
+		BitSet union = new BitSet();
+		for ( Object m : matchers ) {
+			BitSet bits = this.set.indexed( index, m );
+			if ( bits != null ) {
+				union.or( bits );
+			}
+		}
+
+		return union;
+	}
+
+	private static ImplementationStorage.Index indexOf( PredicateInputTransformer<?, ?> transformer ) {
+		// Exact classes only, subclasses may transform differently.
+		Class<?> c = transformer.getClass();
+		return c == TypeTransformer.class ? ImplementationStorage.Index.TYPE
+			 : c == ClassNameTransformer.class ? ImplementationStorage.Index.CLASS_NAME
+			 : null;
+	}
+
 	/* --------------------------------------------
 	 * Public API, Predicate Logic: General Utility
 	 * --------------------------------------------
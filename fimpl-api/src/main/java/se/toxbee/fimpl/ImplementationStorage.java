@@ -0,0 +1,478 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.toxbee.fimpl;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+import se.toxbee.fimpl.common.ImplementationInformation;
+
+/**
+ * <p>ImplementationStorage is the backing storage of {@link ImplementationResultSet}.</p>
+ *
+ * <p>The elements are kept in an array sorted by natural order (priority),<br/>
+ * the array is never modified once built. Removal clears a bit in a liveness mask<br/>
+ * instead, so filtering doesn't move or allocate anything.</p>
+ *
+ * <p>Copies are copy-on-write: a copy shares both the array and the liveness mask<br/>
+ * with its source, the mask is only copied by the first removal on either side.</p>
+ *
+ * <p>Secondary indexes of the array by type and class name, see {@link #indexed(Index, Object)},<br/>
+ * are built on first use and shared by all copies of the array.</p>
+ *
+ * <p>{@link #spliterator()} works on a dense snapshot of the live elements,<br/>
+ * which is the sorted array itself when nothing has been removed.</p>
+ *
+ * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
+ * @version 1.0
+ * @since Feb, 22, 2014
+ */
+public class ImplementationStorage implements Iterable<ImplementationInformation> {
+	private static final ImplementationInformation[] EMPTY = new ImplementationInformation[0];
+
+	/**
+	 * The secondary indexes.
+	 */
+	public static enum Index {
+		/**
+		 * By {@link ImplementationInformation#getType()}.
+		 */
+		TYPE {
+			@Override
+			Object key( ImplementationInformation info ) {
+				return info.getType();
+			}
+		},
+
+		/**
+		 * By {@link ImplementationInformation#getImplementorClass()}.
+		 */
+		CLASS_NAME {
+			@Override
+			Object key( ImplementationInformation info ) {
+				return info.getImplementorClass();
+			}
+		};
+
+		abstract Object key( ImplementationInformation info );
+	}
+
+	/**
+	 * The lazily built indexes of one array, shared by all storages using it.
+	 */
+	protected static class Indexes {
+		private final ImplementationInformation[] array;
+		private final AtomicReferenceArray<Map<?, BitSet>> maps;
+
+		protected Indexes( ImplementationInformation[] array ) {
+			this.array = array;
+			this.maps = new AtomicReferenceArray<Map<?, BitSet>>( Index.values().length );
+		}
+
+		protected Map<?, BitSet> get( Index index ) {
+			// Shared across threads: publish through the array, the first built wins.
+			Map<?, BitSet> map = this.maps.get( index.ordinal() );
+			if ( map == null ) {
+				map = this.build( index );
+				if ( !this.maps.compareAndSet( index.ordinal(), null, map ) ) {
+					map = this.maps.get( index.ordinal() );
+				}
+			}
+
+			return map;
+		}
+
+		private Map<?, BitSet> build( Index index ) {
+			Map<Object, BitSet> map = new HashMap<Object, BitSet>();
+			for ( int i = 0; i < this.array.length; ++i ) {
+				Object key = index.key( this.array[i] );
+				BitSet bits = map.get( key );
+				if ( bits == null ) {
+					map.put( key, bits = new BitSet( this.array.length ) );
+				}
+				bits.set( i );
+			}
+
+			return Collections.unmodifiableMap( map );
+		}
+	}
+
+	/*
+	 * Sorted, never modified after reset().
+	 */
+	protected ImplementationInformation[] array;
+
+	/*
+	 * Bit i is set iff array[i] is still in the storage.
+	 * May be shared with other storages, in which case it must be copied before modification.
+	 */
+	protected BitSet live;
+	protected boolean shared;
+
+	protected int size;
+
+	/*
+	 * Indexes of array, shared along with it.
+	 */
+	protected Indexes indexes;
+
+	/**
+	 * Constructs an empty storage.
+	 */
+	public ImplementationStorage() {
+		this.array = EMPTY;
+		this.indexes = new Indexes( EMPTY );
+		this.live = new BitSet();
+		this.size = 0;
+	}
+
+	/**
+	 * Copy constructor, O(1).<br/>
+	 * The sorted array and the liveness mask are shared,<br/>
+	 * the mask is copied when either side first removes an element.
+	 *
+	 * @param from the storage to copy from.
+	 */
+	public ImplementationStorage( ImplementationStorage from ) {
+		from.shared = true;
+
+		this.array = from.array;
+		this.indexes = from.indexes;
+		this.live = from.live;
+		this.size = from.size;
+		this.shared = true;
+	}
+
+	/**
+	 * Replaces the contents of the storage with the given elements, sorted.
+	 *
+	 * @param init the elements, should not contain duplicates.
+	 */
+	public void reset( Collection<ImplementationInformation> init ) {
+		ImplementationInformation[] array = init.toArray( new ImplementationInformation[init.size()] );
+		Arrays.sort( array );
+
+		BitSet live = new BitSet( array.length );
+		live.set( 0, array.length );
+
+		this.array = array;
+		this.indexes = new Indexes( array );
+		this.live = live;
+		this.size = array.length;
+		this.shared = false;
+	}
+
+	/**
+	 * Returns the number of live elements.
+	 *
+	 * @return the size.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Returns the element at index in the sorted array, live or not.
+	 *
+	 * @param index the index.
+	 * @return the element.
+	 */
+	public ImplementationInformation get( int index ) {
+		return this.array[index];
+	}
+
+	/**
+	 * Returns the index of the first live element at or after from.
+	 *
+	 * @param from the index to start from.
+	 * @return the index, or -1 if there is none.
+	 */
+	public int next( int from ) {
+		return this.live.nextSetBit( from );
+	}
+
+	/**
+	 * Returns the index of the first live element at or before from.
+	 *
+	 * @param from the index to start from.
+	 * @return the index, or -1 if there is none.
+	 */
+	public int previous( int from ) {
+		return from < 0 ? -1 : this.live.previousSetBit( from );
+	}
+
+	/**
+	 * Removes the element at index, if live.
+	 *
+	 * @param index the index.
+	 */
+	public void remove( int index ) {
+		if ( this.live.get( index ) ) {
+			this.writableLive().clear( index );
+			this.size--;
+		}
+	}
+
+	/**
+	 * Removes all elements.
+	 */
+	public void clear() {
+		this.array = EMPTY;
+		this.indexes = new Indexes( EMPTY );
+		this.live = new BitSet();
+		this.size = 0;
+		this.shared = false;
+	}
+
+	/**
+	 * Returns the indices in the sorted array, live or not, of the elements with a value.<br/>
+	 * The index is built on first use, after which this is a hash lookup.
+	 *
+	 * @param index the index to look in.
+	 * @param value the value, e.g. a type, may be null.
+	 * @return the indices, must not be modified. Null if there are none.
+	 */
+	public BitSet indexed( Index index, Object value ) {
+		return this.indexes.get( index ).get( value );
+	}
+
+	/**
+	 * Removes all elements whose index isn't in mask.
+	 *
+	 * @param mask the indices to retain.
+	 */
+	public void retain( BitSet mask ) {
+		BitSet live = this.writableLive();
+		live.and( mask );
+		this.size = live.cardinality();
+	}
+
+	/**
+	 * Removes all elements whose index is in mask.
+	 *
+	 * @param mask the indices to remove.
+	 */
+	public void remove( BitSet mask ) {
+		BitSet live = this.writableLive();
+		live.andNot( mask );
+		this.size = live.cardinality();
+	}
+
+	/**
+	 * Returns the liveness mask for modification, copying it first if shared.
+	 *
+	 * @return the mask.
+	 */
+	protected BitSet writableLive() {
+		if ( this.shared ) {
+			this.live = (BitSet) this.live.clone();
+			this.shared = false;
+		}
+
+		return this.live;
+	}
+
+	/**
+	 * Returns the first live element, the one with highest priority.
+	 *
+	 * @return the first element.
+	 * @throws NoSuchElementException if empty.
+	 */
+	public ImplementationInformation first() {
+		int i = this.next( 0 );
+		if ( i < 0 ) {
+			throw new NoSuchElementException();
+		}
+
+		return this.array[i];
+	}
+
+	/**
+	 * Adds all live elements to the given collection, in order.
+	 *
+	 * @param c the collection to add to.
+	 * @param <C> the type of the collection.
+	 * @return the given collection.
+	 */
+	public <C extends Collection<? super ImplementationInformation>> C addTo( C c ) {
+		for ( int i = this.next( 0 ); i >= 0; i = this.next( i + 1 ) ) {
+			c.add( this.array[i] );
+		}
+
+		return c;
+	}
+
+	@Override
+	public Iterator<ImplementationInformation> iterator() {
+		return new Itr( false );
+	}
+
+	/**
+	 * Returns an iterator over the live elements in reverse order.
+	 *
+	 * @return the iterator.
+	 */
+	public Iterator<ImplementationInformation> descendingIterator() {
+		return new Itr( true );
+	}
+
+	/**
+	 * Returns a spliterator over a snapshot of the live elements, in order.<br/>
+	 * It splits evenly and is SIZED, SUBSIZED, ORDERED, SORTED, DISTINCT, NONNULL and IMMUTABLE.
+	 *
+	 * @return the spliterator.
+	 */
+	@Override
+	public Spliterator<ImplementationInformation> spliterator() {
+		ImplementationInformation[] dense = this.dense();
+		return new Split( dense, 0, dense.length );
+	}
+
+	/**
+	 * Returns the live elements in order, the sorted array itself if all are live.
+	 *
+	 * @return the elements, must not be modified.
+	 */
+	protected ImplementationInformation[] dense() {
+		if ( this.size == this.array.length ) {
+			return this.array;
+		}
+
+		ImplementationInformation[] dense = new ImplementationInformation[this.size];
+		int j = 0;
+		for ( int i = this.next( 0 ); i >= 0; i = this.next( i + 1 ) ) {
+			dense[j++] = this.array[i];
+		}
+
+		return dense;
+	}
+
+	/**
+	 * Spliterator over a range of a dense array, splits in halves.
+	 */
+	protected static class Split implements Spliterator<ImplementationInformation> {
+		private static final int CHARACTERISTICS = SIZED | SUBSIZED | ORDERED | SORTED | DISTINCT | NONNULL | IMMUTABLE;
+
+		private final ImplementationInformation[] array;
+		private int index;
+		private final int fence;
+
+		protected Split( ImplementationInformation[] array, int index, int fence ) {
+			this.array = array;
+			this.index = index;
+			this.fence = fence;
+		}
+
+		@Override
+		public boolean tryAdvance( Consumer<? super ImplementationInformation> action ) {
+			if ( this.index >= this.fence ) {
+				return false;
+			}
+
+			action.accept( this.array[this.index++] );
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining( Consumer<? super ImplementationInformation> action ) {
+			ImplementationInformation[] array = this.array;
+			int i = this.index;
+			int fence = this.fence;
+			this.index = fence;
+			for ( ; i < fence; ++i ) {
+				action.accept( array[i] );
+			}
+		}
+
+		@Override
+		public Spliterator<ImplementationInformation> trySplit() {
+			int lo = this.index;
+			int mid = (lo + this.fence) >>> 1;
+			if ( lo >= mid ) {
+				return null;
+			}
+
+			this.index = mid;
+			return new Split( this.array, lo, mid );
+		}
+
+		@Override
+		public long estimateSize() {
+			return this.fence - this.index;
+		}
+
+		@Override
+		public int characteristics() {
+			return CHARACTERISTICS;
+		}
+
+		@Override
+		public Comparator<? super ImplementationInformation> getComparator() {
+			// Natural order, by priority.
+			return null;
+		}
+	}
+
+	/**
+	 * Iterator over live elements, {@link #remove()} clears the liveness bit.
+	 */
+	protected class Itr implements Iterator<ImplementationInformation> {
+		private final boolean descending;
+		private int next;
+		private int last = -1;
+
+		protected Itr( boolean descending ) {
+			this.descending = descending;
+			this.next = descending ? previous( array.length - 1 ) : ImplementationStorage.this.next( 0 );
+		}
+
+		@Override
+		public boolean hasNext() {
+			return this.next >= 0;
+		}
+
+		@Override
+		public ImplementationInformation next() {
+			if ( this.next < 0 ) {
+				throw new NoSuchElementException();
+			}
+
+			this.last = this.next;
+			this.next = this.descending ? previous( this.last - 1 ) : ImplementationStorage.this.next( this.last + 1 );
+			return array[this.last];
+		}
+
+		@Override
+		public void remove() {
+			if ( this.last < 0 ) {
+				throw new IllegalStateException();
+			}
+
+			ImplementationStorage.this.remove( this.last );
+			this.last = -1;
+		}
+	}
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.toxbee.fimpl;
+
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>ReflectiveInstantiator is an {@link ImplementationInstantiator} that resolves and invokes<br/>
+ * the constructor through reflection on every call, nothing is cached.</p>
+ *
+ * <p>Overloads are resolved like javac would: among the applicable public constructors,<br/>
+ * the most specific one is picked, primitive parameters accept their boxed types.</p>
+ *
+ * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
+ * @version 1.0
+ * @since Mar, 12, 2014
+ */
+public class ReflectiveInstantiator implements ImplementationInstantiator {
+	/**
+	 * Shared instance, it is stateless.
+	 */
+	public static final ReflectiveInstantiator INSTANCE = new ReflectiveInstantiator();
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <I> I instantiate( Class<? extends I> clazz, Object... args ) {
+		if ( args == null ) {
+			args = new Object[0];
+		}
+
+		Class<?>[] types = new Class<?>[args.length];
+		for ( int i = 0; i < args.length; ++i ) {
+			types[i] = args[i] == null ? null : args[i].getClass();
+		}
+
+		Constructor<?> c = resolve( clazz, candidates( clazz ), types );
+		try {
+			// The class itself may be non-public, e.g. nested.
+			c.setAccessible( true );
+		} catch ( RuntimeException e ) {
+			// SecurityException, or InaccessibleObjectException on Java 9+ if the module isn't open.
+			// Try anyway, public constructors of public classes need no access check.
+		}
+
+		try {
+			return (I) c.newInstance( args );
+		} catch ( InvocationTargetException e ) {
+			Throwable t = e.getCause();
+			if ( t instanceof RuntimeException ) {
+				throw (RuntimeException) t;
+			} else if ( t instanceof Error ) {
+				throw (Error) t;
+			}
+
+			throw new RuntimeException( t );
+		} catch ( InstantiationException e ) {
+			throw new IllegalArgumentException( "Can't instantiate: " + clazz.getName(), e );
+		} catch ( IllegalAccessException e ) {
+			throw new IllegalArgumentException( "Can't access constructor: " + c, e );
+		}
+	}
+
+	/**
+	 * Returns the public constructors of type, none if it can't be instantiated.
+	 *
+	 * @param type the class.
+	 * @return the constructors.
+	 */
+	protected static Constructor<?>[] candidates( Class<?> type ) {
+		return type.isInterface() || Modifier.isAbstract( type.getModifiers() ) || type.isArray() || type.isPrimitive()
+				? new Constructor<?>[0] : type.getConstructors();
+	}
+
+	/**
+	 * Picks the most specific of the candidates applicable to arguments of types.
+	 *
+	 * @param type the class.
+	 * @param candidates the constructors of type to pick from.
+	 * @param types the runtime classes of the arguments, null for null arguments.
+	 * @return the constructor.
+	 * @throws IllegalArgumentException if none or several are applicable.
+	 */
+	protected static Constructor<?> resolve( Class<?> type, Constructor<?>[] candidates, Class<?>[] types ) {
+		List<Constructor<?>> applicable = new ArrayList<Constructor<?>>( 1 );
+		for ( Constructor<?> c : candidates ) {
+			if ( isApplicable( c.getParameterTypes(), types ) ) {
+				applicable.add( c );
+			}
+		}
+
+		if ( applicable.isEmpty() ) {
+			throw new IllegalArgumentException( "No public constructor of " + type.getName() + " for: " + Arrays.toString( types ) );
+		}
+
+		// Pick the one more specific than all the others.
+		outer:
+		for ( Constructor<?> c : applicable ) {
+			for ( Constructor<?> o : applicable ) {
+				if ( c != o && !isApplicable( o.getParameterTypes(), c.getParameterTypes() ) ) {
+					continue outer;
+				}
+			}
+
+			return c;
+		}
+
+		throw new IllegalArgumentException( "Ambiguous constructors of " + type.getName() + " for: " + Arrays.toString( types ) );
+	}
+
+	private static boolean isApplicable( Class<?>[] params, Class<?>[] types ) {
+		if ( params.length != types.length ) {
+			return false;
+		}
+
+		for ( int i = 0; i < params.length; ++i ) {
+			Class<?> p = params[i];
+			Class<?> t = types[i];
+
+			if ( t == null ) {
+				if ( p.isPrimitive() ) {
+					return false;
+				}
+			} else if ( !box( p ).isAssignableFrom( box( t ) ) ) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static Class<?> box( Class<?> c ) {
+		return c.isPrimitive() ? MethodType.methodType( c ).wrap().returnType() : c;
+	}
+}
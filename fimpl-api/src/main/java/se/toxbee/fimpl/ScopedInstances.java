@@ -0,0 +1,294 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.toxbee.fimpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import se.toxbee.fimpl.common.ImplementationInformation;
+
+import static se.toxbee.fimpl.common.Util.guardNull;
+
+/**
+ * <p>ScopedInstances hands out instances of implementations according to their {@link Scope}.</p>
+ *
+ * <p>The scope of an implementation is read from its extras, e.g:<br/>
+ * <tt>@ProvidedImplementation( extras = "scope=singleton" )</tt>,<br/>
+ * other <tt>key=value</tt> pairs separated by ',', ';' or whitespace are ignored.<br/>
+ * Implementations without a scope get the default scope of the registry.</p>
+ *
+ * <p>Instances are created through the {@link ImplementationInstantiator} of the result set,<br/>
+ * with the default constructor, and are kept per implementation class.</p>
+ *
+ * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
+ * @version 1.0
+ * @since Mar, 05, 2014
+ */
+public class ScopedInstances {
+	/**
+	 * The scope of instances.
+	 */
+	public static enum Scope {
+		/**
+		 * A new instance every time.
+		 */
+		PROTOTYPE,
+
+		/**
+		 * One instance, shared by everyone.
+		 */
+		SINGLETON,
+
+		/**
+		 * One instance per thread, for implementations that aren't thread-safe.
+		 */
+		THREAD,
+
+		/**
+		 * Instances are taken from a bounded pool and given back with {@link ScopedInstances#release(Object)}.
+		 */
+		POOLED;
+
+		/**
+		 * Parses a scope, case insensitively.
+		 *
+		 * @param name the name of the scope.
+		 * @return the scope, or null if there's no such scope.
+		 */
+		public static Scope parse( String name ) {
+			try {
+				return valueOf( name.trim().toUpperCase( Locale.ENGLISH ) );
+			} catch ( IllegalArgumentException e ) {
+				return null;
+			}
+		}
+	}
+
+	public static final String SCOPE_KEY = "scope";
+	public static final int DEFAULT_POOL_SIZE = 16;
+
+	protected final Scope defaultScope;
+	protected final int poolSize;
+
+	protected final ConcurrentMap<Class<?>, Singleton> singletons = new ConcurrentHashMap<Class<?>, Singleton>();
+	protected final ConcurrentMap<Class<?>, ThreadLocal<Object>> threads = new ConcurrentHashMap<Class<?>, ThreadLocal<Object>>();
+	protected final ConcurrentMap<Class<?>, BlockingQueue<Object>> pools = new ConcurrentHashMap<Class<?>, BlockingQueue<Object>>();
+
+	/**
+	 * Constructs the registry, implementations without a scope are {@link Scope#PROTOTYPE}.
+	 */
+	public ScopedInstances() {
+		this( Scope.PROTOTYPE, DEFAULT_POOL_SIZE );
+	}
+
+	/**
+	 * Constructs the registry.
+	 *
+	 * @param defaultScope the scope of implementations without one.
+	 * @param poolSize the maximum number of idle instances kept per pooled class, at least 1.
+	 */
+	public ScopedInstances( Scope defaultScope, int poolSize ) {
+		if ( poolSize < 1 ) {
+			throw new IllegalArgumentException( "poolSize must be at least 1." );
+		}
+
+		this.defaultScope = guardNull( defaultScope );
+		this.poolSize = poolSize;
+	}
+
+	/**
+	 * Returns the scope of an implementation.
+	 *
+	 * @param info the implementation.
+	 * @return the scope given in the extras, or the default scope.
+	 */
+	public Scope scopeOf( ImplementationInformation info ) {
+		Object extras = info.getExtras();
+		if ( extras != null ) {
+			for ( String pair : extras.toString().split( "[,;\\s]+" ) ) {
+				int eq = pair.indexOf( '=' );
+				if ( eq > 0 && pair.substring( 0, eq ).equalsIgnoreCase( SCOPE_KEY ) ) {
+					Scope scope = Scope.parse( pair.substring( eq + 1 ) );
+					if ( scope != null ) {
+						return scope;
+					}
+				}
+			}
+		}
+
+		return this.defaultScope;
+	}
+
+	/**
+	 * Returns an instance of the first implementation in set.
+	 *
+	 * @param set the result set.
+	 * @param <I> the interface type.
+	 * @return the instance, or null if the class couldn't be loaded.
+	 * @throws java.util.NoSuchElementException if set is empty.
+	 */
+	public <I> I first( ImplementationResultSet<I, ?> set ) {
+		return this.get( set, set.firstInfo() );
+	}
+
+	/**
+	 * Returns an instance of every implementation in set that can be loaded, in order.
+	 *
+	 * @param set the result set.
+	 * @param <I> the interface type.
+	 * @return the instances.
+	 */
+	public <I> List<I> all( ImplementationResultSet<I, ?> set ) {
+		List<I> instances = new ArrayList<I>( set.size() );
+		for ( ImplementationInformation info : set ) {
+			I instance = this.get( set, info );
+			if ( instance != null ) {
+				instances.add( instance );
+			}
+		}
+
+		return instances;
+	}
+
+	/**
+	 * Returns an instance of an implementation in set.
+	 *
+	 * @param set the result set, used for loading and instantiating.
+	 * @param info the implementation.
+	 * @param <I> the interface type.
+	 * @return the instance, or null if the class couldn't be loaded.
+	 */
+	@SuppressWarnings("unchecked")
+	public <I> I get( ImplementationResultSet<I, ?> set, ImplementationInformation info ) {
+		Class<? extends I> clazz = set.load( info );
+		if ( clazz == null ) {
+			return null;
+		}
+
+		ImplementationInstantiator instantiator = set.provider().instantiator();
+		switch ( this.scopeOf( info ) ) {
+			case SINGLETON:
+				return (I) this.singleton( clazz, instantiator );
+
+			case THREAD:
+				return (I) this.thread( clazz, instantiator );
+
+			case POOLED:
+				Object pooled = this.pool( clazz ).poll();
+				return pooled == null ? instantiator.<I>instantiate( clazz ) : (I) pooled;
+
+			default:
+				return instantiator.instantiate( clazz );
+		}
+	}
+
+	/**
+	 * Gives back a pooled instance to its pool.<br/>
+	 * Does nothing if the instance isn't pooled or the pool is full.
+	 *
+	 * @param instance the instance.
+	 * @return true if the instance was pooled.
+	 */
+	public boolean release( Object instance ) {
+		BlockingQueue<Object> pool = this.pools.get( instance.getClass() );
+		return pool != null && pool.offer( instance );
+	}
+
+	/**
+	 * Forgets all singletons, per-thread instances and pooled instances.<br/>
+	 * Per-thread instances are only forgotten for threads that ask after the call.
+	 */
+	public void clear() {
+		this.singletons.clear();
+		this.threads.clear();
+		this.pools.clear();
+	}
+
+	/**
+	 * The singleton of one class, created once.
+	 */
+	protected static class Singleton {
+		private volatile Object instance;
+
+		/*
+		 * Double-checked: locks only this class until created, not the whole registry,
+		 * so constructors may ask for other singletons. If creation fails, the next call tries again.
+		 */
+		Object get( Class<?> clazz, ImplementationInstantiator instantiator ) {
+			Object instance = this.instance;
+			if ( instance == null ) {
+				synchronized ( this ) {
+					instance = this.instance;
+					if ( instance == null ) {
+						this.instance = instance = instantiator.instantiate( clazz );
+					}
+				}
+			}
+
+			return instance;
+		}
+	}
+
+	private Object singleton( Class<?> clazz, ImplementationInstantiator instantiator ) {
+		Singleton singleton = this.singletons.get( clazz );
+		if ( singleton == null ) {
+			Singleton fresh = new Singleton();
+			singleton = this.singletons.putIfAbsent( clazz, fresh );
+			if ( singleton == null ) {
+				singleton = fresh;
+			}
+		}
+
+		return singleton.get( clazz, instantiator );
+	}
+
+	private Object thread( Class<?> clazz, ImplementationInstantiator instantiator ) {
+		ThreadLocal<Object> local = this.threads.get( clazz );
+		if ( local == null ) {
+			ThreadLocal<Object> fresh = new ThreadLocal<Object>();
+			local = this.threads.putIfAbsent( clazz, fresh );
+			if ( local == null ) {
+				local = fresh;
+			}
+		}
+
+		// Created by the instantiator of the caller, not that of whoever asked first.
+		Object instance = local.get();
+		if ( instance == null ) {
+			local.set( instance = instantiator.instantiate( clazz ) );
+		}
+
+		return instance;
+	}
+
+	private BlockingQueue<Object> pool( Class<?> clazz ) {
+		BlockingQueue<Object> pool = this.pools.get( clazz );
+		if ( pool == null ) {
+			BlockingQueue<Object> fresh = new ArrayBlockingQueue<Object>( this.poolSize );
+			pool = this.pools.putIfAbsent( clazz, fresh );
+			if ( pool == null ) {
+				pool = fresh;
+			}
+		}
+
+		return pool;
+	}
+}
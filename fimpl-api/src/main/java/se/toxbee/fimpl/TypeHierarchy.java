@@ -0,0 +1,38 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.toxbee.fimpl;
+
+/**
+ * <p>TypeHierarchy answers whether a class is a subtype of another by name, without loading either.</p>
+ *
+ * <p>Classes are identified by name alone, it's assumed that a name always denotes<br/>
+ * the same class - unlike {@link Class#isAssignableFrom(Class)}, which tells apart<br/>
+ * classes of the same name from different ClassLoader:s.</p>
+ *
+ * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
+ * @version 1.0
+ * @since Mar, 12, 2014
+ */
+public interface TypeHierarchy {
+	/**
+	 * Returns whether or not the class named className is, extends or implements the type named supertype.
+	 *
+	 * @param className the binary name of the class.
+	 * @param supertype the binary name of the supertype.
+	 * @return true or false, or null if it couldn't be determined without loading.
+	 */
+	public Boolean isSubtype( String className, String supertype );
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.toxbee.fimpl.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import se.toxbee.fimpl.TypeHierarchy;
+
+import static se.toxbee.fimpl.common.Util.close;
+
+/**
+ * <p>ClassFileHierarchy answers whether a class is a subtype of another<br/>
+ * by reading the super class and interface names straight from the <tt>.class</tt> files<br/>
+ * found through a ClassLoader, without loading, linking or initializing any class.</p>
+ *
+ * <p>Only the constant pool and the header of each class file is parsed, and the<br/>
+ * result is cached per class name. If some class file in the hierarchy can't be found<br/>
+ * or read, the answer is unknown and the caller should fall back to loading the class.</p>
+ *
+ * <p>Classes are identified by name, it's assumed that a name always denotes<br/>
+ * the same class within the ClassLoader - which holds for well behaved ClassLoaders.</p>
+ *
+ * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
+ * @version 1.0
+ * @since Mar, 06, 2014
+ */
+public class ClassFileHierarchy implements TypeHierarchy {
+	private static final int MAGIC = 0xCAFEBABE;
+
+	/**
+	 * The direct supertypes of a class, names are binary names (with '.').
+	 */
+	protected static final class Node {
+		final String superName;
+		final String[] interfaces;
+
+		Node( String superName, String[] interfaces ) {
+			this.superName = superName;
+			this.interfaces = interfaces;
+		}
+	}
+
+	/*
+	 * Marks a class file that couldn't be found or read.
+	 */
+	private static final Node UNKNOWN = new Node( null, new String[0] );
+
+	private final ClassLoader classLoader;
+	private final ConcurrentMap<String, Node> nodes = new ConcurrentHashMap<String, Node>();
+
+	/**
+	 * Constructs the hierarchy reader.
+	 *
+	 * @param classLoader the ClassLoader to find class files with.
+	 */
+	public ClassFileHierarchy( ClassLoader classLoader ) {
+		this.classLoader = classLoader;
+	}
+
+	/**
+	 * Returns whether or not the class named className is, extends or implements the type named supertype.
+	 *
+	 * @param className the binary name of the class.
+	 * @param supertype the binary name of the supertype.
+	 * @return true or false, or null if it couldn't be determined from class files, e.g. as className has none.
+	 */
+	@Override
+	public Boolean isSubtype( String className, String supertype ) {
+		// No class file, no class: let the caller find out by loading it.
+		if ( this.node( className ) == UNKNOWN ) {
+			return null;
+		}
+
+		if ( className.equals( supertype ) || supertype.equals( "java.lang.Object" ) ) {
+			return true;
+		}
+
+		Set<String> visited = new HashSet<String>();
+		Deque<String> pending = new ArrayDeque<String>();
+		pending.push( className );
+		boolean unknown = false;
+
+		while ( !pending.isEmpty() ) {
+			String name = pending.pop();
+			if ( !visited.add( name ) ) {
+				continue;
+			}
+
+			Node node = this.node( name );
+			if ( node == UNKNOWN ) {
+				unknown = true;
+				continue;
+			}
+
+			if ( supertype.equals( node.superName ) ) {
+				return true;
+			}
+			for ( String i : node.interfaces ) {
+				if ( supertype.equals( i ) ) {
+					return true;
+				}
+				pending.push( i );
+			}
+			if ( node.superName != null ) {
+				pending.push( node.superName );
+			}
+		}
+
+		return unknown ? null : Boolean.FALSE;
+	}
+
+	/**
+	 * Forgets all read class files.
+	 */
+	public void clear() {
+		this.nodes.clear();
+	}
+
+	protected Node node( String name ) {
+		Node node = this.nodes.get( name );
+		if ( node == null ) {
+			node = this.read( name );
+			Node prev = this.nodes.putIfAbsent( name, node );
+			node = prev == null ? node : prev;
+		}
+
+		return node;
+	}
+
+	private Node read( String name ) {
+		InputStream in = this.classLoader == null
+				? ClassLoader.getSystemResourceAsStream( name.replace( '.', '/' ) + ".class" )
+				: this.classLoader.getResourceAsStream( name.replace( '.', '/' ) + ".class" );
+		if ( in == null ) {
+			return UNKNOWN;
+		}
+
+		try {
+			return parse( readAll( in ) );
+		} catch ( IOException e ) {
+			return UNKNOWN;
+		} catch ( RuntimeException e ) {
+			// Malformed class file.
+			return UNKNOWN;
+		} finally {
+			close( in );
+		}
+	}
+
+	private static byte[] readAll( InputStream in ) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream( 4096 );
+		byte[] buf = new byte[4096];
+		for ( int n; (n = in.read( buf )) > 0; ) {
+			out.write( buf, 0, n );
+		}
+
+		return out.toByteArray();
+	}
+
+	/**
+	 * Parses the direct supertypes from the bytes of a class file.
+	 *
+	 * @param b the class file.
+	 * @return the node.
+	 * @throws IOException if the class file is malformed.
+	 */
+	static Node parse( byte[] b ) throws IOException {
+		if ( b.length < 10 || u4( b, 0 ) != MAGIC ) {
+			throw new IOException( "Not a class file." );
+		}
+
+		// Record the offset of each constant pool entry.
+		int count = u2( b, 8 );
+		int[] offsets = new int[count];
+		int p = 10;
+		for ( int i = 1; i < count; ++i ) {
+			offsets[i] = p;
+			switch ( b[p] ) {
+				case 1: // Utf8
+					p += 3 + u2( b, p + 1 );
+					break;
+				case 7: // Class
+				case 8: // String
+				case 16: // MethodType
+				case 19: // Module
+				case 20: // Package
+					p += 3;
+					break;
+				case 15: // MethodHandle
+					p += 4;
+					break;
+				case 3: // Integer
+				case 4: // Float
+				case 9: // Fieldref
+				case 10: // Methodref
+				case 11: // InterfaceMethodref
+				case 12: // NameAndType
+				case 17: // Dynamic
+				case 18: // InvokeDynamic
+					p += 5;
+					break;
+				case 5: // Long
+				case 6: // Double
+					p += 9;
+					++i;
+					break;
+				default:
+					throw new IOException( "Unknown constant pool tag: " + b[p] );
+			}
+		}
+
+		// access_flags, this_class, super_class, interfaces.
+		p += 4;
+		String superName = className( b, offsets, u2( b, p ) );
+		int interfaceCount = u2( b, p + 2 );
+		String[] interfaces = new String[interfaceCount];
+		for ( int i = 0; i < interfaceCount; ++i ) {
+			interfaces[i] = className( b, offsets, u2( b, p + 4 + 2 * i ) );
+		}
+
+		return new Node( superName, interfaces );
+	}
+
+	private static String className( byte[] b, int[] offsets, int classIndex ) throws IOException {
+		if ( classIndex == 0 ) {
+			// java.lang.Object.
+			return null;
+		}
+
+		int utf = offsets[u2( b, offsets[classIndex] + 1 )];
+		return utf8( b, utf + 3, u2( b, utf + 1 ) ).replace( '/', '.' );
+	}
+
+	/*
+	 * Decodes modified UTF-8.
+	 */
+	private static String utf8( byte[] b, int off, int len ) throws IOException {
+		char[] chars = new char[len];
+		int n = 0;
+		for ( int p = off, end = off + len; p < end; ) {
+			int c = b[p++] & 0xFF;
+			if ( c < 0x80 ) {
+				chars[n++] = (char) c;
+			} else if ( (c & 0xE0) == 0xC0 ) {
+				chars[n++] = (char) (((c & 0x1F) << 6) | (b[p++] & 0x3F));
+			} else if ( (c & 0xF0) == 0xE0 ) {
+				chars[n++] = (char) (((c & 0x0F) << 12) | ((b[p++] & 0x3F) << 6) | (b[p++] & 0x3F));
+			} else {
+				throw new IOException( "Malformed modified UTF-8." );
+			}
+		}
+
+		return new String( chars, 0, n );
+	}
+
+	private static int u2( byte[] b, int p ) {
+		return ((b[p] & 0xFF) << 8) | (b[p + 1] & 0xFF);
+	}
+
+	private static int u4( byte[] b, int p ) {
+		return (u2( b, p ) << 16) | u2( b, p + 2 );
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.toxbee.fimpl.impl;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * CountingInputStream counts the bytes read and skipped through it.<br/>
+ * Transformers that need the original stream may {@link #unwrap()} it.
+ *
+ * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
+ * @version 1.0
+ * @since Mar, 08, 2014
+ */
+public class CountingInputStream extends FilterInputStream {
+	private long count;
+
+	/**
+	 * Constructs the stream.
+	 *
+	 * @param in the stream to count.
+	 */
+	public CountingInputStream( InputStream in ) {
+		super( in );
+	}
+
+	/**
+	 * Returns the number of bytes read or skipped so far.
+	 *
+	 * @return the count.
+	 */
+	public long count() {
+		return this.count;
+	}
+
+	/**
+	 * Returns the counted stream.
+	 *
+	 * @return the stream.
+	 */
+	public InputStream unwrap() {
+		return this.in;
+	}
+
+	/**
+	 * Returns the stream, unwrapped if counted.
+	 *
+	 * @param in the stream.
+	 * @return the stream.
+	 */
+	public static InputStream unwrap( InputStream in ) {
+		return in instanceof CountingInputStream ? ((CountingInputStream) in).unwrap() : in;
+	}
+
+	@Override
+	public int read() throws IOException {
+		int b = this.in.read();
+		if ( b >= 0 ) {
+			this.count++;
+		}
+
+		return b;
+	}
+
+	@Override
+	public int read( byte[] b, int off, int len ) throws IOException {
+		int n = this.in.read( b, off, len );
+		if ( n > 0 ) {
+			this.count += n;
+		}
+
+		return n;
+	}
+
+	@Override
+	public long skip( long n ) throws IOException {
+		long skipped = this.in.skip( n );
+		this.count += skipped;
+		return skipped;
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+}
@@ -17,12 +17,17 @@ package se.toxbee.fimpl.impl;
 
 import se.toxbee.fimpl.ImplementationReader;
 import se.toxbee.fimpl.ImplementationFactory;
+import se.toxbee.fimpl.ImplementationInstantiator;
+import se.toxbee.fimpl.ImplementationListener;
 import se.toxbee.fimpl.ImplementationLoader;
 
 import static se.toxbee.fimpl.common.Util.guardNull;
 
 /**
- * ImplementationFactoryImpl a field backed {@link se.toxbee.fimpl.ImplementationFactory}.
+ * <p>ImplementationFactoryImpl a field backed {@link se.toxbee.fimpl.ImplementationFactory}.</p>
+ *
+ * <p>The listener set with {@link #setListener(ImplementationListener)} is also handed<br/>
+ * to the loader and reader if they are {@link Instrumentable}.</p>
  *
  * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
  * @version 1.0
@@ -31,14 +36,21 @@ import static se.toxbee.fimpl.common.Util.guardNull;
 public class ImplementationFactoryImpl implements ImplementationFactory {
 	protected ImplementationLoader loader;
 	protected ImplementationReader reader;
+	protected ImplementationInstantiator instantiator;
+	protected volatile ImplementationListener listener = ImplementationListener.NONE;
 
 	public ImplementationFactoryImpl( ImplementationReader reader ) {
 		this( new StandardClassLoader(), reader );
 	}
 
 	public ImplementationFactoryImpl( ImplementationLoader loader, ImplementationReader reader ) {
+		this( loader, reader, MethodHandleInstantiator.INSTANCE );
+	}
+
+	public ImplementationFactoryImpl( ImplementationLoader loader, ImplementationReader reader, ImplementationInstantiator instantiator ) {
 		this.loader = guardNull( loader );
 		this.reader = guardNull( reader );
+		this.instantiator = guardNull( instantiator );
 	}
 
 	@Override
@@ -50,4 +62,37 @@ public class ImplementationFactoryImpl implements ImplementationFactory {
 	public ImplementationReader reader() {
 		return this.reader;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Returns the instantiator of loaded implementations,<br/>
+	 * by default the shared {@link MethodHandleInstantiator}.
+	 *
+	 * @return the instantiator.
+	 */
+	@Override
+	public ImplementationInstantiator instantiator() {
+		return this.instantiator;
+	}
+
+	@Override
+	public ImplementationListener listener() {
+		return this.listener;
+	}
+
+	/**
+	 * Sets the listener to report to, also for the loader and reader if {@link Instrumentable}.
+	 *
+	 * @param listener the listener, {@link ImplementationListener#NONE} for none.
+	 */
+	public void setListener( ImplementationListener listener ) {
+		this.listener = guardNull( listener );
+
+		if ( this.loader instanceof Instrumentable ) {
+			((Instrumentable) this.loader).setListener( listener );
+		}
+
+		if ( this.reader instanceof Instrumentable ) {
+			((Instrumentable) this.reader).setListener( listener );
+		}
+	}
+}
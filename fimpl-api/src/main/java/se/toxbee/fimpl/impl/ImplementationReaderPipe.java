@@ -16,26 +16,36 @@
 package se.toxbee.fimpl.impl;
 
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
+import se.toxbee.fimpl.ImplementationListener;
 import se.toxbee.fimpl.common.ImplementationInformation;
 import se.toxbee.fimpl.ImplementationReader;
 
 import static se.toxbee.fimpl.common.Util.guardNull;
 
 /**
- * ImplementationReaderPipe is a "pipe" separating<br/>
+ * <p>ImplementationReaderPipe is a "pipe" separating<br/>
  * the finding of interface metadata indexes (files, whatever),<br/>
- * and the translation-into-memory of the indexes.
+ * and the translation-into-memory of the indexes.</p>
+ *
+ * <p>With a listener, both stages are timed and the streams are wrapped in<br/>
+ * {@link CountingInputStream}s, the result of the transformer is read eagerly.</p>
  *
  * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
  * @version 1.0
  * @since Jan, 25, 2014
  */
-public class ImplementationReaderPipe implements ImplementationReader {
+public class ImplementationReaderPipe implements ImplementationReader, Instrumentable {
 	protected final CollectionIndexTransformer transformer;
 	protected final InterfaceLookupProvider lookupProvider;
 
+	protected volatile ImplementationListener listener = ImplementationListener.NONE;
+
 	/**
 	 * Constructs the "pipe".
 	 *
@@ -47,9 +57,101 @@ public class ImplementationReaderPipe implements ImplementationReader {
 		this.lookupProvider = guardNull( lookupProvider );
 	}
 
+	@Override
+	public void setListener( ImplementationListener listener ) {
+		this.listener = guardNull( listener );
+	}
+
 	@Override
 	public <I> Iterator<ImplementationInformation> readImplementationCollection( Class<I> interfase ) {
+		ImplementationListener listener = this.listener;
+		if ( listener == ImplementationListener.NONE ) {
+			Iterator<InputStream> in = this.lookupProvider.interfaceLookupStream( interfase );
+			return this.transformer.readImplementationCollection( in );
+		}
+
+		long start = System.nanoTime();
 		Iterator<InputStream> in = this.lookupProvider.interfaceLookupStream( interfase );
-		return this.transformer.readImplementationCollection( in );
+		listener.lookup( new Class<?>[] { interfase }, System.nanoTime() - start );
+
+		return this.parse( listener, interfase, in );
+	}
+
+	@Override
+	public Map<Class<?>, Iterator<ImplementationInformation>> readImplementationCollections( Class<?>... interfaces ) {
+		ImplementationListener listener = this.listener;
+
+		// One lookup for all, see InterfaceLookupProvider#interfaceLookupStreams.
+		long start = System.nanoTime();
+		Map<Class<?>, Iterator<InputStream>> streams = this.lookupProvider.interfaceLookupStreams( interfaces );
+		if ( listener != ImplementationListener.NONE ) {
+			listener.lookup( streams.keySet().toArray( new Class<?>[streams.size()] ), System.nanoTime() - start );
+		}
+
+		Map<Class<?>, Iterator<ImplementationInformation>> map = new LinkedHashMap<Class<?>, Iterator<ImplementationInformation>>();
+		for ( Map.Entry<Class<?>, Iterator<InputStream>> e : streams.entrySet() ) {
+			map.put( e.getKey(), listener == ImplementationListener.NONE
+					? this.transformer.readImplementationCollection( e.getValue() )
+					: this.parse( listener, e.getKey(), e.getValue() ) );
+		}
+
+		return map;
+	}
+
+	private Iterator<ImplementationInformation> parse( ImplementationListener listener, Class<?> interfase, Iterator<InputStream> in ) {
+		long start = System.nanoTime();
+
+		Counting counting = in == null ? null : new Counting( in );
+		Iterator<ImplementationInformation> out = this.transformer.readImplementationCollection( counting );
+
+		List<ImplementationInformation> list = new ArrayList<ImplementationInformation>();
+		if ( out != null ) {
+			while ( out.hasNext() ) {
+				list.add( out.next() );
+			}
+		}
+
+		listener.parse( interfase, counting == null ? 0 : counting.streams.size(), counting == null ? 0 : counting.bytes(),
+				list.size(), System.nanoTime() - start );
+
+		return out == null ? null : list.iterator();
+	}
+
+	/**
+	 * Wraps the streams of an iterator in CountingInputStreams and remembers them.
+	 */
+	private static class Counting implements Iterator<InputStream> {
+		private final Iterator<InputStream> in;
+		final List<CountingInputStream> streams = new ArrayList<CountingInputStream>( 1 );
+
+		Counting( Iterator<InputStream> in ) {
+			this.in = in;
+		}
+
+		long bytes() {
+			long bytes = 0;
+			for ( CountingInputStream s : this.streams ) {
+				bytes += s.count();
+			}
+
+			return bytes;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return this.in.hasNext();
+		}
+
+		@Override
+		public InputStream next() {
+			CountingInputStream s = new CountingInputStream( this.in.next() );
+			this.streams.add( s );
+			return s;
+		}
+
+		@Override
+		public void remove() {
+			this.in.remove();
+		}
 	}
 }
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.toxbee.fimpl.impl;
+
+import se.toxbee.fimpl.ImplementationListener;
+
+/**
+ * Instrumentable is implemented by loaders and readers that report to an {@link ImplementationListener}.<br/>
+ * {@link ImplementationFactoryImpl#setListener(ImplementationListener)} hands its listener to them.
+ *
+ * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
+ * @version 1.0
+ * @since Mar, 08, 2014
+ */
+public interface Instrumentable {
+	/**
+	 * Sets the listener to report to.
+	 *
+	 * @param listener the listener, {@link ImplementationListener#NONE} for none.
+	 */
+	public void setListener( ImplementationListener listener );
+}
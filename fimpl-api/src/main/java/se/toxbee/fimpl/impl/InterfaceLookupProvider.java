@@ -17,6 +17,8 @@ package se.toxbee.fimpl.impl;
 
 import java.io.InputStream;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * <p>InterfaceLookupProvider provides InputStreams that contain<br/>
@@ -35,4 +37,24 @@ public interface InterfaceLookupProvider {
 	 * @return the iterator that contains implementations listings, or null if there's none.
 	 */
 	public <I> Iterator<InputStream> interfaceLookupStream( Class<I> interfase );
+
+	/**
+	 * Returns the InputStreams for many interfaces at once.<br/>
+	 * Providers that can should override this to look for all of them in one go,<br/>
+	 * by default it is {@link #interfaceLookupStream(Class)} for each.
+	 *
+	 * @param interfaces the interface classes.
+	 * @return map of interface -> iterator of InputStream(s) or null if there's none,<br/>
+	 *         in the order given, without duplicates.
+	 */
+	public default Map<Class<?>, Iterator<InputStream>> interfaceLookupStreams( Class<?>... interfaces ) {
+		Map<Class<?>, Iterator<InputStream>> map = new LinkedHashMap<Class<?>, Iterator<InputStream>>();
+		for ( Class<?> interfase : interfaces ) {
+			if ( !map.containsKey( interfase ) ) {
+				map.put( interfase, this.interfaceLookupStream( interfase ) );
+			}
+		}
+
+		return map;
+	}
 }
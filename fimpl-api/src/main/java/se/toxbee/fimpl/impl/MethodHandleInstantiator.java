@@ -0,0 +1,162 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.toxbee.fimpl.impl;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import se.toxbee.fimpl.ReflectiveInstantiator;
+
+/**
+ * <p>MethodHandleInstantiator is a {@link ReflectiveInstantiator} that resolves<br/>
+ * each constructor once and then invokes it through a cached {@link MethodHandle}.</p>
+ *
+ * <p>Constructors are cached per class, in a {@link ClassValue} so that classes can still<br/>
+ * be unloaded, and per the runtime classes of the arguments.<br/>
+ * Overloads are resolved like javac would: among the applicable public constructors,<br/>
+ * the most specific one is picked, primitive parameters accept their boxed types.</p>
+ *
+ * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
+ * @version 1.0
+ * @since Mar, 04, 2014
+ */
+public class MethodHandleInstantiator extends ReflectiveInstantiator {
+	/**
+	 * Shared instance, the cache is global anyway.
+	 */
+	public static final MethodHandleInstantiator INSTANCE = new MethodHandleInstantiator();
+
+	private static final MethodType GENERIC = MethodType.methodType( Object.class, Object[].class );
+	private static final MethodType NO_ARGS = MethodType.methodType( Object.class );
+
+	private static final ClassValue<Constructors> CONSTRUCTORS = new ClassValue<Constructors>() {
+		@Override
+		protected Constructors computeValue( Class<?> type ) {
+			return new Constructors( type );
+		}
+	};
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <I> I instantiate( Class<? extends I> clazz, Object... args ) {
+		Constructors ctors = CONSTRUCTORS.get( clazz );
+
+		try {
+			if ( args == null || args.length == 0 ) {
+				return (I) ctors.noArgs().invokeExact();
+			}
+
+			return (I) ctors.forArgs( args ).invokeExact( args );
+		} catch ( RuntimeException e ) {
+			throw e;
+		} catch ( Error e ) {
+			throw e;
+		} catch ( Throwable t ) {
+			throw new RuntimeException( t );
+		}
+	}
+
+	/**
+	 * The resolved constructors of a class.
+	 */
+	private static class Constructors {
+		private final Class<?> type;
+		private final Constructor<?>[] candidates;
+		private final ConcurrentMap<Signature, MethodHandle> handles = new ConcurrentHashMap<Signature, MethodHandle>();
+		private volatile MethodHandle noArgs;
+
+		Constructors( Class<?> type ) {
+			this.type = type;
+			this.candidates = ReflectiveInstantiator.candidates( type );
+		}
+
+		MethodHandle noArgs() {
+			MethodHandle mh = this.noArgs;
+			if ( mh == null ) {
+				// Racy but benign, resolving twice gives equivalent handles.
+				this.noArgs = mh = this.unreflect( this.resolve( new Class<?>[0] ) ).asType( NO_ARGS );
+			}
+
+			return mh;
+		}
+
+		MethodHandle forArgs( Object[] args ) {
+			Class<?>[] types = new Class<?>[args.length];
+			for ( int i = 0; i < args.length; ++i ) {
+				types[i] = args[i] == null ? null : args[i].getClass();
+			}
+
+			Signature sig = new Signature( types );
+			MethodHandle mh = this.handles.get( sig );
+			if ( mh == null ) {
+				Constructor<?> c = this.resolve( types );
+				mh = this.unreflect( c ).asSpreader( Object[].class, types.length ).asType( GENERIC );
+				MethodHandle prev = this.handles.putIfAbsent( sig, mh );
+				mh = prev == null ? mh : prev;
+			}
+
+			return mh;
+		}
+
+		private MethodHandle unreflect( Constructor<?> c ) {
+			try {
+				// The class itself may be non-public, e.g. nested.
+				c.setAccessible( true );
+			} catch ( RuntimeException e ) {
+				// SecurityException, or InaccessibleObjectException on Java 9+ if the module isn't open.
+				// Try anyway, public constructors of public classes need no access check.
+			}
+
+			try {
+				return MethodHandles.lookup().unreflectConstructor( c );
+			} catch ( IllegalAccessException e ) {
+				throw new IllegalArgumentException( "Can't access constructor: " + c, e );
+			}
+		}
+
+		private Constructor<?> resolve( Class<?>[] types ) {
+			return ReflectiveInstantiator.resolve( this.type, this.candidates, types );
+		}
+	}
+
+	/**
+	 * The runtime classes of a list of arguments, null for null arguments.
+	 */
+	private static final class Signature {
+		private final Class<?>[] types;
+		private final int hash;
+
+		Signature( Class<?>[] types ) {
+			this.types = types;
+			this.hash = Arrays.hashCode( types );
+		}
+
+		@Override
+		public boolean equals( Object o ) {
+			return o instanceof Signature && Arrays.equals( this.types, ((Signature) o).types );
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+	}
+}
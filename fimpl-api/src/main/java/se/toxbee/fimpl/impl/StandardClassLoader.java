@@ -15,19 +15,45 @@
  */
 package se.toxbee.fimpl.impl;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import se.toxbee.fimpl.ImplementationListener;
 import se.toxbee.fimpl.ImplementationLoader;
 import se.toxbee.fimpl.common.ImplementationInformation;
 
+import static se.toxbee.fimpl.common.Util.guardNull;
+
 /**
- * StandardClassLoader uses a ClassLoader to load a class.
- * This is the default implementation.
+ * <p>StandardClassLoader uses a ClassLoader to load a class.
+ * This is the default implementation.</p>
+ *
+ * <p>Results are cached per (implementor class name, target type),
+ * both successful loads and failures, so that a failing lookup
+ * doesn't throw and swallow an exception every time.<br/>
+ * The cache belongs to the ClassLoader in use and is dropped
+ * whenever another ClassLoader is set.</p>
+ *
+ * <p>It also provides a {@link ClassFileHierarchy} over the same ClassLoader,
+ * for subtype checks without loading classes.</p>
+ *
+ * <p>Actual loads, not those answered from the cache, are reported to the listener.</p>
  *
  * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
  * @version 1.0
  * @since Jan, 17, 2014
  */
-public class StandardClassLoader implements ImplementationLoader {
+public class StandardClassLoader implements ImplementationLoader, Instrumentable {
+	/**
+	 * Marks a cached failure.
+	 */
+	private static final class Miss {}
+	private static final Class<?> MISS = Miss.class;
+
 	private ClassLoader classLoader;
+	private volatile ConcurrentMap<Key, Class<?>> cache;
+	private volatile ClassFileHierarchy hierarchy;
+	private volatile ImplementationListener listener = ImplementationListener.NONE;
 
 	/**
 	 * Constructs the loader with the context class loader of the current thread.
@@ -52,6 +78,32 @@ public class StandardClassLoader implements ImplementationLoader {
 	 */
 	public void setClassloader( ClassLoader cl ) {
 		this.classLoader = cl == null ? Thread.currentThread().getContextClassLoader() : cl;
+		this.clearCache();
+	}
+
+	/**
+	 * Clears the cache of loaded classes and failures,<br/>
+	 * useful if classes might have become available to the ClassLoader.
+	 */
+	public void clearCache() {
+		this.cache = new ConcurrentHashMap<Key, Class<?>>();
+		this.hierarchy = new ClassFileHierarchy( this.classLoader );
+	}
+
+	/**
+	 * Returns the class file hierarchy of the ClassLoader in use,<br/>
+	 * it's cleared along with the cache of loaded classes.
+	 *
+	 * @return the hierarchy.
+	 */
+	@Override
+	public ClassFileHierarchy hierarchy() {
+		return this.hierarchy;
+	}
+
+	@Override
+	public void setListener( ImplementationListener listener ) {
+		this.listener = guardNull( listener );
 	}
 
 	/**
@@ -64,14 +116,74 @@ public class StandardClassLoader implements ImplementationLoader {
 	}
 
 	@Override
+	@SuppressWarnings("unchecked")
 	public <T> Class<? extends T> loadImplementation( ImplementationInformation info, Class<T> targetType ) {
+		ConcurrentMap<Key, Class<?>> cache = this.cache;
+		Key key = new Key( info.getImplementorClass(), targetType );
+
+		Class<?> clazz = cache.get( key );
+		if ( clazz == null ) {
+			clazz = this.load( key.name, targetType );
+			cache.putIfAbsent( key, clazz == null ? MISS : clazz );
+		}
+
+		return clazz == MISS ? null : (Class<? extends T>) clazz;
+	}
+
+	private <T> Class<? extends T> load( String name, Class<T> targetType ) {
+		ImplementationListener listener = this.listener;
+		if ( listener == ImplementationListener.NONE ) {
+			return this.loadClass( name, targetType );
+		}
+
+		long start = System.nanoTime();
+		Class<? extends T> clazz = this.loadClass( name, targetType );
+		listener.load( targetType, name, clazz != null, System.nanoTime() - start );
+		return clazz;
+	}
+
+	private <T> Class<? extends T> loadClass( String name, Class<T> targetType ) {
 		// Load the class, return null if class ain't found or of wrong type.
 		try {
-			return this.classLoader.loadClass( info.getImplementorClass() ).asSubclass( targetType );
+			return this.classLoader.loadClass( name ).asSubclass( targetType );
 		} catch ( ClassNotFoundException e ) {
 		} catch ( ClassCastException e ) {
 		}
 
 		return null;
 	}
+
+	/**
+	 * Key of the cache: (implementor class name, target type).
+	 */
+	private static final class Key {
+		final String name;
+		final Class<?> targetType;
+		final int hash;
+
+		Key( String name, Class<?> targetType ) {
+			this.name = name;
+			this.targetType = targetType;
+			this.hash = 31 * name.hashCode() + targetType.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+
+		@Override
+		public boolean equals( Object o ) {
+			if ( this == o ) {
+				return true;
+			}
+
+			if ( !(o instanceof Key) ) {
+				return false;
+			}
+
+			Key k = (Key) o;
+			return this.targetType == k.targetType && this.name.equals( k.name );
+		}
+	}
 }
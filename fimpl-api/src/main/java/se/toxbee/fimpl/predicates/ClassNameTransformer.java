@@ -31,4 +31,9 @@ public class ClassNameTransformer<I> implements PredicateInputTransformer<I, Str
 	public String transformForPredicate( ImplementationInformation info, ImplementationResultSet<I, ?> set ) {
 		return info.getImplementorClass();
 	}
+
+	@Override
+	public int cost() {
+		return Predicate.COST_METADATA;
+	}
 }
@@ -15,6 +15,10 @@
  */
 package se.toxbee.fimpl.predicates;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
 import se.toxbee.fimpl.ImplementationResultSet;
 import se.toxbee.fimpl.common.ImplementationInformation;
 
@@ -22,8 +26,12 @@ import static se.toxbee.fimpl.common.Util.guardNull;
 import static se.toxbee.fimpl.common.Util.equal;
 
 /**
- * EqualsCompositePredicate provides "composite" predicates of type A.<br/>
- * It matches by using {@link se.toxbee.fimpl.common.Util#equal(Object, Object)}
+ * <p>EqualsCompositePredicate provides "composite" predicates of type A.<br/>
+ * It matches by using {@link se.toxbee.fimpl.common.Util#equal(Object, Object)}</p>
+ *
+ * <p>The matchers are hashed once at construction, so matching is O(1) regardless of<br/>
+ * the number of matchers: any-mode is a set lookup, and all-mode can only match when<br/>
+ * all matchers are the same value. The matchers must thus not be modified afterwards.</p>
  *
  * @param <I> the interface type of the set.
  * @param <A> the type of the composite indices.
@@ -34,6 +42,11 @@ import static se.toxbee.fimpl.common.Util.equal;
 public class EqualsCompositePredicate<I, A> extends CompositePredicate<I, A> {
 	protected final PredicateInputTransformer<I, A> transformer;
 
+	/*
+	 * The distinct matchers, null if there are no matchers.
+	 */
+	protected final Set<A> matcherSet;
+
 	/**
 	 * Constructs the predicates given the array of matcher objects.
 	 *
@@ -43,6 +56,44 @@ public class EqualsCompositePredicate<I, A> extends CompositePredicate<I, A> {
 	public EqualsCompositePredicate( PredicateInputTransformer<I, A> transformer, A... matchers ) {
 		super( matchers );
 		this.transformer = guardNull( transformer );
+		this.matcherSet = matchers == null ? null : new HashSet<A>( Arrays.asList( matchers ) );
+	}
+
+	/**
+	 * Returns the transformer.
+	 *
+	 * @return the transformer.
+	 */
+	public PredicateInputTransformer<I, A> transformer() {
+		return this.transformer;
+	}
+
+	@Override
+	public boolean match( ImplementationInformation info, ImplementationResultSet<I, ?> set, boolean anyMode ) {
+		if ( this.matcherSet == null ) {
+			return super.match( info, set, anyMode );
+		}
+
+		if ( anyMode ) {
+			return !this.matcherSet.isEmpty() && this.matcherSet.contains( this.transformer.transformForPredicate( info, set ) );
+		}
+
+		switch ( this.matcherSet.size() ) {
+			case 0:
+				return true;
+
+			case 1:
+				return equal( this.matchers[0], this.transformer.transformForPredicate( info, set ) );
+
+			default:
+				// Two distinct values can't both equal the same value.
+				return false;
+		}
+	}
+
+	@Override
+	public int cost() {
+		return this.transformer.cost();
 	}
 
 	@Override
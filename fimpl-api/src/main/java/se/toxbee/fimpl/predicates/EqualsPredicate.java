@@ -17,13 +17,15 @@ package se.toxbee.fimpl.predicates;
 
 import se.toxbee.fimpl.ImplementationResultSet;
 import se.toxbee.fimpl.common.ImplementationInformation;
+import se.toxbee.fimpl.common.StringPool;
 
 import static se.toxbee.fimpl.common.Util.equal;
 import static se.toxbee.fimpl.common.Util.guardNull;
 
 /**
  * EqualsCompositePredicate provides predicates of type A.<br/>
- * It matches by using {@link se.toxbee.fimpl.common.Util#equal(Object, Object)}
+ * It matches by using {@link se.toxbee.fimpl.common.Util#equal(Object, Object)}<br/>
+ * String matchers are pooled, see {@link StringPool}, so matches are mostly found by reference.
  *
  * @param <I> the interface type of the set.
  * @param <A> the type of the composite indices.
@@ -42,7 +44,7 @@ public class EqualsPredicate<I, A> implements Predicate<I> {
 	 * @param matcher the object to match against, null is allowed.
 	 */
 	public EqualsPredicate( PredicateInputTransformer<I, A> transformer, A matcher ) {
-		this.matcher = matcher;
+		this.matcher = StringPool.shared().internIfString( matcher );
 		this.transformer = guardNull( transformer );
 	}
 
@@ -55,8 +57,22 @@ public class EqualsPredicate<I, A> implements Predicate<I> {
 		return this.matcher;
 	}
 
+	/**
+	 * Returns the transformer.
+	 *
+	 * @return the transformer.
+	 */
+	public PredicateInputTransformer<I, A> transformer() {
+		return this.transformer;
+	}
+
 	@Override
 	public boolean match( ImplementationInformation info, ImplementationResultSet<I, ?> set, boolean anyMode ) {
 		return equal( this.matcher, this.transformer.transformForPredicate( info, set ) );
 	}
+
+	@Override
+	public int cost() {
+		return this.transformer.cost();
+	}
 }
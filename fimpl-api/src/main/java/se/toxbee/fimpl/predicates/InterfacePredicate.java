@@ -15,16 +15,25 @@
  */
 package se.toxbee.fimpl.predicates;
 
+import java.util.Set;
+
 import se.toxbee.fimpl.ImplementationResultSet;
 import se.toxbee.fimpl.common.Util;
 import se.toxbee.fimpl.common.ImplementationInformation;
 import se.toxbee.fimpl.ImplementationLoader;
+import se.toxbee.fimpl.TypeHierarchy;
 
 /**
  * <p>InterfacePredicate tests whether or not a class is assignable
  * from a given "interface".</p>
  *
- * <p><strong>NOTE:</strong> this has the drawback that the class must be loaded.</p>
+ * <p>If the information has {@link ImplementationInformation#getSupertypes()}, they are the answer.<br/>
+ * Otherwise, if the loader has a {@link ImplementationLoader#hierarchy()}, the answer is looked for<br/>
+ * there, e.g. in the class files, without loading anything.<br/>
+ * <strong>NOTE:</strong> only if that fails is the class loaded.</p>
+ *
+ * <p>Both recorded supertypes and hierarchies match by name, see {@link TypeHierarchy}.<br/>
+ * A class that can't be loaded doesn't match.</p>
  *
  * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
  * @version 1.0
@@ -53,9 +62,33 @@ public class InterfacePredicate<I> implements Predicate<I> {
 
 	@Override
 	public boolean match( ImplementationInformation info, ImplementationResultSet<I, ?> set, boolean anyMode ) {
-		// Get the class we are testing.
+		// Recorded in meta-data?
+		Set<String> supertypes = info.getSupertypes();
+		if ( supertypes != null ) {
+			// java.lang.Object isn't recorded, everything is one.
+			String name = this.interfase.getName();
+			return this.interfase == Object.class || supertypes.contains( name ) || name.equals( info.getImplementorClass() );
+		}
+
 		ImplementationLoader loader = set.provider().loader();
+
+		// Try without loading.
+		TypeHierarchy hierarchy = loader.hierarchy();
+		if ( hierarchy != null ) {
+			Boolean subtype = hierarchy.isSubtype( info.getImplementorClass(), this.interfase.getName() );
+			if ( subtype != null ) {
+				return subtype;
+			}
+		}
+
+		// Get the class we are testing.
 		Class<? extends I> clazz = loader.loadImplementation( info, set.interfase() );
-		return this.interfase.isAssignableFrom( clazz );
+		return clazz != null && this.interfase.isAssignableFrom( clazz );
+	}
+
+	@Override
+	public int cost() {
+		// Worst case.
+		return COST_CLASS_LOADING;
 	}
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.toxbee.fimpl.predicates;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import se.toxbee.fimpl.ImplementationResultSet;
+import se.toxbee.fimpl.common.ImplementationInformation;
+
+import static se.toxbee.fimpl.common.Util.guardNull;
+
+/**
+ * <p>JunctionPredicate is the base of {@link AndPredicate} and {@link OrPredicate}.</p>
+ *
+ * <p>The children are ordered by cost with {@link PredicateOptimizer} once, on construction,<br/>
+ * and children of the same kind of junction are flattened into it.<br/>
+ * Composite children are evaluated in the mode of the junction: all for and, any for or.</p>
+ *
+ * @param <I> the interface type of the set.
+ * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
+ * @version 1.0
+ * @since Mar, 07, 2014
+ */
+public abstract class JunctionPredicate<I> implements Predicate<I> {
+	protected final Predicate<I>[] children;
+	protected final boolean anyMode;
+
+	/**
+	 * Constructs the junction.
+	 *
+	 * @param anyMode true for a disjunction, false for a conjunction.
+	 * @param children the children, not null.
+	 */
+	@SafeVarargs
+	protected JunctionPredicate( boolean anyMode, Predicate<I>... children ) {
+		this.anyMode = anyMode;
+
+		// Only the elements of children are read, the array never escapes.
+		List<Predicate<I>> flat = new ArrayList<Predicate<I>>( children.length );
+		for ( Predicate<I> child : children ) {
+			this.flatten( flat, child );
+		}
+
+		@SuppressWarnings("unchecked") // Holds nothing but Predicate<I>:s from flat.
+		Predicate<I>[] array = (Predicate<I>[]) new Predicate<?>[flat.size()];
+		this.children = PredicateOptimizer.optimize( flat.toArray( array ) );
+	}
+
+	private void flatten( List<Predicate<I>> flat, Predicate<I> child ) {
+		if ( guardNull( child ).getClass() == this.getClass() ) {
+			for ( Predicate<I> grandchild : ((JunctionPredicate<I>) child).children ) {
+				this.flatten( flat, grandchild );
+			}
+		} else {
+			flat.add( child );
+		}
+	}
+
+	/**
+	 * Returns the children, cheapest first.
+	 * Does not clone the array.
+	 *
+	 * @return the children.
+	 */
+	public Predicate<I>[] children() {
+		return this.children;
+	}
+
+	/**
+	 * Matches when any child does for a disjunction, or when all do for a conjunction.<br/>
+	 * The mode of the filter is ignored.
+	 */
+	@Override
+	public boolean match( ImplementationInformation info, ImplementationResultSet<I, ?> set, boolean anyMode ) {
+		for ( Predicate<I> child : this.children ) {
+			if ( child.match( info, set, this.anyMode ) == this.anyMode ) {
+				return this.anyMode;
+			}
+		}
+
+		return !this.anyMode;
+	}
+
+	@Override
+	public int cost() {
+		return PredicateOptimizer.cost( this.children );
+	}
+}
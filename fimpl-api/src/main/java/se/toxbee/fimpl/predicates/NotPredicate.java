@@ -0,0 +1,61 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.toxbee.fimpl.predicates;
+
+import se.toxbee.fimpl.ImplementationResultSet;
+import se.toxbee.fimpl.common.ImplementationInformation;
+
+import static se.toxbee.fimpl.common.Util.guardNull;
+
+/**
+ * NotPredicate negates another predicate.
+ *
+ * @param <I> the interface type of the set.
+ * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
+ * @version 1.0
+ * @since Mar, 07, 2014
+ */
+public class NotPredicate<I> implements Predicate<I> {
+	protected final Predicate<I> predicate;
+
+	/**
+	 * Constructs the predicate.
+	 *
+	 * @param predicate the predicate to negate, not null.
+	 */
+	public NotPredicate( Predicate<I> predicate ) {
+		this.predicate = guardNull( predicate );
+	}
+
+	/**
+	 * Returns the negated predicate.
+	 *
+	 * @return the predicate.
+	 */
+	public Predicate<I> predicate() {
+		return this.predicate;
+	}
+
+	@Override
+	public boolean match( ImplementationInformation info, ImplementationResultSet<I, ?> set, boolean anyMode ) {
+		return !this.predicate.match( info, set, anyMode );
+	}
+
+	@Override
+	public int cost() {
+		return this.predicate.cost();
+	}
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.toxbee.fimpl.predicates;
+
+/**
+ * OrPredicate matches when any of its children match, cheapest first.
+ *
+ * @param <I> the interface type of the set.
+ * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
+ * @version 1.0
+ * @since Mar, 07, 2014
+ */
+public class OrPredicate<I> extends JunctionPredicate<I> {
+	/**
+	 * Constructs the predicate.
+	 *
+	 * @param children the children, not null.
+	 */
+	@SafeVarargs
+	@SuppressWarnings("varargs") // Only handed to the @SafeVarargs constructor of JunctionPredicate.
+	public OrPredicate( Predicate<I>... children ) {
+		super( true, children );
+	}
+}
@@ -19,7 +19,10 @@ import se.toxbee.fimpl.common.ImplementationInformation;
 import se.toxbee.fimpl.ImplementationResultSet;
 
 /**
- * Predicate is a generic predicates class for filtering the set.
+ * <p>Predicate is a generic predicates class for filtering the set.</p>
+ *
+ * <p>A predicate may give a hint of how expensive it is through {@link #cost()},<br/>
+ * cheaper predicates are evaluated first, see {@link PredicateOptimizer}.</p>
  *
  * @param <I> the interface type of the set.
  * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
@@ -27,6 +30,31 @@ import se.toxbee.fimpl.ImplementationResultSet;
  * @since Jan, 24, 2014
  */
 public interface Predicate<I> {
+	/**
+	 * Cost of looking at meta-data only, e.g. the type.
+	 */
+	public static final int COST_METADATA = 1;
+
+	/**
+	 * Cost of a literal, prefix, suffix or contains check, see {@link StringMatcher}.
+	 */
+	public static final int COST_STRING = 2;
+
+	/**
+	 * Cost of matching a regular expression.
+	 */
+	public static final int COST_REGEX = 10;
+
+	/**
+	 * Cost of a predicate that doesn't say.
+	 */
+	public static final int COST_UNKNOWN = 100;
+
+	/**
+	 * Cost of loading the class.
+	 */
+	public static final int COST_CLASS_LOADING = 1000;
+
 	/**
 	 * Returns true if a match has occured.
 	 *
@@ -37,4 +65,14 @@ public interface Predicate<I> {
 	 * @return whether or a match has occured.
 	 */
 	public boolean match( ImplementationInformation info, ImplementationResultSet<I, ?> set, boolean anyMode );
+
+	/**
+	 * Returns a hint of the cost of {@link #match} relative to the COST_* constants.<br/>
+	 * Predicates with lower costs are evaluated first.
+	 *
+	 * @return the cost, {@link #COST_UNKNOWN} by default.
+	 */
+	public default int cost() {
+		return COST_UNKNOWN;
+	}
 }
@@ -71,7 +71,18 @@ public class PredicateFactory {
 	 * @return the predicate.
 	 */
 	public static <I> Predicate<I> forClassName( Pattern pattern ) {
-		return new RegexPredicate<I>( new ClassNameTransformer<I>(), pattern );
+		return forPattern( new ClassNameTransformer<I>(), pattern );
+	}
+
+	/**
+	 * Creates a predicate for class names, see {@link StringMatcher#glob(String)}.
+	 *
+	 * @param glob the class names glob to match with.
+	 * @param <I>
+	 * @return the predicate.
+	 */
+	public static <I> Predicate<I> forClassNameGlob( String glob ) {
+		return forPattern( new ClassNameTransformer<I>(), StringMatcher.globPattern( glob ) );
 	}
 
 	/* ------------------------
@@ -109,6 +120,74 @@ public class PredicateFactory {
 	 * @return the predicate.
 	 */
 	public static <I> Predicate<I> forType( Pattern pattern ) {
-		return new RegexPredicate<I>( new TypeTransformer<I>(), pattern );
+		return forPattern( new TypeTransformer<I>(), pattern );
+	}
+
+	/**
+	 * Creates a predicate for types, see {@link StringMatcher#glob(String)}.
+	 *
+	 * @param glob the types glob to match with.
+	 * @param <I>
+	 * @return the predicate.
+	 */
+	public static <I> Predicate<I> forTypeGlob( String glob ) {
+		return forPattern( new TypeTransformer<I>(), StringMatcher.globPattern( glob ) );
+	}
+
+	/**
+	 * Creates a predicate for a pattern, an equality check if the pattern is a literal<br/>
+	 * - which result sets can then answer from an index.
+	 *
+	 * @param transformer the transformer.
+	 * @param pattern the pattern.
+	 * @param <I>
+	 * @return the predicate.
+	 */
+	private static <I> Predicate<I> forPattern( PredicateInputTransformer<I, String> transformer, Pattern pattern ) {
+		RegexPredicate<I> regex = new RegexPredicate<I>( transformer, pattern );
+		String literal = regex.matcher().literal();
+		return literal == null ? regex : new EqualsPredicate<I, String>( transformer, literal );
+	}
+
+	/* ------------------------
+	 * Predicates: Logic
+	 * ------------------------
+	 */
+
+	/**
+	 * Creates a predicate matching when all predicates match.
+	 *
+	 * @param predicates the predicates.
+	 * @param <I>
+	 * @return the predicate.
+	 */
+	@SafeVarargs
+	@SuppressWarnings("varargs") // Only handed to the @SafeVarargs constructor of AndPredicate.
+	public static <I> Predicate<I> and( Predicate<I>... predicates ) {
+		return new AndPredicate<I>( predicates );
+	}
+
+	/**
+	 * Creates a predicate matching when any predicate matches.
+	 *
+	 * @param predicates the predicates.
+	 * @param <I>
+	 * @return the predicate.
+	 */
+	@SafeVarargs
+	@SuppressWarnings("varargs") // Only handed to the @SafeVarargs constructor of OrPredicate.
+	public static <I> Predicate<I> or( Predicate<I>... predicates ) {
+		return new OrPredicate<I>( predicates );
+	}
+
+	/**
+	 * Creates a predicate matching when predicate doesn't.
+	 *
+	 * @param predicate the predicate.
+	 * @param <I>
+	 * @return the predicate.
+	 */
+	public static <I> Predicate<I> not( Predicate<I> predicate ) {
+		return new NotPredicate<I>( predicate );
 	}
 }
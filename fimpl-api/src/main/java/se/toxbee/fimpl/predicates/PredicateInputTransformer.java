@@ -20,4 +20,13 @@ public interface PredicateInputTransformer<I, A> {
 	 * @return the transformed input.
 	 */
 	public A transformForPredicate( ImplementationInformation info, ImplementationResultSet<I, ?> set );
+
+	/**
+	 * Returns a hint of the cost of transforming, see {@link Predicate#cost()}.
+	 *
+	 * @return the cost, {@link Predicate#COST_UNKNOWN} by default.
+	 */
+	public default int cost() {
+		return Predicate.COST_UNKNOWN;
+	}
 }
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.toxbee.fimpl.predicates;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * <p>PredicateOptimizer orders predicates so that the cheap ones, see {@link Predicate#cost()},<br/>
+ * are evaluated first and the expensive ones - e.g. those loading classes - only for<br/>
+ * the entries that survive them.</p>
+ *
+ * <p>Both any and all modes short-circuit on the first deciding predicate and<br/>
+ * conjunction and disjunction are commutative, so the order never changes the result<br/>
+ * as long as the predicates have no side effects.</p>
+ *
+ * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
+ * @version 1.0
+ * @since Mar, 07, 2014
+ */
+public class PredicateOptimizer {
+	private static final Comparator<Predicate<?>> BY_COST = new Comparator<Predicate<?>>() {
+		@Override
+		public int compare( Predicate<?> a, Predicate<?> b ) {
+			return Integer.compare( a.cost(), b.cost() );
+		}
+	};
+
+	/**
+	 * Orders predicates by ascending cost, stable - equal costs keep their order.
+	 *
+	 * @param predicates the predicates, not modified.
+	 * @param <I> the interface type of the set.
+	 * @return predicates if already in order, otherwise an ordered copy.
+	 */
+	public static <I> Predicate<I>[] optimize( Predicate<I>[] predicates ) {
+		if ( isOrdered( predicates ) ) {
+			return predicates;
+		}
+
+		Predicate<I>[] sorted = predicates.clone();
+		Arrays.sort( sorted, BY_COST );
+		return sorted;
+	}
+
+	/**
+	 * Returns the sum of the costs of predicates, saturated at {@link Integer#MAX_VALUE}.
+	 *
+	 * @param predicates the predicates.
+	 * @return the total cost.
+	 */
+	public static int cost( Predicate<?>[] predicates ) {
+		long sum = 0;
+		for ( Predicate<?> p : predicates ) {
+			sum += p.cost();
+		}
+
+		return (int) Math.min( sum, Integer.MAX_VALUE );
+	}
+
+	private static boolean isOrdered( Predicate<?>[] predicates ) {
+		for ( int i = 1; i < predicates.length; ++i ) {
+			if ( predicates[i - 1].cost() > predicates[i].cost() ) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+}
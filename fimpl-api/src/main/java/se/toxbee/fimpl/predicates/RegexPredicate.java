@@ -23,7 +23,10 @@ import se.toxbee.fimpl.common.ImplementationInformation;
 import static se.toxbee.fimpl.common.Util.guardNull;
 
 /**
- * RegexPredicate uses a regex pattern to match against something.
+ * <p>RegexPredicate uses a regex pattern to match against something.</p>
+ *
+ * <p>The pattern is compiled with {@link StringMatcher#compile(Pattern)}, so that simple<br/>
+ * patterns like <tt>image/.*</tt> are plain prefix checks instead of a Matcher per entry.</p>
  *
  * @param <I> the interface type of the set.
  * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
@@ -33,6 +36,7 @@ import static se.toxbee.fimpl.common.Util.guardNull;
 public class RegexPredicate<I> implements Predicate<I> {
 	protected final PredicateInputTransformer<I, ? extends CharSequence> transformer;
 	protected final Pattern pattern;
+	protected final StringMatcher matcher;
 
 	/**
 	 * Constructs the predicates using the given pattern.
@@ -43,6 +47,7 @@ public class RegexPredicate<I> implements Predicate<I> {
 	public RegexPredicate( PredicateInputTransformer<I, ? extends CharSequence> transformer, Pattern pattern ) {
 		this.pattern = guardNull( pattern );
 		this.transformer = guardNull( transformer );
+		this.matcher = StringMatcher.compile( pattern );
 	}
 
 	/**
@@ -54,9 +59,23 @@ public class RegexPredicate<I> implements Predicate<I> {
 		return this.pattern;
 	}
 
+	/**
+	 * Returns the matcher the pattern was compiled to.
+	 *
+	 * @return the matcher.
+	 */
+	public StringMatcher matcher() {
+		return this.matcher;
+	}
+
 	@Override
 	public boolean match( ImplementationInformation info, ImplementationResultSet<I, ?> set, boolean anyMode ) {
 		CharSequence input = this.transformer.transformForPredicate( info, set );
-		return input != null && this.pattern.matcher( input ).matches();
+		return input != null && this.matcher.matches( input );
+	}
+
+	@Override
+	public int cost() {
+		return this.transformer.cost() + (this.matcher.kind() == StringMatcher.Kind.REGEX ? COST_REGEX : COST_STRING);
 	}
 }
@@ -0,0 +1,437 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.toxbee.fimpl.predicates;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static se.toxbee.fimpl.common.Util.guardNull;
+
+/**
+ * <p>StringMatcher matches whole strings like {@link Matcher#matches()} does,<br/>
+ * but {@link #compile(Pattern)} turns patterns that are just literals and <tt>.*</tt>:s<br/>
+ * into plain literal, prefix, suffix, prefix + suffix and contains checks that don't allocate.<br/>
+ * Other patterns fall back to a {@link Matcher} per thread that is reset for each input.</p>
+ *
+ * <p>Patterns with flags other than {@link Pattern#DOTALL} always fall back.<br/>
+ * Without DOTALL, <tt>.*</tt> doesn't span line terminators, just as with java.util.regex.</p>
+ *
+ * <p>{@link #glob(String)} understands the glob syntax: <tt>*</tt> matches any run of characters,<br/>
+ * <tt>?</tt> any one character and <tt>\</tt> escapes the next character.</p>
+ *
+ * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
+ * @version 1.0
+ * @since Mar, 11, 2014
+ */
+public abstract class StringMatcher {
+	/**
+	 * The kinds of matchers.
+	 */
+	public static enum Kind {
+		/**
+		 * Matches anything.
+		 */
+		ANY,
+
+		/**
+		 * Matches one string.
+		 */
+		LITERAL,
+
+		/**
+		 * Matches strings starting with a prefix.
+		 */
+		PREFIX,
+
+		/**
+		 * Matches strings ending with a suffix.
+		 */
+		SUFFIX,
+
+		/**
+		 * Matches strings starting with a prefix and ending with a suffix.
+		 */
+		PREFIX_SUFFIX,
+
+		/**
+		 * Matches strings containing a string.
+		 */
+		CONTAINS,
+
+		/**
+		 * Matches with java.util.regex.
+		 */
+		REGEX
+	}
+
+	protected final Kind kind;
+
+	protected StringMatcher( Kind kind ) {
+		this.kind = kind;
+	}
+
+	/**
+	 * Returns the kind of the matcher.
+	 *
+	 * @return the kind.
+	 */
+	public Kind kind() {
+		return this.kind;
+	}
+
+	/**
+	 * Returns the literal matched if {@link Kind#LITERAL}.
+	 *
+	 * @return the literal, or null if not a literal matcher.
+	 */
+	public String literal() {
+		return null;
+	}
+
+	/**
+	 * Returns whether or not the whole input matches.
+	 *
+	 * @param input the input, not null.
+	 * @return true if it does.
+	 */
+	public abstract boolean matches( CharSequence input );
+
+	/* ----------------------------------------------
+	 * Compilation.
+	 * ----------------------------------------------
+	 */
+
+	/**
+	 * Compiles a pattern into the simplest matcher that matches the same strings.
+	 *
+	 * @param pattern the pattern.
+	 * @return the matcher.
+	 */
+	public static StringMatcher compile( Pattern pattern ) {
+		List<String> parts = (pattern.flags() & ~Pattern.DOTALL) == 0 ? parse( pattern.pattern() ) : null;
+		if ( parts == null ) {
+			return new Regex( pattern );
+		}
+
+		// parts alternates literal, wildcard, literal ... - "" where nothing is.
+		boolean dotall = (pattern.flags() & Pattern.DOTALL) != 0;
+		switch ( parts.size() ) {
+			case 1:
+				return new Literal( parts.get( 0 ) );
+
+			case 3:
+				String prefix = parts.get( 0 );
+				String suffix = parts.get( 2 );
+				if ( prefix.isEmpty() ) {
+					return suffix.isEmpty() ? new Any( dotall ) : new Affix( Kind.SUFFIX, "", suffix, dotall );
+				}
+
+				return new Affix( suffix.isEmpty() ? Kind.PREFIX : Kind.PREFIX_SUFFIX, prefix, suffix, dotall );
+
+			case 5:
+				if ( parts.get( 0 ).isEmpty() && parts.get( 4 ).isEmpty() ) {
+					return new Contains( parts.get( 2 ), dotall );
+				}
+
+				return new Regex( pattern );
+
+			default:
+				return new Regex( pattern );
+		}
+	}
+
+	/**
+	 * Compiles a glob into a matcher.
+	 *
+	 * @param glob the glob.
+	 * @return the matcher.
+	 */
+	public static StringMatcher glob( String glob ) {
+		return compile( globPattern( glob ) );
+	}
+
+	/**
+	 * Translates a glob into a regex pattern, with {@link Pattern#DOTALL}.
+	 *
+	 * @param glob the glob.
+	 * @return the pattern.
+	 */
+	public static Pattern globPattern( String glob ) {
+		StringBuilder regex = new StringBuilder( glob.length() + 8 );
+		StringBuilder literal = new StringBuilder();
+
+		for ( int i = 0; i < glob.length(); ++i ) {
+			char c = glob.charAt( i );
+			if ( c == '\\' && i + 1 < glob.length() ) {
+				literal.append( glob.charAt( ++i ) );
+			} else if ( c == '*' || c == '?' ) {
+				quote( regex, literal );
+				regex.append( c == '*' ? ".*" : "." );
+			} else {
+				literal.append( c );
+			}
+		}
+
+		quote( regex, literal );
+		return Pattern.compile( regex.toString(), Pattern.DOTALL );
+	}
+
+	private static void quote( StringBuilder regex, StringBuilder literal ) {
+		if ( literal.length() > 0 ) {
+			regex.append( Pattern.quote( literal.toString() ) );
+			literal.setLength( 0 );
+		}
+	}
+
+	/**
+	 * Splits a regex into literals separated by <tt>.*</tt>.
+	 *
+	 * @param regex the regex.
+	 * @return literal, wildcard, literal... with "" for empty literals and null for wildcards,<br/>
+	 *         or null if the regex has anything else in it.
+	 */
+	static List<String> parse( String regex ) {
+		List<String> parts = new ArrayList<String>( 5 );
+		StringBuilder literal = new StringBuilder();
+
+		for ( int i = 0, n = regex.length(); i < n; ++i ) {
+			char c = regex.charAt( i );
+			if ( c == '\\' ) {
+				if ( ++i == n ) {
+					return null;
+				}
+
+				c = regex.charAt( i );
+				if ( c == 'Q' ) {
+					int end = regex.indexOf( "\\E", i + 1 );
+					if ( end < 0 ) {
+						end = n;
+					}
+
+					literal.append( regex, i + 1, end );
+					i = end + 1;
+				} else if ( Character.isLetterOrDigit( c ) || c >= 0x80 ) {
+					// \d, \n, \1, \p{..} and friends.
+					return null;
+				} else {
+					literal.append( c );
+				}
+			} else if ( c == '.' && i + 1 < n && regex.charAt( i + 1 ) == '*' ) {
+				if ( i + 2 < n && "?+".indexOf( regex.charAt( i + 2 ) ) >= 0 ) {
+					// Lazy and possessive: same strings, but keep it simple.
+					return null;
+				}
+
+				// .*.* is .*
+				if ( literal.length() > 0 || parts.isEmpty() || parts.get( parts.size() - 1 ) != null ) {
+					parts.add( literal.toString() );
+					parts.add( null );
+				}
+
+				literal.setLength( 0 );
+				++i;
+			} else if ( "[](){}.*+?^$|".indexOf( c ) >= 0 ) {
+				return null;
+			} else {
+				literal.append( c );
+			}
+		}
+
+		parts.add( literal.toString() );
+		return parts;
+	}
+
+	private static boolean isLineTerminator( char c ) {
+		return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+	}
+
+	/*
+	 * Whether input[from, to) can be matched by ".*".
+	 */
+	private static boolean wildcard( CharSequence input, int from, int to, boolean dotall ) {
+		if ( !dotall ) {
+			for ( int i = from; i < to; ++i ) {
+				if ( isLineTerminator( input.charAt( i ) ) ) {
+					return false;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	private static boolean regionMatches( CharSequence input, int offset, String s ) {
+		for ( int i = 0, n = s.length(); i < n; ++i ) {
+			if ( input.charAt( offset + i ) != s.charAt( i ) ) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/* ----------------------------------------------
+	 * Matchers.
+	 * ----------------------------------------------
+	 */
+
+	private static class Any extends StringMatcher {
+		private final boolean dotall;
+
+		Any( boolean dotall ) {
+			super( Kind.ANY );
+			this.dotall = dotall;
+		}
+
+		@Override
+		public boolean matches( CharSequence input ) {
+			return wildcard( input, 0, input.length(), this.dotall );
+		}
+
+		@Override
+		public String toString() {
+			return "any";
+		}
+	}
+
+	private static class Literal extends StringMatcher {
+		private final String literal;
+
+		Literal( String literal ) {
+			super( Kind.LITERAL );
+			this.literal = literal;
+		}
+
+		@Override
+		public String literal() {
+			return this.literal;
+		}
+
+		@Override
+		public boolean matches( CharSequence input ) {
+			return input.length() == this.literal.length() && regionMatches( input, 0, this.literal );
+		}
+
+		@Override
+		public String toString() {
+			return "literal " + this.literal;
+		}
+	}
+
+	private static class Affix extends StringMatcher {
+		private final String prefix;
+		private final String suffix;
+		private final boolean dotall;
+
+		Affix( Kind kind, String prefix, String suffix, boolean dotall ) {
+			super( kind );
+			this.prefix = prefix;
+			this.suffix = suffix;
+			this.dotall = dotall;
+		}
+
+		@Override
+		public boolean matches( CharSequence input ) {
+			int len = input.length();
+			int end = len - this.suffix.length();
+			return end >= this.prefix.length()
+					&& regionMatches( input, 0, this.prefix )
+					&& regionMatches( input, end, this.suffix )
+					&& wildcard( input, this.prefix.length(), end, this.dotall );
+		}
+
+		@Override
+		public String toString() {
+			return this.kind.name().toLowerCase( Locale.ENGLISH ) + ' ' + this.prefix + '*' + this.suffix;
+		}
+	}
+
+	private static class Contains extends StringMatcher {
+		private final String infix;
+		private final boolean dotall;
+
+		Contains( String infix, boolean dotall ) {
+			super( Kind.CONTAINS );
+			this.infix = infix;
+			this.dotall = dotall;
+		}
+
+		@Override
+		public boolean matches( CharSequence input ) {
+			int len = input.length();
+			int n = this.infix.length();
+
+			// Without DOTALL, all line terminators must be within the infix.
+			int from = 0;
+			int to = len - n;
+			if ( !this.dotall ) {
+				for ( int i = 0; i < len; ++i ) {
+					if ( isLineTerminator( input.charAt( i ) ) ) {
+						from = Math.max( from, i - n + 1 );
+						to = Math.min( to, i );
+					}
+				}
+			}
+
+			for ( int i = from; i <= to; ++i ) {
+				if ( regionMatches( input, i, this.infix ) ) {
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+		@Override
+		public String toString() {
+			return "contains " + this.infix;
+		}
+	}
+
+	private static class Regex extends StringMatcher {
+		private final Pattern pattern;
+		private final ThreadLocal<Matcher> matchers;
+
+		Regex( Pattern pattern ) {
+			super( Kind.REGEX );
+			this.pattern = guardNull( pattern );
+			this.matchers = new ThreadLocal<Matcher>() {
+				@Override
+				protected Matcher initialValue() {
+					return Regex.this.pattern.matcher( "" );
+				}
+			};
+		}
+
+		@Override
+		public boolean matches( CharSequence input ) {
+			Matcher m = this.matchers.get();
+			boolean matches = m.reset( input ).matches();
+
+			// Don't keep the input alive.
+			m.reset( "" );
+			return matches;
+		}
+
+		@Override
+		public String toString() {
+			return "regex " + this.pattern.pattern();
+		}
+	}
+}
@@ -31,4 +31,9 @@ public class TypeTransformer<I> implements PredicateInputTransformer<I, String>
 	public String transformForPredicate( ImplementationInformation info, ImplementationResultSet<I, ?> set ) {
 		return info.getType();
 	}
+
+	@Override
+	public int cost() {
+		return Predicate.COST_METADATA;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.toxbee.fimpl
+
+import se.toxbee.fimpl.common.ImplementationInformation
+import se.toxbee.fimpl.impl.ImplementationFactoryImpl
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+
+class CachingImplementationFinderTest extends Specification {
+	interface iface {}
+
+	def reads = 0
+	def infos = (0..4).collect { new ImplementationInformation.Impl( "clazz${it}", it ) }
+	def reader = { reads++; infos.iterator() } as ImplementationReader
+	def factory = new ImplementationFactoryImpl( Mock(ImplementationLoader), reader )
+
+	def "Find reads once"() {
+		given:
+			def finder = new CachingImplementationFinder( factory )
+		when:
+			def a = finder.find( iface )
+			def b = finder.find( iface )
+		then:
+			reads == 1
+			!a.is( b )
+			a.size() == infos.size()
+			a.firstInfo() == infos[4]
+			finder.isCached( iface )
+	}
+
+	def "Find hands out copies"() {
+		given:
+			def finder = new CachingImplementationFinder( factory )
+		when:
+			finder.find( iface ).clear()
+		then:
+			finder.find( iface ).size() == infos.size()
+			finder.findRaw( iface ).collect().size() == infos.size()
+			reads == 1
+	}
+
+	def "Invalidate"() {
+		given:
+			def finder = new CachingImplementationFinder( factory )
+		when:
+			finder.find( iface )
+			finder.invalidate( iface )
+			finder.find( iface )
+		then:
+			reads == 2
+		when:
+			finder.invalidateAll()
+		then:
+			!finder.isCached( iface )
+	}
+
+	def "TimeToLive"() {
+		given:
+			def finder = new CachingImplementationFinder( factory, 1, TimeUnit.NANOSECONDS )
+		expect:
+			finder.getTimeToLive( TimeUnit.NANOSECONDS ) == 1
+		when:
+			finder.find( iface )
+			Thread.sleep( 1 )
+			finder.find( iface )
+		then:
+			reads == 2
+		when:
+			finder.setTimeToLive( 0, TimeUnit.SECONDS )
+			finder.find( iface )
+			finder.find( iface )
+		then:
+			reads == 3
+			finder.getTimeToLive( TimeUnit.SECONDS ) == 0
+	}
+
+	def "FindAll reads only what isn't cached"() {
+		given:
+			def read = []
+			def batchReader = { i -> read << i; infos.iterator() } as ImplementationReader
+			def finder = new CachingImplementationFinder( new ImplementationFactoryImpl( Mock(ImplementationLoader), batchReader ) )
+		when:
+			finder.find( iface )
+			def all = finder.findAll( iface, Runnable, Cloneable )
+		then:
+			read == [iface, Runnable, Cloneable]
+			all.keySet() as List == [iface, Runnable, Cloneable]
+			all.values()*.size() == [5, 5, 5]
+			finder.isCached( Runnable )
+		when:
+			all[Runnable].clear()
+			finder.findAll( Runnable )
+		then:
+			read.size() == 3
+			finder.find( Runnable ).size() == infos.size()
+	}
+}
@@ -16,9 +16,14 @@
 
 package se.toxbee.fimpl
 
+import se.toxbee.fimpl.common.ImplementationInformation
 import se.toxbee.fimpl.impl.ImplementationFactoryImpl
 import spock.lang.Specification
 
+import java.util.concurrent.CompletionException
+import java.util.concurrent.Executor
+import java.util.concurrent.ForkJoinPool
+
 class ImplementationFinderTest extends Specification {
 	def "Ctor"() {
 		when:
@@ -48,4 +53,52 @@ class ImplementationFinderTest extends Specification {
 		expect:
 			finder.findRaw( null ) == iter
 	}
+
+	def "FindAsync"() {
+		given:
+			def threads = [] as Set
+			def reader = { i -> threads << Thread.currentThread(); [new ImplementationInformation.Impl( i.simpleName, 0 )].iterator() } as ImplementationReader
+			def finder = new ImplementationFinder( new ImplementationFactoryImpl( Mock(ImplementationLoader), reader ) )
+			def executed = 0
+		expect:
+			finder.getExecutor() == ForkJoinPool.commonPool()
+		when:
+			finder.setExecutor( { executed++; it.run() } as Executor )
+			def one = finder.findAsync( Runnable ).get()
+			def all = finder.findAsync( Runnable, Comparable, Runnable ).get()
+		then:
+			one.firstInfo().implementorClass == "Runnable"
+			all.keySet() as List == [Runnable, Comparable]
+			all[Comparable].firstInfo().implementorClass == "Comparable"
+			executed == 3
+		when:
+			finder.setExecutor( null )
+		then:
+			thrown( NullPointerException )
+	}
+
+	def "FindAsync fails with reader"() {
+		given:
+			def reader = { i -> throw new IllegalStateException() } as ImplementationReader
+			def finder = new ImplementationFinder( new ImplementationFactoryImpl( Mock(ImplementationLoader), reader ) )
+		when:
+			finder.findAsync( Runnable, Comparable ).join()
+		then:
+			def e = thrown( CompletionException )
+			e.cause instanceof IllegalStateException
+	}
+
+	def "FindAll"() {
+		given:
+			def reads = []
+			def reader = { i -> reads << i; [new ImplementationInformation.Impl( i.simpleName, 0 )].iterator() } as ImplementationReader
+			def finder = new ImplementationFinder( new ImplementationFactoryImpl( Mock(ImplementationLoader), reader ) )
+		when:
+			def all = finder.findAll( Runnable, Cloneable, Runnable )
+		then:
+			all.keySet() as List == [Runnable, Cloneable]
+			all.collectEntries { k, v -> [k, v.firstInfo().implementorClass] } == [(Runnable): "Runnable", (Cloneable): "Cloneable"]
+			all[Runnable].interfase() == Runnable
+			reads == [Runnable, Cloneable]
+	}
 }
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.toxbee.fimpl
+
+import se.toxbee.fimpl.common.ImplementationInformation
+import se.toxbee.fimpl.impl.ImplementationFactoryImpl
+import se.toxbee.fimpl.impl.StandardClassLoader
+import spock.lang.Specification
+
+import java.util.concurrent.Executor
+import java.util.concurrent.TimeUnit
+
+class ImplementationPreloaderTest extends Specification {
+	interface iface {}
+	static class a implements iface {}
+	static class b implements iface {}
+	static class bad implements iface {
+		static {
+			if ( true ) {
+				throw new IllegalStateException( "bad" )
+			}
+		}
+	}
+
+	def name = { Class c -> c.name }
+	def infos = [
+		new ImplementationInformation.Impl( name( a ), 3 ),
+		new ImplementationInformation.Impl( name( b ), 2 ),
+		new ImplementationInformation.Impl( "non-existent", 1 ),
+		new ImplementationInformation.Impl( ImplementationPreloaderTest.name + '$bad', 0 ),
+	]
+	def reader = { i -> i == iface ? infos.iterator() : null } as ImplementationReader
+	def finder = new ImplementationFinder( new ImplementationFactoryImpl( new StandardClassLoader(), reader ) )
+
+	def "Preload"() {
+		given:
+			def events = Collections.synchronizedList( [] )
+			def preloader = new ImplementationPreloader( finder )
+			preloader.setListener( new ImplementationPreloader.Listener() {
+				@Override
+				void loaded( Class<?> interfase, ImplementationInformation info, Class<?> clazz ) {
+					events << clazz
+				}
+
+				@Override
+				void failed( Class<?> interfase, ImplementationInformation info, Throwable error ) {
+					events << info.implementorClass
+				}
+			} )
+		when:
+			def result = preloader.preload( iface, Runnable ).get( 10, TimeUnit.SECONDS )
+		then:
+			result.total() == 4
+			result.loaded() == 3
+			result.failures().keySet() as List == [infos[2]]
+			result.failures()[infos[2]] == null
+			events as Set == [a, b, bad, "non-existent"] as Set
+	}
+
+	def "Preload with initialization"() {
+		given:
+			def progress = []
+			def preloader = new ImplementationPreloader( finder )
+			preloader.setExecutor( { it.run() } as Executor )
+			preloader.setInitialize( true )
+			preloader.setListener( new ImplementationPreloader.Listener() {
+				@Override
+				void progress( int done, int total ) {
+					progress << [done, total]
+				}
+			} )
+		when:
+			def result = preloader.preload( finder.find( iface ) ).join()
+		then:
+			preloader.isInitialize()
+			result.loaded() == 2
+			result.failures().keySet() as List == [infos[2], infos[3]]
+			result.failures()[infos[3]] instanceof ExceptionInInitializerError
+			progress == [[1, 4], [2, 4], [3, 4], [4, 4]]
+	}
+
+	def "Preloaded classes are cached by the loader"() {
+		given:
+			def loads = 0
+			def cl = new ClassLoader( getClass().getClassLoader() ) {
+				@Override
+				Class<?> loadClass( String name ) throws ClassNotFoundException {
+					loads++
+					return super.loadClass( name )
+				}
+			}
+			def cached = new ImplementationFinder( new ImplementationFactoryImpl( new StandardClassLoader( cl ), reader ) )
+			def set = cached.find( iface )
+		when:
+			new ImplementationPreloader( cached ).preload( set ).join()
+		then:
+			loads == 4
+		when:
+			set.first()
+			set.loadingIterable().collect()
+		then:
+			loads == 4
+	}
+
+	def "Empty and defaults"() {
+		given:
+			def preloader = new ImplementationPreloader( finder )
+		expect:
+			preloader.executor == ImplementationPreloader.defaultExecutor()
+			preloader.preload( new ImplementationResultSet[0] ).join().total() == 0
+		when:
+			preloader.setListener( null )
+		then:
+			thrown( NullPointerException )
+	}
+}
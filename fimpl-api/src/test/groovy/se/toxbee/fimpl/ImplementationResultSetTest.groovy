@@ -19,8 +19,13 @@ package se.toxbee.fimpl
 import se.toxbee.fimpl.common.ImplementationInformation
 import se.toxbee.fimpl.impl.ImplementationFactoryImpl
 import se.toxbee.fimpl.impl.StandardClassLoader
+import se.toxbee.fimpl.predicates.ClassNameTransformer
+import se.toxbee.fimpl.predicates.EqualsCompositePredicate
+import se.toxbee.fimpl.predicates.EqualsPredicate
 import se.toxbee.fimpl.predicates.InterfacePredicate
 import se.toxbee.fimpl.predicates.Predicate
+import se.toxbee.fimpl.predicates.PredicateFactory
+import se.toxbee.fimpl.predicates.TypeTransformer
 
 import spock.lang.Specification
 
@@ -73,7 +78,7 @@ class ImplementationResultSetTest extends Specification {
 			["class", "provider", "interfase", "consumePredicatesOnFilter", "pendingPredicates"].each {
 				assert copy."${it}" == resultSet."${it}"
 			}
-			copy.set.containsAll( resultSet.set )
+			copy.set.collect() == resultSet.set.collect()
 	}
 
 	def "FillSet"() {
@@ -106,7 +111,7 @@ class ImplementationResultSetTest extends Specification {
 			resultSet.fixListState( addSet )
 		then:
 			resultSet.set.size() == dum.size()
-			resultSet.set.getFirst() == unique
+			resultSet.set.first() == unique
 	}
 
 	def "Provider"() {
@@ -124,6 +129,18 @@ class ImplementationResultSetTest extends Specification {
 			fillSet().first() == dummy9
 	}
 
+	def "Instantiate"() {
+		expect:
+			// The dummies are inner classes, constructed with the outer instance.
+			fillSet().instantiate( this ) instanceof dummy9
+			resultSet.instances( this )*.getClass() == [dummy9, dummy8, dummy7, dummy6, dummy5, dummy4, dummy3, dummy2, dummy1, dummy0]
+			makeSet().instances( this ).isEmpty()
+		when:
+			fillSet().instantiate()
+		then:
+			thrown( IllegalArgumentException )
+	}
+
 	def "FirstInfo"() {
 		expect:
 			fillSet().firstInfo().getImplementorClass() == dummy9.getName()
@@ -254,6 +271,127 @@ class ImplementationResultSetTest extends Specification {
 			set.removeAll( arr([T, T]) ).isEmpty()
 	}
 
+	// Not indexed: only the exact transformer classes are.
+	static class slowTypes<I> extends TypeTransformer<I> {}
+
+	def "Indexed filtering agrees with predicates"() {
+		given:
+			def types = { ImplementationResultSet.Impl<iface> s -> s.collect { it.implementorClass } }
+			def fast = [
+				PredicateFactory.forType( "type-3" ),
+				PredicateFactory.forType( "type-3", "type-5", "type-42" ),
+				PredicateFactory.forType( "type-3", "type-3" ),
+				PredicateFactory.forType( [] as String[] ),
+				PredicateFactory.forClassName( "${getClass().name}\$dummy7".toString() ),
+			]
+			def slow = [
+				new EqualsPredicate( new slowTypes(), "type-3" ),
+				new EqualsCompositePredicate( new slowTypes(), "type-3", "type-5", "type-42" ),
+				new EqualsCompositePredicate( new slowTypes(), "type-3", "type-3" ),
+				new EqualsCompositePredicate( new slowTypes(), [] as String[] ),
+				new EqualsPredicate( new ClassNameTransformer() { }, "${getClass().name}\$dummy7".toString() ),
+			]
+		expect:
+			[fast, slow].transpose().every { f, sl ->
+				['retainAny', 'removeAny', 'retainAll', 'removeAll'].every { m ->
+					types( fillSet()."$m"( arr( [f] ) ) ) == types( fillSet()."$m"( arr( [sl] ) ) )
+				}
+			}
+			fillSet().type( "type-3", "type-5" ).retainAny().collect { it.priority } == [5, 3]
+	}
+
+	class costly implements Predicate<iface> {
+		def seen = []
+		def boolean val
+
+		costly( boolean val ) {
+			this.val = val
+		}
+
+		@Override
+		boolean match( ImplementationInformation info, ImplementationResultSet<iface, ?> set, boolean anyMode ) {
+			seen << info.priority
+			return val
+		}
+
+		@Override
+		int cost() {
+			return COST_CLASS_LOADING
+		}
+	}
+
+	def "Cheap predicates first"() {
+		given:
+			def retain = new costly( true )
+			def remove = new costly( false )
+		when:
+			def a = fillSet().retainAll( arr( [retain, PredicateFactory.forType( ~/type-[34]/ )] ) )
+			def b = fillSet().removeAny( arr( [remove, PredicateFactory.forType( "type-3" )] ) )
+		then:
+			a.collect { it.priority } == [4, 3]
+			retain.seen == [4, 3]
+			b.size() == 9
+			remove.seen == [9, 8, 7, 6, 5, 4, 2, 1, 0]
+	}
+
+	def "Optimized filtering agrees with predicates"() {
+		given:
+			def predicates = [T, F, PredicateFactory.forType( "type-3", "type-4" ), PredicateFactory.forType( ~/type-[0-5]/ )]
+			def priorities = { ImplementationResultSet.Impl<iface> s -> s.collect { it.priority } }
+			def reference = { String m, List ps ->
+				boolean removeOn = m.startsWith( 'remove' ), allMode = m.endsWith( 'All' )
+				dummyInfos().sort { -it.priority }.findAll { info ->
+					boolean matched = allMode ? ps.every { it.match( info, null, false ) } : ps.any { it.match( info, null, true ) }
+					matched != removeOn
+				}.collect { it.priority }
+			}
+		expect:
+			[predicates, predicates].combinations().findAll { a, b -> !a.is( b ) }.every { ps ->
+				['retainAny', 'removeAny', 'retainAll', 'removeAll'].every { m ->
+					priorities( fillSet()."$m"( arr( ps ) ) ) == reference( m, ps )
+				}
+			}
+	}
+
+	def "Listener"() {
+		given:
+			def events = []
+			provider.setListener( new ImplementationListener() {
+				@Override
+				void sort( Class<?> interfase, int entries, long nanos ) {
+					events << ['sort', interfase, entries]
+				}
+
+				@Override
+				void filter( Class<?> interfase, int predicates, int evaluated, int removed, long nanos ) {
+					events << ['filter', predicates, evaluated, removed]
+				}
+			} )
+		when:
+			fillSet().retainAll( PredicateFactory.forType( "type-3" ) ).removeAny( new pred( true ) )
+		then:
+			events == [['sort', iface, 10], ['filter', 1, 0, 9], ['filter', 1, 1, 1]]
+	}
+
+	def "Streams"() {
+		given:
+			def set = fillSet().removeAny( PredicateFactory.forType( "type-0" ) )
+		expect:
+			set.stream().collect( java.util.stream.Collectors.toList() ) == set.collect()
+			set.parallelStream().map { it.priority }.collect( java.util.stream.Collectors.toList() ) == (9..1).collect()
+			set.loadingStream().collect( java.util.stream.Collectors.toList() ) == set.loadingIterable().collect()
+			set.loadingStream().parallel().filter { it != null }.count() == 9
+	}
+
+	def "Globs"() {
+		expect:
+			fillSet().typeGlob( "type-?" ).retainAll().size() == 10
+			fillSet().typeGlob( "*-3" ).retainAll().collect { it.priority } == [3]
+			fillSet().classNameGlob( "*dummy[1]" ).retainAll().size() == 0
+			fillSet().classNameGlob( "*\$dummy1" ).retainAll().collect { it.priority } == [1]
+			fillSet().type( ~/type-4/ ).pendingPredicates()[0] instanceof EqualsPredicate
+	}
+
 	def "ConsumePredicatesOnFilter"() {
 		given:
 			def set = makeSet()
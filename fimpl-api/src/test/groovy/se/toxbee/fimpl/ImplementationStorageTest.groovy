@@ -0,0 +1,186 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.toxbee.fimpl
+
+import se.toxbee.fimpl.common.ImplementationInformation
+import spock.lang.Specification
+
+class ImplementationStorageTest extends Specification {
+	def infos = (0..9).collect { new ImplementationInformation.Impl( "clazz${it}", it ) }
+
+	ImplementationStorage filled() {
+		def s = new ImplementationStorage()
+		s.reset( infos )
+		return s
+	}
+
+	def "Reset sorts"() {
+		given:
+			def s = filled()
+		expect:
+			s.size() == 10
+			s.first() == infos[9]
+			s.collect() == infos.reverse()
+			s.descendingIterator().collect() == infos
+	}
+
+	def "Spliterator"() {
+		given:
+			def s = filled()
+			s.remove( 0 )
+			s.remove( 5 )
+			def a = s.spliterator()
+			def seen = []
+		expect:
+			a.estimateSize() == 8
+			a.hasCharacteristics( Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.IMMUTABLE )
+			a.comparator == null
+		when:
+			def b = a.trySplit()
+		then:
+			b.estimateSize() == 4
+			a.estimateSize() == 4
+			b.tryAdvance { seen << it }
+			b.forEachRemaining { seen << it }
+			!b.tryAdvance { seen << it }
+			a.forEachRemaining { seen << it }
+			seen == s.collect()
+		when:
+			s.remove( 9 )
+		then:
+			seen.size() == 8
+			s.spliterator().estimateSize() == 7
+	}
+
+	def "Spliterator splits down to single elements"() {
+		given:
+			def split
+			split = { Spliterator sp -> def b = sp.trySplit(); b == null ? [sp.estimateSize()] : split( b ) + split( sp ) }
+		expect:
+			split( filled().spliterator() ) == [1] * 10
+			new ImplementationStorage().spliterator().trySplit() == null
+	}
+
+	def "Empty"() {
+		given:
+			def s = new ImplementationStorage()
+		expect:
+			s.size() == 0
+			!s.iterator().hasNext()
+			!s.descendingIterator().hasNext()
+		when:
+			s.first()
+		then:
+			thrown( NoSuchElementException )
+	}
+
+	def "Remove"() {
+		given:
+			def s = filled()
+		when:
+			s.remove( 0 )
+			s.remove( 0 )
+			s.remove( 9 )
+		then:
+			s.size() == 8
+			s.first() == infos[8]
+			s.descendingIterator().next() == infos[1]
+			s.addTo( [] ) == infos[1..8].reverse()
+	}
+
+	def "Iterator remove"() {
+		given:
+			def s = filled()
+			def iter = s.iterator()
+		when:
+			iter.remove()
+		then:
+			thrown( IllegalStateException )
+		when:
+			while ( iter.hasNext() ) {
+				if ( iter.next().getPriority() % 2 == 0 ) {
+					iter.remove()
+				}
+			}
+		then:
+			s.collect { it.getPriority() } == [9, 7, 5, 3, 1]
+	}
+
+	def "Copy"() {
+		given:
+			def s = filled()
+			def c = new ImplementationStorage( s )
+		expect:
+			c.array.is( s.array )
+			c.live.is( s.live )
+		when:
+			c.remove( 0 )
+		then:
+			c.size() == 9
+			s.size() == 10
+			c.array.is( s.array )
+			!c.live.is( s.live )
+			s.collect() == infos.reverse()
+		when:
+			def c2 = new ImplementationStorage( s )
+			s.remove( 9 )
+		then:
+			s.size() == 9
+			c2.size() == 10
+			c2.first() == infos[9]
+		when:
+			c2.reset( infos[0..1] )
+		then:
+			c2.size() == 2
+			s.size() == 9
+	}
+
+	def "Clear"() {
+		given:
+			def s = filled()
+		when:
+			s.clear()
+		then:
+			s.size() == 0
+			s.next( 0 ) == -1
+	}
+
+	def "Indexed"() {
+		given:
+			def s = new ImplementationStorage()
+			s.reset( (0..9).collect { new ImplementationInformation.Impl( "clazz${it}", it, it % 2 ? "odd" : null, null ) } )
+			def copy = new ImplementationStorage( s )
+		expect:
+			s.indexed( ImplementationStorage.Index.TYPE, "odd" ).stream().toArray() == [0, 2, 4, 6, 8] as int[]
+			s.indexed( ImplementationStorage.Index.TYPE, null ).cardinality() == 5
+			s.indexed( ImplementationStorage.Index.TYPE, "even" ) == null
+			s.indexed( ImplementationStorage.Index.CLASS_NAME, "clazz9" ).stream().toArray() == [0] as int[]
+			copy.indexed( ImplementationStorage.Index.TYPE, "odd" ).is( s.indexed( ImplementationStorage.Index.TYPE, "odd" ) )
+		when:
+			copy.retain( s.indexed( ImplementationStorage.Index.TYPE, "odd" ) )
+		then:
+			copy.size() == 5
+			copy.collect { it.type } == ["odd"] * 5
+			s.size() == 10
+		when:
+			s.remove( s.indexed( ImplementationStorage.Index.TYPE, "odd" ) )
+		then:
+			s.size() == 5
+			s.first().implementorClass == "clazz8"
+			copy.size() == 5
+	}
+}
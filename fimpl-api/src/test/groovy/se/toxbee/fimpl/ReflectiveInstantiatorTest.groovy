@@ -0,0 +1,93 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.toxbee.fimpl
+
+import spock.lang.Specification
+
+class ReflectiveInstantiatorTest extends Specification {
+	static class Plugin {
+		def ctor
+
+		Plugin() { ctor = "none" }
+
+		Plugin( String s ) { ctor = "String" }
+
+		Plugin( Object o ) { ctor = "Object" }
+
+		Plugin( String s, int n ) { ctor = "String,int" }
+	}
+
+	static class Throwing {
+		Throwing() { throw new IOException( "checked" ) }
+
+		Throwing( String s ) { throw new IllegalStateException( s ) }
+	}
+
+	static abstract class Abstract {}
+
+	def instantiator = ReflectiveInstantiator.INSTANCE
+
+	def "Picks the most specific constructor"() {
+		expect:
+			instantiator.instantiate( Plugin ).ctor == "none"
+			instantiator.instantiate( Plugin, null as Object[] ).ctor == "none"
+			instantiator.instantiate( Plugin, "a" ).ctor == "String"
+			instantiator.instantiate( Plugin, 1 ).ctor == "Object"
+			instantiator.instantiate( Plugin, [null] as Object[] ).ctor == "String"
+			instantiator.instantiate( Plugin, "a", 2 ).ctor == "String,int"
+	}
+
+	def "No matching constructor"() {
+		when:
+			instantiator.instantiate( Plugin, "a", "b" )
+		then:
+			thrown( IllegalArgumentException )
+		when:
+			instantiator.instantiate( Abstract )
+		then:
+			thrown( IllegalArgumentException )
+	}
+
+	def "Exceptions of constructors"() {
+		when:
+			instantiator.instantiate( Throwing )
+		then:
+			def e = thrown( RuntimeException )
+			e.cause instanceof IOException
+		when:
+			instantiator.instantiate( Throwing, "unchecked" )
+		then:
+			def u = thrown( IllegalStateException )
+			u.message == "unchecked"
+	}
+
+	def "Default of factories"() {
+		given:
+			def factory = new ImplementationFactory() {
+				@Override
+				ImplementationLoader loader() {
+					return null
+				}
+
+				@Override
+				ImplementationReader reader() {
+					return null
+				}
+			}
+		expect:
+			factory.instantiator() == ReflectiveInstantiator.INSTANCE
+	}
+}
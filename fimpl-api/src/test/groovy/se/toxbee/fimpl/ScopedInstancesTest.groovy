@@ -0,0 +1,163 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.toxbee.fimpl
+
+import se.toxbee.fimpl.common.ImplementationInformation
+import se.toxbee.fimpl.impl.ImplementationFactoryImpl
+import se.toxbee.fimpl.impl.StandardClassLoader
+import spock.lang.Specification
+
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+
+import static se.toxbee.fimpl.ScopedInstances.Scope.*
+
+class ScopedInstancesTest extends Specification {
+	interface iface {}
+
+	static class Proto implements iface {}
+
+	static class Single implements iface {}
+
+	static class PerThread implements iface {}
+
+	static class Pooled implements iface {}
+
+	def info( Class c, int prio, String extras ) {
+		new ImplementationInformation.Impl( c.name, prio, null, extras )
+	}
+
+	def infos = [
+		info( Proto, 3, null ),
+		info( Single, 2, "a=b, scope=Singleton" ),
+		info( PerThread, 1, "scope=thread" ),
+		info( Pooled, 0, "x;scope=pooled" ),
+		new ImplementationInformation.Impl( "com.example.Missing", -1 ),
+	]
+	def factory = new ImplementationFactoryImpl( new StandardClassLoader( getClass().classLoader ), { infos.iterator() } as ImplementationReader )
+	def set = new ImplementationFinder( factory ).find( iface )
+	def instances = new ScopedInstances()
+
+	def get( Class c ) {
+		instances.get( set, infos.find { it.implementorClass == c.name } )
+	}
+
+	def "ScopeOf"() {
+		expect:
+			infos.collect { instances.scopeOf( it ) } == [PROTOTYPE, SINGLETON, THREAD, POOLED, PROTOTYPE]
+			new ScopedInstances( SINGLETON, 1 ).scopeOf( info( Proto, 0, "scope=bogus" ) ) == SINGLETON
+			ScopedInstances.Scope.parse( " pooled " ) == POOLED
+			ScopedInstances.Scope.parse( "bogus" ) == null
+	}
+
+	def "Prototype and singleton"() {
+		expect:
+			!get( Proto ).is( get( Proto ) )
+			get( Single ).is( get( Single ) )
+			instances.first( set ) instanceof Proto
+			instances.all( set )*.getClass() == [Proto, Single, PerThread, Pooled]
+		when:
+			def single = get( Single )
+			instances.clear()
+		then:
+			!get( Single ).is( single )
+	}
+
+	def "Singleton is shared across threads"() {
+		given:
+			def pool = Executors.newFixedThreadPool( 8 )
+		when:
+			def got = pool.invokeAll( (0..<32).collect { { -> get( Single ) } as Callable } )*.get()
+		then:
+			got.every { it.is( got[0] ) }
+		cleanup:
+			pool.shutdown()
+	}
+
+	def "Singleton is created once"() {
+		given:
+			def created = new AtomicInteger()
+			def start = new CountDownLatch( 1 )
+			def instantiator = { Class c, Object[] args -> start.await(); created.incrementAndGet(); c.newInstance() } as ImplementationInstantiator
+			set = new ImplementationFinder( new ImplementationFactoryImpl( new StandardClassLoader( getClass().classLoader ), { infos.iterator() } as ImplementationReader, instantiator ) ).find( iface )
+			def pool = Executors.newFixedThreadPool( 8 )
+		when:
+			def futures = (0..<32).collect { pool.submit( { -> get( Single ) } as Callable ) }
+			start.countDown()
+			def got = futures*.get()
+		then:
+			created.get() == 1
+			got.every { it.is( got[0] ) }
+		cleanup:
+			pool.shutdown()
+	}
+
+	def "Per thread"() {
+		given:
+			def mine = get( PerThread )
+			def other = null
+			def t = Thread.start { other = get( PerThread ) }
+			t.join()
+		expect:
+			mine.is( get( PerThread ) )
+			other != null
+			!other.is( mine )
+	}
+
+	def "Pooled"() {
+		given:
+			instances = new ScopedInstances( PROTOTYPE, 1 )
+		when:
+			def a = get( Pooled )
+			def b = get( Pooled )
+		then:
+			!a.is( b )
+			instances.release( a )
+			!instances.release( b ) // full
+			get( Pooled ).is( a )
+			!get( Pooled ).is( a )
+			!instances.release( new Proto() )
+	}
+
+	def "Ctor"() {
+		when:
+			new ScopedInstances( PROTOTYPE, 0 )
+		then:
+			thrown( IllegalArgumentException )
+		when:
+			new ScopedInstances( null, 1 )
+		then:
+			thrown( NullPointerException )
+	}
+
+	def "Per thread uses the instantiator of the caller"() {
+		given:
+			def mine = { Class c, Object[] args -> new PerThread() } as ImplementationInstantiator
+			def theirs = Mock( ImplementationInstantiator )
+			def factory = { ImplementationInstantiator i -> new ImplementationFactoryImpl( new StandardClassLoader( getClass().classLoader ), { infos.iterator() } as ImplementationReader, i ) }
+			def info = infos.find { it.implementorClass == PerThread.name }
+			def other = new ImplementationFinder( factory( theirs ) ).find( iface )
+		when:
+			instances.get( new ImplementationFinder( factory( mine ) ).find( iface ), info )
+			def t = Thread.start { instances.get( other, info ) }
+			t.join()
+		then:
+			1 * theirs.instantiate( *_ ) >> new PerThread()
+	}
+}
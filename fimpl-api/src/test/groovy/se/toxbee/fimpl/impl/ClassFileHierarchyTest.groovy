@@ -0,0 +1,72 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.toxbee.fimpl.impl
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class ClassFileHierarchyTest extends Specification {
+	static interface a {}
+	static interface b extends a {}
+	static class base implements b {}
+	static class sub extends base implements Serializable {}
+
+	def hierarchy = new ClassFileHierarchy( getClass().classLoader )
+
+	@Unroll
+	def "IsSubtype #clazz.simpleName of #supertype.simpleName"() {
+		expect:
+			hierarchy.isSubtype( clazz.name, supertype.name ) == expected
+			// Agrees with the loaded classes.
+			supertype.isAssignableFrom( clazz ) == expected
+		where:
+			clazz           | supertype         | expected
+			sub             | a                 | true
+			sub             | b                 | true
+			sub             | base              | true
+			sub             | Serializable      | true
+			sub             | Object            | true
+			base            | sub               | false
+			base            | Serializable      | false
+			a               | b                 | false
+			b               | a                 | true
+			ArrayList       | Iterable          | true
+			ArrayList       | Map               | false
+			String          | CharSequence      | true
+	}
+
+	def "Unknown class files"() {
+		expect:
+			hierarchy.isSubtype( "com.example.Missing", a.name ) == null
+			// Even the shortcuts need the class to exist.
+			hierarchy.isSubtype( "com.example.Missing", "com.example.Missing" ) == null
+			hierarchy.isSubtype( "com.example.Missing", Object.name ) == null
+			hierarchy.isSubtype( a.name, a.name )
+	}
+
+	def "Parse"() {
+		when:
+			ClassFileHierarchy.parse( new byte[16] )
+		then:
+			thrown( IOException )
+		when:
+			def node = ClassFileHierarchy.parse( getClass().classLoader.getResourceAsStream( sub.name.replace( '.', '/' ) + ".class" ).bytes )
+		then:
+			node.superName == base.name
+			node.interfaces.contains( Serializable.name )
+	}
+}
@@ -16,6 +16,8 @@
 
 package se.toxbee.fimpl.impl
 
+import se.toxbee.fimpl.ImplementationInstantiator
+import se.toxbee.fimpl.ImplementationListener
 import se.toxbee.fimpl.ImplementationLoader
 import se.toxbee.fimpl.ImplementationReader
 
@@ -30,6 +32,12 @@ class ImplementationFactoryImplTest extends Specification {
 		expect:
 			i.loader() == l
 			i.reader() == r
+			i.instantiator() == MethodHandleInstantiator.INSTANCE
+			new ImplementationFactoryImpl(l, r, Mock(ImplementationInstantiator)).instantiator() != MethodHandleInstantiator.INSTANCE
+		when:
+			new ImplementationFactoryImpl(l, r, null)
+		then:
+			thrown( NullPointerException )
 		when:
 			new ImplementationFactoryImpl(l, null)
 		then:
@@ -39,4 +47,24 @@ class ImplementationFactoryImplTest extends Specification {
 		then:
 			thrown( NullPointerException )
 	}
+
+	def "SetListener"() {
+		given:
+			def listener = Mock(ImplementationListener)
+			def loader = new StandardClassLoader()
+			def reader = new ImplementationReaderPipe( Mock(CollectionIndexTransformer), Mock(InterfaceLookupProvider) )
+			def i = new ImplementationFactoryImpl( loader, reader )
+		expect:
+			i.listener() == ImplementationListener.NONE
+		when:
+			i.setListener( listener )
+		then:
+			i.listener() == listener
+			loader.listener == listener
+			reader.listener == listener
+		when:
+			i.setListener( null )
+		then:
+			thrown( NullPointerException )
+	}
 }
@@ -16,6 +16,7 @@
 
 package se.toxbee.fimpl.impl
 
+import se.toxbee.fimpl.ImplementationListener
 import se.toxbee.fimpl.common.ImplementationInformation
 import spock.lang.Specification
 
@@ -51,4 +52,59 @@ class StandardClassLoaderTest extends Specification {
 			Object.class.getName()  |   null
 			"non-existent"          |   null
 	}
+
+	def "LoadImplementation caches hits and misses"() {
+		given:
+			def loads = 0
+			def cl = new ClassLoader( getClass().getClassLoader() ) {
+				@Override
+				Class<?> loadClass( String name ) throws ClassNotFoundException {
+					loads++
+					return super.loadClass( name )
+				}
+			}
+			def loader = new StandardClassLoader( cl )
+			def hit = new ImplementationInformation.Impl( clazz.class.getName() )
+			def miss = new ImplementationInformation.Impl( "non-existent" )
+		when:
+			2.times {
+				assert loader.loadImplementation( hit, iface.class ) == clazz.class
+				assert loader.loadImplementation( miss, iface.class ) == null
+			}
+		then:
+			loads == 2
+		when:
+			loader.loadImplementation( hit, Object.class )
+		then:
+			loads == 3
+		when:
+			loader.clearCache()
+			loader.loadImplementation( hit, iface.class )
+		then:
+			loads == 4
+		when:
+			loader.setClassloader( cl )
+			loader.loadImplementation( miss, iface.class )
+		then:
+			loads == 5
+	}
+
+	def "Listener reports actual loads"() {
+		given:
+			def loads = []
+			def loader = new StandardClassLoader()
+			loader.setListener( new ImplementationListener() {
+				@Override
+				void load( Class<?> interfase, String className, boolean loaded, long nanos ) {
+					loads << [className, loaded]
+				}
+			} )
+		when:
+			2.times {
+				loader.loadImplementation( new ImplementationInformation.Impl( clazz.class.getName() ), iface.class )
+				loader.loadImplementation( new ImplementationInformation.Impl( "non-existent" ), iface.class )
+			}
+		then:
+			loads == [[clazz.class.getName(), true], ["non-existent", false]]
+	}
 }
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.toxbee.fimpl.predicates
+
+import se.toxbee.fimpl.ImplementationResultSet
+import se.toxbee.fimpl.common.ImplementationInformation
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class EqualsCompositePredicateTest extends Specification {
+	def set = Mock(ImplementationResultSet)
+	def transformer = new TypeTransformer()
+
+	def info( String type ) {
+		new ImplementationInformation.Impl( "clazz", 0, type, null )
+	}
+
+	@Unroll
+	def "Match #matchers on #type"() {
+		given:
+			def pred = new EqualsCompositePredicate( transformer, (String[]) matchers )
+		expect:
+			pred.match( info( type ), set, true ) == any
+			pred.match( info( type ), set, false ) == all
+		where:
+			matchers            | type  | any   | all
+			[]                  | "a"   | false | true
+			["a"]               | "a"   | true  | true
+			["a"]               | "b"   | false | false
+			["a", "a"]          | "a"   | true  | true
+			["a", "b"]          | "a"   | true  | false
+			["a", "b"]          | "c"   | false | false
+			[null, "b"]         | null  | true  | false
+			[null]              | null  | true  | true
+	}
+
+	def "Agrees with linear matching on many matchers"() {
+		given:
+			def matchers = (0..<500).collect { "type/${it}".toString() } as String[]
+			def pred = new EqualsCompositePredicate( transformer, matchers )
+			def linear = new CompositePredicate<Object, String>( matchers ) {
+				protected boolean match( String m, ImplementationInformation i, ImplementationResultSet<Object, ?> s ) {
+					m == i.type
+				}
+			}
+		expect:
+			(490..<510).every {
+				def i = info( "type/${it}" )
+				pred.match( i, set, true ) == linear.match( i, set, true ) && pred.match( i, set, false ) == linear.match( i, set, false )
+			}
+	}
+
+	def "Null matchers"() {
+		given:
+			def pred = new EqualsCompositePredicate( transformer, (String[]) null )
+		when:
+			pred.match( info( "a" ), set, true )
+		then:
+			thrown( NullPointerException )
+	}
+}
@@ -16,8 +16,10 @@
 
 package se.toxbee.fimpl.predicates
 
+import se.toxbee.fimpl.ImplementationLoader
 import se.toxbee.fimpl.ImplementationReader
 import se.toxbee.fimpl.ImplementationResultSet
+import se.toxbee.fimpl.TypeHierarchy
 import se.toxbee.fimpl.common.ImplementationInformation
 import se.toxbee.fimpl.impl.ImplementationFactoryImpl
 import se.toxbee.fimpl.impl.StandardClassLoader
@@ -52,4 +54,58 @@ class InterfacePredicateTest extends Specification {
 			impltrue.class  |   true
 			implfalse.class |   false
 	}
+
+	def "Match without loading"() {
+		given:
+			def loads = []
+			def cl = new ClassLoader( getClass().classLoader ) {
+				protected Class<?> loadClass( String name, boolean resolve ) {
+					loads << name
+					super.loadClass( name, resolve )
+				}
+			}
+			def factory = new ImplementationFactoryImpl( new StandardClassLoader( cl ), Mock(ImplementationReader) )
+			def set = new ImplementationResultSet.Impl<iface1>( factory, iface1.class, null )
+			def pred = new InterfacePredicate<iface1>( iface2.class )
+		expect:
+			pred.match( new ImplementationInformation.Impl( impltrue.name ), set, false )
+			!pred.match( new ImplementationInformation.Impl( implfalse.name ), set, false )
+			loads.isEmpty()
+			!pred.match( new ImplementationInformation.Impl( "com.example.Missing" ), set, false )
+	}
+
+	def "Match from the hierarchy of any loader"() {
+		given:
+			def loader = Mock(ImplementationLoader)
+			def factory = new ImplementationFactoryImpl( loader, Mock(ImplementationReader) )
+			def set = new ImplementationResultSet.Impl<iface1>( factory, iface1.class, null )
+			def pred = new InterfacePredicate<iface1>( iface2.class )
+			def hierarchy = { String c, String s -> c == "com.example.A" ? true : c == "com.example.B" ? false : null } as TypeHierarchy
+		when:
+			def matches = ["com.example.A", "com.example.B", "com.example.C"].collect { pred.match( new ImplementationInformation.Impl( it ), set, false ) }
+		then:
+			_ * loader.hierarchy() >> hierarchy
+			1 * loader.loadImplementation( { it.implementorClass == "com.example.C" }, iface1 ) >> null
+			0 * loader.loadImplementation( *_ )
+			matches == [true, false, false]
+	}
+
+	def "Match from supertypes"() {
+		given:
+			def loader = Mock(ImplementationLoader)
+			def factory = new ImplementationFactoryImpl( loader, Mock(ImplementationReader) )
+			def set = new ImplementationResultSet.Impl<iface1>( factory, iface1.class, null )
+			def pred = new InterfacePredicate<iface1>( iface2.class )
+			def info = { String clazz, Set supertypes -> new ImplementationInformation.Impl( clazz, 0, null, null, supertypes ) }
+		when:
+			def matches = [
+				pred.match( info( "com.example.A", [iface1.name, iface2.name] as Set ), set, false ),
+				pred.match( info( "com.example.B", [iface1.name] as Set ), set, false ),
+				pred.match( info( iface2.name, [iface1.name] as Set ), set, false ),
+				new InterfacePredicate<iface1>( Object ).match( info( "com.example.B", [iface1.name] as Set ), set, false )
+			]
+		then:
+			matches == [true, false, true, true]
+			0 * loader._
+	}
 }
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.toxbee.fimpl.predicates
+
+import se.toxbee.fimpl.ImplementationResultSet
+import se.toxbee.fimpl.common.ImplementationInformation
+import spock.lang.Specification
+
+class JunctionPredicateTest extends Specification {
+	static class p implements Predicate<Object> {
+		def calls = 0
+		def boolean val
+		def int cost
+
+		p( boolean val, int cost ) {
+			this.val = val
+			this.cost = cost
+		}
+
+		@Override
+		boolean match( ImplementationInformation info, ImplementationResultSet<Object, ?> set, boolean anyMode ) {
+			calls++
+			return val
+		}
+
+		@Override
+		int cost() {
+			return cost
+		}
+	}
+
+	def info = new ImplementationInformation.Impl( "clazz", 0, "type" )
+
+	def "Match"() {
+		given:
+			def ps = values.collect { new p( it, 1 ) } as Predicate[]
+		expect:
+			new AndPredicate<Object>( ps ).match( info, null, true ) == and
+			new OrPredicate<Object>( ps ).match( info, null, false ) == or
+			new NotPredicate<Object>( new AndPredicate<Object>( ps ) ).match( info, null, true ) == !and
+		where:
+			values                  |   and     |   or
+			[]                      |   true    |   false
+			[true, true]            |   true    |   true
+			[true, false]           |   false   |   true
+			[false, false]          |   false   |   false
+	}
+
+	def "Cheapest first"() {
+		given:
+			def expensive = new p( false, Predicate.COST_CLASS_LOADING )
+			def cheap = new p( false, Predicate.COST_METADATA )
+			def and = PredicateFactory.and( expensive, cheap )
+		expect:
+			and.children() as List == [cheap, expensive]
+			!and.match( info, null, false )
+			cheap.calls == 1
+			expensive.calls == 0
+			and.cost() == Predicate.COST_CLASS_LOADING + Predicate.COST_METADATA
+	}
+
+	def "Flatten"() {
+		given:
+			def a = new p( true, 3 )
+			def b = new p( true, 2 )
+			def c = new p( true, 1 )
+		expect:
+			new AndPredicate<Object>( a, new AndPredicate<Object>( b, c ) ).children() as List == [c, b, a]
+			new AndPredicate<Object>( a, new OrPredicate<Object>( b, c ) ).children().length == 2
+	}
+
+	def "Composite children in junction mode"() {
+		given:
+			def types = PredicateFactory.forType( "type", "other" )
+		expect:
+			PredicateFactory.or( types ).match( info, null, false )
+			!PredicateFactory.and( types ).match( info, null, true )
+			PredicateFactory.not( PredicateFactory.and( types ) ).match( info, null, true )
+	}
+
+	def "Null"() {
+		when:
+			new OrPredicate<Object>( new p( true, 1 ), null )
+		then:
+			thrown( NullPointerException )
+	}
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.toxbee.fimpl.predicates
+
+import se.toxbee.fimpl.ImplementationResultSet
+import se.toxbee.fimpl.common.ImplementationInformation
+import spock.lang.Specification
+
+import java.util.regex.Pattern
+
+class PredicateOptimizerTest extends Specification {
+	def "Costs"() {
+		expect:
+			PredicateFactory.forType( "t" ).cost() == Predicate.COST_METADATA
+			PredicateFactory.forClassName( "a", "b" ).cost() == Predicate.COST_METADATA
+			PredicateFactory.forType( Pattern.compile( "t[0-9]" ) ).cost() == Predicate.COST_METADATA + Predicate.COST_REGEX
+			PredicateFactory.forType( Pattern.compile( "t.*" ) ).cost() == Predicate.COST_METADATA + Predicate.COST_STRING
+			PredicateFactory.forType( Pattern.compile( "t" ) ).cost() == Predicate.COST_METADATA
+			PredicateFactory.forInterface( Runnable ).cost() == Predicate.COST_CLASS_LOADING
+			new EqualsPredicate( new TypeTransformer() {}, "t" ).cost() == Predicate.COST_METADATA
+			new EqualsPredicate( new PredicateInputTransformer() {
+				Object transformForPredicate( ImplementationInformation info, ImplementationResultSet set ) { null }
+			}, "t" ).cost() == Predicate.COST_UNKNOWN
+			PredicateOptimizer.cost( [PredicateFactory.forType( "t" ), PredicateFactory.forInterface( Runnable )] as Predicate[] ) ==
+				Predicate.COST_METADATA + Predicate.COST_CLASS_LOADING
+	}
+
+	def "Optimize"() {
+		given:
+			def iface = PredicateFactory.forInterface( Runnable )
+			def regex = PredicateFactory.forType( Pattern.compile( "t[0-9]" ) )
+			def type1 = PredicateFactory.forType( "a" )
+			def type2 = PredicateFactory.forType( "b" )
+			def ordered = [type1, type2, regex, iface] as Predicate[]
+		expect:
+			PredicateOptimizer.optimize( [iface, type1, regex, type2] as Predicate[] ) as List == ordered as List
+			PredicateOptimizer.optimize( ordered ).is( ordered )
+			PredicateOptimizer.optimize( [] as Predicate[] ).length == 0
+	}
+}
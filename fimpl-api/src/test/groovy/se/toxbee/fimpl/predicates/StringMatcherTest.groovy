@@ -0,0 +1,101 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.toxbee.fimpl.predicates
+
+import spock.lang.Specification
+
+import java.util.regex.Pattern
+
+import static se.toxbee.fimpl.predicates.StringMatcher.Kind.*
+
+class StringMatcherTest extends Specification {
+	def inputs = ["", "a", "image/", "image/gif", "image/\ngif", "\n", "com.acme.Foo", "comXacme.Foo", "x.acme.y", ".acme.",
+			"acme", "gif", "a b", "image/\u0085", "text/image/"]
+
+	def "Compile"() {
+		given:
+			def pattern = Pattern.compile( regex, flags )
+			def matcher = StringMatcher.compile( pattern )
+		expect:
+			matcher.kind() == kind
+			inputs.every { matcher.matches( it ) == pattern.matcher( it ).matches() }
+		where:
+			regex               | flags                           | kind
+			"image/gif"         | 0                               | LITERAL
+			""                  | 0                               | LITERAL
+			"image/.*"          | 0                               | PREFIX
+			"image/.*"          | Pattern.DOTALL                  | PREFIX
+			".*gif"             | 0                               | SUFFIX
+			"image/.*gif"       | 0                               | PREFIX_SUFFIX
+			"image/.*.*gif"     | Pattern.DOTALL                  | PREFIX_SUFFIX
+			".*\\.acme\\..*"    | 0                               | CONTAINS
+			".*\\.acme\\..*"    | Pattern.DOTALL                  | CONTAINS
+			".*\n.*"            | 0                               | CONTAINS
+			"com\\.acme\\..*"   | 0                               | PREFIX
+			"\\Qcom.acme.\\E.*" | 0                               | PREFIX
+			".*"                | 0                               | ANY
+			".*.*"              | Pattern.DOTALL                  | ANY
+			"^text/.+\$"        | 0                               | REGEX
+			"image/[a-z]+"      | 0                               | REGEX
+			"a.*b.*c"           | 0                               | REGEX
+			"\\d"               | 0                               | REGEX
+			"image/.*?"         | 0                               | REGEX
+			"image/.*"          | Pattern.CASE_INSENSITIVE        | REGEX
+			"a|b"               | 0                               | REGEX
+	}
+
+	def "Literal"() {
+		expect:
+			StringMatcher.compile( ~/a\.b/ ).literal() == "a.b"
+			StringMatcher.compile( ~/a.*/ ).literal() == null
+	}
+
+	def "Glob"() {
+		expect:
+			StringMatcher.glob( glob ).kind() == kind
+			StringMatcher.glob( glob ).matches( input ) == match
+		where:
+			glob            | input             | kind          | match
+			"image/*"       | "image/gif"       | PREFIX        | true
+			"image/*"       | "image/\ngif"     | PREFIX        | true
+			"image/*"       | "text/plain"      | PREFIX        | false
+			"*.Foo"         | "com.acme.Foo"    | SUFFIX        | true
+			"com.*.Foo"     | "com.acme.Foo"    | PREFIX_SUFFIX | true
+			"com.*.Foo"     | "comXacme.Foo"    | PREFIX_SUFFIX | false
+			"*acme*"        | "com.acme.Foo"    | CONTAINS      | true
+			"a\\*b"         | "a*b"             | LITERAL       | true
+			"a\\*b"         | "aXb"             | LITERAL       | false
+			"image/g?f"     | "image/gif"       | REGEX         | true
+			"image/g?f"     | "image/giif"      | REGEX         | false
+			"[a]"           | "[a]"             | LITERAL       | true
+			"\\\\E*"        | "\\Ex"            | PREFIX        | true
+			"\\E*"          | "Ex"              | PREFIX        | true
+	}
+
+	def "Regex fallback is reusable across threads"() {
+		given:
+			def matcher = StringMatcher.compile( ~/t[0-9]+/ )
+			def results = Collections.synchronizedList( [] )
+			def threads = (0..3).collect { n -> Thread.start { 100.times { results << matcher.matches( "t${n}${it}" ) } } }
+		when:
+			threads*.join()
+		then:
+			results.size() == 400
+			results.every()
+			!matcher.matches( "tx" )
+	}
+}
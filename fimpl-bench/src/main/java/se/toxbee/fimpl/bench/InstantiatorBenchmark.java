@@ -0,0 +1,77 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.toxbee.fimpl.bench;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.toxbee.fimpl.ImplementationInstantiator;
+import se.toxbee.fimpl.impl.MethodHandleInstantiator;
+
+/**
+ * <p>InstantiatorBenchmark measures creating instances of a loaded class,<br/>
+ * through {@link MethodHandleInstantiator} vs plain reflection.</p>
+ *
+ * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
+ * @version 1.0
+ * @since Mar, 04, 2014
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class InstantiatorBenchmark {
+	private final ImplementationInstantiator instantiator = MethodHandleInstantiator.INSTANCE;
+	private final Class<? extends Iterable<?>> clazz = cast( ArrayList.class );
+	private final Object[] args = { 16 };
+
+	@SuppressWarnings("unchecked")
+	private static Class<? extends Iterable<?>> cast( Class<?> c ) {
+		return (Class<? extends Iterable<?>>) c;
+	}
+
+	@Benchmark
+	public Object handleNoArgs() {
+		return this.instantiator.instantiate( this.clazz );
+	}
+
+	@Benchmark
+	public Object handleArgs() {
+		return this.instantiator.instantiate( this.clazz, this.args );
+	}
+
+	@Benchmark
+	public Object reflectionNoArgs() throws Exception {
+		return this.clazz.newInstance();
+	}
+
+	@Benchmark
+	public Object reflectionArgs() throws Exception {
+		return this.clazz.getConstructor( int.class ).newInstance( this.args );
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.toxbee.fimpl.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.toxbee.fimpl.common.ImplementationInformation;
+import se.toxbee.fimpl.impl.StandardClassLoader;
+
+/**
+ * <p>LoaderBenchmark measures StandardClassLoader.loadImplementation.</p>
+ *
+ * <p>Hits load a class that exists and is of the target type,<br/>
+ * misses load a class that doesn't exist. "fresh" variants use a new loader<br/>
+ * for every invocation, so nothing is cached by the loader itself.</p>
+ *
+ * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
+ * @version 1.0
+ * @since Feb, 24, 2014
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class LoaderBenchmark {
+	private final ImplementationInformation hit = new ImplementationInformation.Impl( "java.util.ArrayList" );
+	private final ImplementationInformation miss = new ImplementationInformation.Impl( "com.example.Missing" );
+
+	private ClassLoader classLoader;
+	private StandardClassLoader loader;
+
+	@Setup
+	public void setup() {
+		this.classLoader = LoaderBenchmark.class.getClassLoader();
+		this.loader = new StandardClassLoader( this.classLoader );
+	}
+
+	@Benchmark
+	@SuppressWarnings("rawtypes")
+	public Class<? extends List> hit() {
+		return this.loader.loadImplementation( this.hit, List.class );
+	}
+
+	@Benchmark
+	@SuppressWarnings("rawtypes")
+	public Class<? extends List> miss() {
+		return this.loader.loadImplementation( this.miss, List.class );
+	}
+
+	/**
+	 * Loads every entry of the registry, none of which exist.
+	 */
+	@Benchmark
+	public int missRegistry( Registry reg ) {
+		int n = 0;
+		for ( ImplementationInformation info : reg.infos ) {
+			if ( this.loader.loadImplementation( info, Registry.Service.class ) == null ) {
+				++n;
+			}
+		}
+
+		return n;
+	}
+
+	@Benchmark
+	@SuppressWarnings("rawtypes")
+	public Class<? extends List> hitFresh() {
+		return new StandardClassLoader( this.classLoader ).loadImplementation( this.hit, List.class );
+	}
+
+	@Benchmark
+	@SuppressWarnings("rawtypes")
+	public Class<? extends List> missFresh() {
+		return new StandardClassLoader( this.classLoader ).loadImplementation( this.miss, List.class );
+	}
+}
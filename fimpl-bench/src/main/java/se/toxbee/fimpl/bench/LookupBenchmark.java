@@ -0,0 +1,78 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.toxbee.fimpl.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import se.toxbee.fimpl.common.ImplementationInformation;
+import se.toxbee.fimpl.metainf.MetainfLookupProvider;
+import se.toxbee.fimpl.metainf.MetainfReader;
+
+/**
+ * LookupBenchmark measures finding the index files of an "interface" on the classpath.
+ *
+ * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
+ * @version 1.0
+ * @since Feb, 24, 2014
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LookupBenchmark {
+	/**
+	 * MetainfLookupProvider.interfaceLookupStream, opening + closing every stream.
+	 */
+	@Benchmark
+	public int interfaceLookupStream( Registry reg ) throws IOException {
+		MetainfLookupProvider provider = new MetainfLookupProvider( reg.classLoader, Registry.BASE );
+		Iterator<InputStream> iter = provider.interfaceLookupStream( Registry.Service.class );
+
+		int n = 0;
+		while ( iter.hasNext() ) {
+			iter.next().close();
+			++n;
+		}
+
+		return n;
+	}
+
+	/**
+	 * The whole read: lookup + parsing via MetainfReader.
+	 */
+	@Benchmark
+	public void readImplementationCollection( Registry reg, Blackhole bh ) {
+		MetainfReader reader = new MetainfReader( reg.classLoader, Registry.BASE );
+		Iterator<ImplementationInformation> iter = reader.readImplementationCollection( Registry.Service.class );
+
+		while ( iter.hasNext() ) {
+			bh.consume( iter.next() );
+		}
+	}
+}
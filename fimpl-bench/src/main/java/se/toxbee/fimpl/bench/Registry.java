@@ -0,0 +1,169 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.toxbee.fimpl.bench;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ByteArrayInputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import se.toxbee.fimpl.ImplementationFactory;
+import se.toxbee.fimpl.ImplementationFinder;
+import se.toxbee.fimpl.ImplementationReader;
+import se.toxbee.fimpl.common.ImplementationInformation;
+import se.toxbee.fimpl.common.Util;
+import se.toxbee.fimpl.impl.ImplementationFactoryImpl;
+import se.toxbee.fimpl.impl.StandardClassLoader;
+
+/**
+ * <p>Registry is the shared benchmark state: a synthetic registry of implementations.</p>
+ *
+ * <p>{@link #size} entries are spread over {@link #roots} classpath roots,<br/>
+ * each root is a directory with a <tt>META-INF/services/</tt> file for {@link Service}.<br/>
+ * The same entries are also kept in memory, as service file contents and as parsed infos.</p>
+ *
+ * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
+ * @version 1.0
+ * @since Feb, 24, 2014
+ */
+@State(Scope.Benchmark)
+public class Registry {
+	/**
+	 * The "interface" of the registry.
+	 */
+	public interface Service {}
+
+	/**
+	 * Number of distinct types in the registry, entry i has type "type/{i % TYPES}".
+	 */
+	public static final int TYPES = 16;
+
+	public static final String BASE = "META-INF/services/";
+
+	@Param({ "10", "100", "1000" })
+	public int size;
+
+	@Param({ "1", "16" })
+	public int roots;
+
+	public File dir;
+	public URLClassLoader classLoader;
+
+	public byte[][] files;
+	public List<ImplementationInformation> infos;
+	public List<ImplementationInformation> shuffled;
+
+	public ImplementationFactory factory;
+	public ImplementationFinder finder;
+
+	@Setup
+	public void setup() throws IOException {
+		this.dir = File.createTempFile( "fimpl-bench", "" );
+		delete( this.dir );
+
+		this.files = new byte[this.roots][];
+		this.infos = new ArrayList<ImplementationInformation>( this.size );
+
+		URL[] urls = new URL[this.roots];
+		for ( int r = 0; r < this.roots; ++r ) {
+			StringBuilder buf = new StringBuilder();
+
+			for ( int i = r; i < this.size; i += this.roots ) {
+				String clazz = "com.example.impl" + r + ".Impl" + i;
+				String type = "type/" + (i % TYPES);
+				int prio = i % 101 - 50;
+
+				buf.append( clazz ).append( '\t' ).append( prio ).append( '\t' ).append( type ).append( "\textras\n" );
+				this.infos.add( new ImplementationInformation.Impl( clazz, prio, type, "extras" ) );
+			}
+
+			this.files[r] = buf.toString().getBytes( Util.CHARSET );
+
+			File root = new File( this.dir, "root" + r );
+			File services = new File( root, BASE );
+			if ( !services.mkdirs() ) {
+				throw new IOException( "Could not create: " + services );
+			}
+
+			FileOutputStream out = new FileOutputStream( new File( services, Service.class.getName() ) );
+			try {
+				out.write( this.files[r] );
+			} finally {
+				out.close();
+			}
+
+			urls[r] = root.toURI().toURL();
+		}
+
+		this.shuffled = new ArrayList<ImplementationInformation>( this.infos );
+		Collections.shuffle( this.shuffled, new Random( 1337 ) );
+
+		this.classLoader = new URLClassLoader( urls, Registry.class.getClassLoader() );
+
+		this.factory = new ImplementationFactoryImpl( new StandardClassLoader( this.classLoader ), new ImplementationReader() {
+			@Override
+			public <I> Iterator<ImplementationInformation> readImplementationCollection( Class<I> interfase ) {
+				return shuffled.iterator();
+			}
+		} );
+		this.finder = new ImplementationFinder( this.factory );
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		this.classLoader.close();
+		delete( this.dir );
+	}
+
+	/**
+	 * Returns the in-memory service files as fresh streams.
+	 *
+	 * @return the streams.
+	 */
+	public Iterator<InputStream> streams() {
+		List<InputStream> streams = new ArrayList<InputStream>( this.files.length );
+		for ( byte[] file : this.files ) {
+			streams.add( new ByteArrayInputStream( file ) );
+		}
+
+		return streams.iterator();
+	}
+
+	private static void delete( File f ) {
+		File[] children = f.listFiles();
+		if ( children != null ) {
+			for ( File c : children ) {
+				delete( c );
+			}
+		}
+
+		f.delete();
+	}
+}
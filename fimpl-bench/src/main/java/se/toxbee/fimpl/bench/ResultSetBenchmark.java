@@ -0,0 +1,107 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.toxbee.fimpl.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.toxbee.fimpl.ImplementationResultSet.Impl;
+import se.toxbee.fimpl.bench.Registry.Service;
+import se.toxbee.fimpl.predicates.Predicate;
+import se.toxbee.fimpl.predicates.PredicateFactory;
+
+/**
+ * <p>ResultSetBenchmark measures ImplementationResultSet:<br/>
+ * construction (including sorting), copying, joining and each filter mode.</p>
+ *
+ * <p>Filters run on a copy of a base set, like a caching finder would hand out.</p>
+ *
+ * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
+ * @version 1.0
+ * @since Feb, 24, 2014
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class ResultSetBenchmark {
+	private Impl<Service> base;
+	private Impl<Service> other;
+	private Predicate<Service> type;
+	private Predicate<Service> types;
+
+	@Setup
+	public void setup( Registry reg ) {
+		this.base = reg.finder.find( Service.class );
+		this.other = reg.finder.find( Service.class );
+		this.type = PredicateFactory.forType( "type/0" );
+		this.types = PredicateFactory.forType( "type/0", "type/1", "type/2", "type/3" );
+	}
+
+	/**
+	 * Construction from an unordered iterator: de-duplication + sorting.
+	 */
+	@Benchmark
+	public Impl<Service> construct( Registry reg ) {
+		return reg.finder.find( Service.class );
+	}
+
+	@Benchmark
+	public Impl<Service> copy() {
+		return this.base.copy();
+	}
+
+	@Benchmark
+	public Impl<Service> join() {
+		return this.base.copy().join( this.other );
+	}
+
+	@Benchmark
+	@SuppressWarnings("unchecked")
+	public Impl<Service> retainAny() {
+		return this.base.copy().retainAny( this.type, this.types );
+	}
+
+	@Benchmark
+	@SuppressWarnings("unchecked")
+	public Impl<Service> removeAny() {
+		return this.base.copy().removeAny( this.type, this.types );
+	}
+
+	@Benchmark
+	@SuppressWarnings("unchecked")
+	public Impl<Service> retainAll() {
+		return this.base.copy().retainAll( this.type, this.types );
+	}
+
+	@Benchmark
+	@SuppressWarnings("unchecked")
+	public Impl<Service> removeAll() {
+		return this.base.copy().removeAll( this.type, this.types );
+	}
+}
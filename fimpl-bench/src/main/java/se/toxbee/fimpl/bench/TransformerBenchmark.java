@@ -0,0 +1,88 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.toxbee.fimpl.bench;
+
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import se.toxbee.fimpl.common.ImplementationInformation;
+import se.toxbee.fimpl.metainf.MetainfTransformer;
+
+/**
+ * TransformerBenchmark measures parsing in-memory index files.
+ *
+ * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
+ * @version 1.0
+ * @since Feb, 24, 2014
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class TransformerBenchmark {
+	private final MetainfTransformer transformer = new MetainfTransformer();
+	private final MetainfTransformer parallel = new MetainfTransformer();
+	private ForkJoinPool pool;
+
+	@Setup
+	public void setup() {
+		this.pool = new ForkJoinPool();
+		this.parallel.setExecutor( this.pool );
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.pool.shutdown();
+	}
+
+	/**
+	 * MetainfTransformer.readImplementationCollection over all service files.
+	 */
+	@Benchmark
+	public void readImplementationCollection( Registry reg, Blackhole bh ) {
+		consume( this.transformer.readImplementationCollection( reg.streams() ), bh );
+	}
+
+	/**
+	 * Same as {@link #readImplementationCollection(Registry, Blackhole)}, one task per file.
+	 */
+	@Benchmark
+	public void readImplementationCollectionParallel( Registry reg, Blackhole bh ) {
+		consume( this.parallel.readImplementationCollection( reg.streams() ), bh );
+	}
+
+	private static void consume( Iterator<ImplementationInformation> iter, Blackhole bh ) {
+		while ( iter.hasNext() ) {
+			bh.consume( iter.next() );
+		}
+	}
+}
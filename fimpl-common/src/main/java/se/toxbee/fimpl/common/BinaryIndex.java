@@ -0,0 +1,345 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.toxbee.fimpl.common;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * <p>BinaryIndex is a compact binary index of implementations for many "interfaces".</p>
+ *
+ * <p>Layout, all integers are big-endian:</p>
+ * <pre>
+ * header:      int magic, short version
+ * strings:     int count, int[count + 1] offsets into data, int dataLength, byte[dataLength] data (UTF-8)
+ * interfaces:  int count, count * (int name, int firstEntry, int entryCount)
+ * entries:     int count, count * (int implementorClass, int priority, int type, int extras)
+ *              version 2 adds: int supertypes, joined by {@link ImplementationInformation.Impl#SUPERTYPE_SEPARATOR}
+ * </pre>
+ *
+ * <p>Strings are referred to by their index in the string table, -1 means null.<br/>
+ * The entries of an interface are contiguous and sorted by priority, highest first.<br/>
+ * Version 1 is written unless some implementation has {@link ImplementationInformation#getSupertypes()}.</p>
+ *
+ * <p>Reading only decodes the interface names up front, everything else is decoded<br/>
+ * on demand straight from the buffer - which may well be memory-mapped.</p>
+ *
+ * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
+ * @version 1.0
+ * @since Feb, 27, 2014
+ */
+public class BinaryIndex {
+	public static final int MAGIC = 0x46494D58; // "FIMX"
+	public static final short VERSION = 2;
+
+	private static final short BASIC_VERSION = 1;
+	private static final int BASIC_ENTRY_SIZE = 16;
+	private static final int ENTRY_SIZE = 20;
+
+	private final ByteBuffer buf;
+	private final short version;
+	private final int entrySize;
+	private final int stringOffsets;
+	private final int stringData;
+	private final int entries;
+	private final String[] strings;
+	private final Map<String, int[]> interfaces;
+
+	/**
+	 * Reads an index from a buffer, from its current position.<br/>
+	 * The buffer is not copied and must not be modified afterwards.
+	 *
+	 * @param buffer the buffer to read.
+	 * @throws IllegalArgumentException if the buffer doesn't contain an index of a known version, or is truncated.
+	 */
+	public BinaryIndex( ByteBuffer buffer ) {
+		ByteBuffer buf = buffer.slice();
+
+		if ( buf.remaining() < 6 || buf.getInt() != MAGIC ) {
+			throw new IllegalArgumentException( "Not a binary implementation index." );
+		}
+
+		short version = buf.getShort();
+		if ( version != VERSION && version != BASIC_VERSION ) {
+			throw new IllegalArgumentException( "Unsupported binary implementation index version: " + version );
+		}
+
+		this.version = version;
+		this.entrySize = version == BASIC_VERSION ? BASIC_ENTRY_SIZE : ENTRY_SIZE;
+
+		// String table.
+		int stringCount = buf.getInt();
+		this.strings = new String[stringCount];
+		this.stringOffsets = buf.position();
+		buf.position( this.stringOffsets + 4 * (stringCount + 1) );
+		int dataLength = buf.getInt();
+		this.stringData = buf.position();
+		buf.position( this.stringData + dataLength );
+
+		// Interface table.
+		this.buf = buf;
+		int interfaceCount = buf.getInt();
+		Map<String, int[]> interfaces = new HashMap<String, int[]>( interfaceCount * 2 );
+		for ( int i = 0; i < interfaceCount; ++i ) {
+			String name = this.string( buf.getInt() );
+			interfaces.put( name, new int[] { buf.getInt(), buf.getInt() } );
+		}
+		this.interfaces = Collections.unmodifiableMap( interfaces );
+
+		// Entries, decoded on demand - so check that they are all there now.
+		int entryCount = buf.getInt();
+		if ( (long) entryCount * this.entrySize > buf.remaining() ) {
+			throw new IllegalArgumentException( "Truncated binary implementation index." );
+		}
+		for ( int[] range : interfaces.values() ) {
+			if ( range[0] < 0 || range[1] < 0 || (long) range[0] + range[1] > entryCount ) {
+				throw new IllegalArgumentException( "Truncated binary implementation index." );
+			}
+		}
+		this.entries = buf.position();
+	}
+
+	/**
+	 * Returns the version of the index format that was read.
+	 *
+	 * @return the version.
+	 */
+	public short version() {
+		return this.version;
+	}
+
+	/**
+	 * Returns the names of all "interfaces" in the index.
+	 *
+	 * @return the names.
+	 */
+	public Set<String> interfaces() {
+		return this.interfaces.keySet();
+	}
+
+	/**
+	 * Returns whether or not the index has an entry for an "interface".
+	 *
+	 * @param interfase the name of the interface.
+	 * @return true if it has.
+	 */
+	public boolean contains( String interfase ) {
+		return this.interfaces.containsKey( interfase );
+	}
+
+	/**
+	 * Returns the number of implementations of an "interface".
+	 *
+	 * @param interfase the name of the interface.
+	 * @return the number, 0 if not in the index.
+	 */
+	public int count( String interfase ) {
+		int[] range = this.interfaces.get( interfase );
+		return range == null ? 0 : range[1];
+	}
+
+	/**
+	 * Reads the implementations of an "interface", highest priority first.
+	 *
+	 * @param interfase the name of the interface.
+	 * @param out the collection to add the implementations to.
+	 * @param <C> the type of the collection.
+	 * @return out.
+	 */
+	public <C extends Collection<? super ImplementationInformation>> C read( String interfase, C out ) {
+		int[] range = this.interfaces.get( interfase );
+		if ( range != null ) {
+			for ( int i = range[0], end = range[0] + range[1]; i < end; ++i ) {
+				out.add( this.entry( i ) );
+			}
+		}
+
+		return out;
+	}
+
+	/**
+	 * Returns the bytes of the entries of an "interface" as a read-only buffer.
+	 *
+	 * @param interfase the name of the interface.
+	 * @return the buffer, empty if not in the index.
+	 */
+	public ByteBuffer entryBytes( String interfase ) {
+		int[] range = this.interfaces.get( interfase );
+		ByteBuffer b = this.buf.asReadOnlyBuffer();
+		if ( range == null ) {
+			b.limit( 0 );
+		} else {
+			b.position( this.entries + range[0] * this.entrySize );
+			b.limit( b.position() + range[1] * this.entrySize );
+		}
+
+		return b.slice();
+	}
+
+	private ImplementationInformation entry( int i ) {
+		int pos = this.entries + i * this.entrySize;
+		return new ImplementationInformation.Impl(
+				this.string( this.buf.getInt( pos ) ),
+				this.buf.getInt( pos + 4 ),
+				this.string( this.buf.getInt( pos + 8 ) ),
+				this.string( this.buf.getInt( pos + 12 ) ),
+				this.entrySize == BASIC_ENTRY_SIZE ? null : ImplementationInformation.Impl.parseSupertypes( this.string( this.buf.getInt( pos + 16 ) ) ) );
+	}
+
+	private String string( int i ) {
+		if ( i < 0 ) {
+			return null;
+		}
+
+		// Racy but benign, String is immutable.
+		String s = this.strings[i];
+		if ( s == null ) {
+			int from = this.buf.getInt( this.stringOffsets + 4 * i );
+			int to = this.buf.getInt( this.stringOffsets + 4 * (i + 1) );
+			this.strings[i] = s = decode( this.buf, this.stringData + from, to - from );
+		}
+
+		return s;
+	}
+
+	private static String decode( ByteBuffer buf, int pos, int len ) {
+		if ( buf.hasArray() ) {
+			return new String( buf.array(), buf.arrayOffset() + pos, len, Util.CHARSET );
+		}
+
+		byte[] bytes = new byte[len];
+		ByteBuffer d = buf.duplicate();
+		d.position( pos );
+		d.get( bytes );
+		return new String( bytes, Util.CHARSET );
+	}
+
+	/* ----------------------------------------------
+	 * Writing.
+	 * ----------------------------------------------
+	 */
+
+	/**
+	 * Writes an index of the given "interfaces" and their implementations.<br/>
+	 * The implementations need not be sorted.
+	 *
+	 * @param data map of interface name -> implementations.
+	 * @param out the stream to write to, it is not closed.
+	 * @throws IOException if writing fails.
+	 */
+	public static void write( Map<String, ? extends Collection<? extends ImplementationInformation>> data, OutputStream out ) throws IOException {
+		StringTable strings = new StringTable();
+		ByteArrayOutputStream interfaceBytes = new ByteArrayOutputStream();
+		ByteArrayOutputStream entryBytes = new ByteArrayOutputStream();
+		DataOutputStream interfaceOut = new DataOutputStream( interfaceBytes );
+		DataOutputStream entryOut = new DataOutputStream( entryBytes );
+
+		// Sort interfaces by name so that the output is deterministic.
+		Map<String, Collection<? extends ImplementationInformation>> sorted = new TreeMap<String, Collection<? extends ImplementationInformation>>( data );
+
+		// Only pay for supertypes when there are any.
+		boolean supertypes = false;
+		for ( Collection<? extends ImplementationInformation> infos : sorted.values() ) {
+			for ( ImplementationInformation info : infos ) {
+				supertypes |= info.getSupertypes() != null;
+			}
+		}
+
+		int entryCount = 0;
+		for ( Map.Entry<String, Collection<? extends ImplementationInformation>> e : sorted.entrySet() ) {
+			List<ImplementationInformation> infos = new ArrayList<ImplementationInformation>( e.getValue() );
+			Collections.sort( infos );
+
+			interfaceOut.writeInt( strings.index( e.getKey() ) );
+			interfaceOut.writeInt( entryCount );
+			interfaceOut.writeInt( infos.size() );
+
+			for ( ImplementationInformation info : infos ) {
+				Object extras = info.getExtras();
+				entryOut.writeInt( strings.index( info.getImplementorClass() ) );
+				entryOut.writeInt( info.getPriority() );
+				entryOut.writeInt( strings.index( info.getType() ) );
+				entryOut.writeInt( strings.index( extras == null ? null : extras.toString() ) );
+				if ( supertypes ) {
+					entryOut.writeInt( strings.index( ImplementationInformation.Impl.joinSupertypes( info.getSupertypes() ) ) );
+				}
+			}
+
+			entryCount += infos.size();
+		}
+
+		DataOutputStream dout = new DataOutputStream( out );
+		dout.writeInt( MAGIC );
+		dout.writeShort( supertypes ? VERSION : BASIC_VERSION );
+		strings.write( dout );
+		dout.writeInt( sorted.size() );
+		interfaceBytes.writeTo( dout );
+		dout.writeInt( entryCount );
+		entryBytes.writeTo( dout );
+		dout.flush();
+	}
+
+	/**
+	 * De-duplicating string table used when writing.
+	 */
+	private static class StringTable {
+		private final Map<String, Integer> indices = new HashMap<String, Integer>();
+		private final List<byte[]> strings = new ArrayList<byte[]>();
+		private int length;
+
+		int index( String s ) {
+			if ( s == null ) {
+				return -1;
+			}
+
+			Integer i = this.indices.get( s );
+			if ( i == null ) {
+				byte[] bytes = s.getBytes( Util.CHARSET );
+				this.indices.put( s, i = this.strings.size() );
+				this.strings.add( bytes );
+				this.length += bytes.length;
+			}
+
+			return i;
+		}
+
+		void write( DataOutputStream out ) throws IOException {
+			out.writeInt( this.strings.size() );
+
+			int offset = 0;
+			out.writeInt( offset );
+			for ( byte[] s : this.strings ) {
+				out.writeInt( offset += s.length );
+			}
+
+			out.writeInt( this.length );
+			for ( byte[] s : this.strings ) {
+				out.write( s );
+			}
+		}
+	}
+}
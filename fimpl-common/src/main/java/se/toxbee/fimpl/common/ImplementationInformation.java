@@ -15,6 +15,10 @@
  */
 package se.toxbee.fimpl.common;
 
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 /**
  * ImplementationInformation provides information about classes that implement an "interface".
  *
@@ -61,6 +65,22 @@ public abstract class ImplementationInformation implements Comparable<Implementa
 	 */
 	abstract public Object getExtras();
 
+	/* -----------------
+	 * Optional methods:
+	 * -----------------
+	 */
+
+	/**
+	 * Returns the fully qualified names of all the supertypes of the implementing class,<br/>
+	 * transitively, excluding itself and java.lang.Object.
+	 * Is null unless recorded, for example by the annotation processor.
+	 *
+	 * @return the supertypes, or null if unknown.
+	 */
+	public Set<String> getSupertypes() {
+		return null;
+	}
+
 	/* -------------------------
 	 * Enforced implementations:
 	 * -------------------------
@@ -105,22 +125,77 @@ public abstract class ImplementationInformation implements Comparable<Implementa
 	}
 
 	/**
-	 * Basic field based implementation of {@link se.toxbee.fimpl.common.ImplementationInformation}.
+	 * Basic field based implementation of {@link se.toxbee.fimpl.common.ImplementationInformation}.<br/>
+	 * The strings are de-duplicated through {@link StringPool#shared()}.
 	 *
 	 * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
 	 * @version 1.0
 	 * @since Jan, 24, 2014
 	 */
 	public static class Impl extends ImplementationInformation {
+		/**
+		 * Separates the names of supertypes in their string form.
+		 */
+		public static final char SUPERTYPE_SEPARATOR = ',';
+
 		protected final String implementorClass;
 		protected final int priority;
 		protected final String type;
 		protected final Object extras;
+		protected final Set<String> supertypes;
+
+		/**
+		 * Parses supertypes joined by {@link #SUPERTYPE_SEPARATOR}.
+		 *
+		 * @param joined the joined names, may be null.
+		 * @return the supertypes, or null if joined is null or empty.
+		 */
+		public static Set<String> parseSupertypes( String joined ) {
+			if ( joined == null || joined.isEmpty() ) {
+				return null;
+			}
+
+			Set<String> set = new LinkedHashSet<String>();
+			for ( int s = 0, p; s <= joined.length(); s = p + 1 ) {
+				p = joined.indexOf( SUPERTYPE_SEPARATOR, s );
+				if ( p < 0 ) {
+					p = joined.length();
+				}
+
+				if ( p > s ) {
+					set.add( StringPool.shared().intern( joined.substring( s, p ) ) );
+				}
+			}
+
+			return Collections.unmodifiableSet( set );
+		}
+
+		/**
+		 * Joins supertypes with {@link #SUPERTYPE_SEPARATOR}.
+		 *
+		 * @param supertypes the supertypes, may be null.
+		 * @return the joined names, or null if supertypes is null.
+		 */
+		public static String joinSupertypes( Set<String> supertypes ) {
+			if ( supertypes == null ) {
+				return null;
+			}
+
+			StringBuilder buf = new StringBuilder();
+			for ( String name : supertypes ) {
+				if ( buf.length() > 0 ) {
+					buf.append( SUPERTYPE_SEPARATOR );
+				}
+				buf.append( name );
+			}
+
+			return buf.toString();
+		}
 
 		/**
 		 * Constructs info from a series of strings.
 		 * Any length >= 1 is allowed.
-		 * Array layout: [implementorClass, (priority, (type, (extras)))]
+		 * Array layout: [implementorClass, (priority, (type, (extras, (supertypes))))]
 		 *
 		 * @param strings the array of string data.
 		 * @return null if strings is null or empty.
@@ -144,7 +219,7 @@ public abstract class ImplementationInformation implements Comparable<Implementa
 					data[0] = strings[0];
 			}
 
-			return new Impl( data );
+			return new Impl( data, strings.length > 4 ? parseSupertypes( strings[4] ) : null );
 		}
 
 		/**
@@ -186,11 +261,28 @@ public abstract class ImplementationInformation implements Comparable<Implementa
 		 * @param extras optional extra data.
 		 */
 		public Impl( String implementorClass, int priority, String type, Object extras ) {
+			this( implementorClass, priority, type, extras, null );
+		}
+
+		/**
+		 * Constructs the information entity with implementorClass, priority, optional type, extras and supertypes.
+		 *
+		 * @param implementorClass the relative or fully qualified name of the implementing class.
+		 * @param priority the priority in chain of information entity.
+		 * @param type optional type.
+		 * @param extras optional extra data.
+		 * @param supertypes optional supertypes, see {@link #getSupertypes()}.
+		 */
+		public Impl( String implementorClass, int priority, String type, Object extras, Set<String> supertypes ) {
 			super( implementorClass );
-			this.implementorClass = implementorClass;
+
+			// The same names & types recur a lot, keep one of each.
+			StringPool pool = StringPool.shared();
+			this.implementorClass = pool.intern( implementorClass );
 			this.priority = priority;
-			this.type = emptyAsNull( type );
-			this.extras = emptyAsNull( extras );
+			this.type = pool.intern( emptyAsNull( type ) );
+			this.extras = pool.internIfString( emptyAsNull( extras ) );
+			this.supertypes = supertypes;
 		}
 
 		private static <T> T emptyAsNull( T o ) {
@@ -203,7 +295,11 @@ public abstract class ImplementationInformation implements Comparable<Implementa
 		 * @param data the data array to construct from.
 		 */
 		public Impl( Object[] data ) {
-			this( (String) data[0], (Integer) (data[1] == null ? 0 : data[1]), (String) data[2], data[3] );
+			this( data, null );
+		}
+
+		private Impl( Object[] data, Set<String> supertypes ) {
+			this( (String) data[0], (Integer) (data[1] == null ? 0 : data[1]), (String) data[2], data[3], supertypes );
 		}
 
 		/**
@@ -212,7 +308,7 @@ public abstract class ImplementationInformation implements Comparable<Implementa
 		 * @param cpy the copy constructor.
 		 */
 		public Impl( ImplementationInformation cpy ) {
-			this( cpy.getImplementorClass(), cpy.getPriority(), cpy.getType(), cpy.getExtras() );
+			this( cpy.getImplementorClass(), cpy.getPriority(), cpy.getType(), cpy.getExtras(), cpy.getSupertypes() );
 		}
 
 		@Override
@@ -233,5 +329,10 @@ public abstract class ImplementationInformation implements Comparable<Implementa
 		public Object getExtras() {
 			return this.extras;
 		}
+
+		@Override
+		public Set<String> getSupertypes() {
+			return this.supertypes;
+		}
 	}
 }
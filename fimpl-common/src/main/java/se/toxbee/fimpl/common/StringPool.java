@@ -0,0 +1,130 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.toxbee.fimpl.common;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>StringPool de-duplicates strings, like {@link String#intern()} but bounded and<br/>
+ * without growing the JVM:s string table.</p>
+ *
+ * <p>The same class names, types and extras are parsed over and over again,<br/>
+ * from many files and on every lookup. With them pooled, each lives in memory once<br/>
+ * and equality checks mostly end at the <tt>==</tt> in {@link Util#equal(Object, Object)}.</p>
+ *
+ * <p>When the pool is full, strings not already in it are handed back as they are instead of pooled.<br/>
+ * The strings seen first, which for meta-data are those read the most, thus stay shared,<br/>
+ * and nothing is thrown away and pooled again over and over when there are more than fit.<br/>
+ * Pooling is only an optimization, {@link #clear()} starts over.</p>
+ *
+ * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
+ * @version 1.0
+ * @since Mar, 12, 2014
+ */
+public class StringPool {
+	public static final int DEFAULT_MAX_SIZE = 16 * 1024;
+
+	private static final StringPool SHARED = new StringPool( DEFAULT_MAX_SIZE );
+
+	private final ConcurrentMap<String, String> pool;
+	private final int maxSize;
+
+	/**
+	 * Constructs a pool.
+	 *
+	 * @param maxSize the maximum number of strings, 0 to not pool at all.
+	 */
+	public StringPool( int maxSize ) {
+		if ( maxSize < 0 ) {
+			throw new IllegalArgumentException( "maxSize must be >= 0." );
+		}
+
+		this.maxSize = maxSize;
+		this.pool = new ConcurrentHashMap<String, String>( Math.min( maxSize, 256 ) );
+	}
+
+	/**
+	 * Returns the pool shared by the parsers of meta-data and {@link ImplementationInformation.Impl}.
+	 *
+	 * @return the pool.
+	 */
+	public static StringPool shared() {
+		return SHARED;
+	}
+
+	/**
+	 * Returns the pooled string equal to s, pooling s if there is none and the pool isn't full.
+	 *
+	 * @param s the string, may be null.
+	 * @return the pooled string, s if not pooled, or null if s is null.
+	 */
+	public String intern( String s ) {
+		if ( s == null || this.maxSize == 0 ) {
+			return s;
+		}
+
+		String pooled = this.pool.get( s );
+		if ( pooled != null ) {
+			return pooled;
+		}
+
+		if ( this.pool.size() >= this.maxSize ) {
+			// Full, racing threads may overshoot by a few.
+			return s;
+		}
+
+		pooled = this.pool.putIfAbsent( s, s );
+		return pooled == null ? s : pooled;
+	}
+
+	/**
+	 * Returns the pooled object if o is a String, see {@link #intern(String)}, otherwise o.
+	 *
+	 * @param o the object, may be null.
+	 * @param <T> the type of o.
+	 * @return the pooled string or o.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T internIfString( T o ) {
+		return o instanceof String ? (T) this.intern( (String) o ) : o;
+	}
+
+	/**
+	 * Returns the number of pooled strings.
+	 *
+	 * @return the number.
+	 */
+	public int size() {
+		return this.pool.size();
+	}
+
+	/**
+	 * Returns the maximum number of pooled strings.
+	 *
+	 * @return the number.
+	 */
+	public int maxSize() {
+		return this.maxSize;
+	}
+
+	/**
+	 * Empties the pool.
+	 */
+	public void clear() {
+		this.pool.clear();
+	}
+}
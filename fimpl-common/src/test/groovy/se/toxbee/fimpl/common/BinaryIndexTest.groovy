@@ -0,0 +1,116 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.toxbee.fimpl.common
+
+import spock.lang.Specification
+
+import java.nio.ByteBuffer
+
+class BinaryIndexTest extends Specification {
+	def info( String clazz, int prio, String type = null, Object extras = null ) {
+		new ImplementationInformation.Impl( clazz, prio, type, extras )
+	}
+
+	def data = [
+		"com.example.A": [info( "a1", 0 ), info( "a2", 10, "image/png" ), info( "a3", -5, "image/png", "x" )] as Set,
+		"com.example.B": [info( "b1", 1, null, "åäö" )] as Set,
+		"com.example.C": [] as Set
+	]
+
+	BinaryIndex roundTrip( Map map ) {
+		def out = new ByteArrayOutputStream()
+		BinaryIndex.write( map, out )
+		new BinaryIndex( ByteBuffer.wrap( out.toByteArray() ) )
+	}
+
+	def "Round trip"() {
+		given:
+			def index = roundTrip( data )
+		expect:
+			index.interfaces() == data.keySet()
+			index.contains( "com.example.A" )
+			!index.contains( "com.example.D" )
+			index.count( "com.example.A" ) == 3
+			index.count( "com.example.C" ) == 0
+			index.count( "com.example.D" ) == 0
+			index.read( "com.example.D", [] ).isEmpty()
+		when:
+			def a = index.read( "com.example.A", [] )
+		then:
+			a.collect { it.implementorClass } == ["a2", "a1", "a3"]
+			a.collect { it.priority } == [10, 0, -5]
+			a.collect { it.type } == ["image/png", null, "image/png"]
+			a.collect { it.extras } == [null, null, "x"]
+		when:
+			def b = index.read( "com.example.B", [] )
+		then:
+			b[0].extras == "åäö"
+	}
+
+	def "Entry bytes"() {
+		given:
+			def index = roundTrip( data )
+		expect:
+			index.entryBytes( "com.example.A" ).remaining() == 3 * 16
+			index.entryBytes( "com.example.D" ).remaining() == 0
+	}
+
+	def "Supertypes"() {
+		given:
+			def supertyped = [
+				"com.example.A": [new ImplementationInformation.Impl( "a1", 1, null, null, ["com.example.A", "java.lang.Object"] as Set ), info( "a2", 0 )] as Set
+			]
+		expect:
+			roundTrip( data ).version() == 1
+			roundTrip( supertyped ).version() == BinaryIndex.VERSION
+			roundTrip( supertyped ).entryBytes( "com.example.A" ).remaining() == 2 * 20
+			roundTrip( supertyped ).read( "com.example.A", [] ).collect { it.supertypes } == [["com.example.A", "java.lang.Object"] as Set, null]
+	}
+
+	def "Direct buffer"() {
+		given:
+			def out = new ByteArrayOutputStream()
+			BinaryIndex.write( data, out )
+			def bytes = out.toByteArray()
+			def buf = ByteBuffer.allocateDirect( bytes.length )
+			buf.put( bytes ).flip()
+		expect:
+			new BinaryIndex( buf ).read( "com.example.B", [] )[0].extras == "åäö"
+	}
+
+	def "Invalid"() {
+		when:
+			new BinaryIndex( ByteBuffer.wrap( bytes as byte[] ) )
+		then:
+			thrown( IllegalArgumentException )
+		where:
+			bytes << [[], [1, 2, 3, 4, 5, 6, 7], [0x46, 0x49, 0x4D, 0x58, 0, 99]]
+	}
+
+	def "Truncated entries"() {
+		given:
+			def out = new ByteArrayOutputStream()
+			BinaryIndex.write( data, out )
+			def bytes = out.toByteArray()
+		when:
+			new BinaryIndex( ByteBuffer.wrap( Arrays.copyOf( bytes, bytes.length - cut ) ) )
+		then:
+			thrown( IllegalArgumentException )
+		where:
+			cut << [1, 16]
+	}
+}
@@ -79,6 +79,29 @@ class ImplTest extends Specification {
 			"eB" | "eB"
 	}
 
+	def "GetSupertypes"() {
+		given:
+			def info = ImplementationInformation.Impl.from( interfase, "1", "", "", "a.A,b.B" )
+		expect:
+			new ImplementationInformation.Impl( interfase, 0, null, null ).getSupertypes() == null
+			info.getSupertypes() == ["a.A", "b.B"] as Set
+			info.getType() == null
+			new ImplementationInformation.Impl( info ).getSupertypes() == info.getSupertypes()
+			ImplementationInformation.Impl.from( interfase, "1" ).getSupertypes() == null
+	}
+
+	def "ParseSupertypes"() {
+		expect:
+			ImplementationInformation.Impl.parseSupertypes( joined ) == parsed
+			parsed == null || ImplementationInformation.Impl.parseSupertypes( ImplementationInformation.Impl.joinSupertypes( parsed ) ) == parsed
+		where:
+			joined      | parsed
+			null        | null
+			""          | null
+			"a.A"       | ["a.A"] as Set
+			"a.A,,b.B," | ["a.A", "b.B"] as Set
+	}
+
 	def "HashCode"() {
 		expect:
 			interfase.hashCode() == new ImplementationInformation.Impl( interfase, 0 ).hashCode()
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.toxbee.fimpl.common
+
+import spock.lang.Specification
+
+class StringPoolTest extends Specification {
+	def "Intern"() {
+		given:
+			def pool = new StringPool( 10 )
+			def a = new String( "image/png" )
+			def b = new String( "image/png" )
+		expect:
+			pool.intern( a ).is( a )
+			pool.intern( b ).is( a )
+			pool.intern( null ) == null
+			pool.internIfString( 1 ) == 1
+			pool.internIfString( new String( "image/png" ) ).is( a )
+			pool.size() == 1
+			pool.maxSize() == 10
+	}
+
+	def "Bounded"() {
+		given:
+			def pool = new StringPool( 3 )
+		when:
+			(0..9).each { pool.intern( "s${it}".toString() ) }
+		then:
+			pool.size() == 3
+		when:
+			pool.clear()
+			def s = new String( "x" )
+		then:
+			pool.size() == 0
+			new StringPool( 0 ).intern( s ).is( s )
+		when:
+			new StringPool( -1 )
+		then:
+			thrown( IllegalArgumentException )
+	}
+
+	def "Keeps the first strings shared when full"() {
+		given:
+			def pool = new StringPool( 100 )
+			def first = (0..<100).collect { new String( "s${it}" ) }
+			first.each { pool.intern( it ) }
+			def over = new String( "over" )
+		when:
+			(100..<1000).each { pool.intern( new String( "s${it}" ) ) }
+		then:
+			pool.size() == 100
+			pool.intern( over ).is( over )
+			!pool.intern( new String( "over" ) ).is( over )
+			(0..<100).every { pool.intern( new String( "s${it}" ) ).is( first[it] ) }
+	}
+
+	def "Shared by Impl"() {
+		given:
+			def a = new ImplementationInformation.Impl( new String( "com.acme.A" ), 0, new String( "image/png" ), new String( "x=1" ) )
+			def b = new ImplementationInformation.Impl( new String( "com.acme.B" ), 0, new String( "image/png" ), new String( "x=1" ) )
+		expect:
+			a.type.is( b.type )
+			a.extras.is( b.extras )
+			ImplementationInformation.Impl.parseSupertypes( new String( "a,b" ) ).first().is( ImplementationInformation.Impl.parseSupertypes( new String( "a" ) ).first() )
+	}
+
+	def "Concurrent"() {
+		given:
+			def pool = new StringPool( 1000 )
+			def results = Collections.synchronizedList( [] )
+			def threads = (0..3).collect { Thread.start { 100.times { results << pool.intern( new String( "same" ) ) } } }
+		when:
+			threads*.join()
+		then:
+			results.size() == 400
+			results.every { it.is( results[0] ) }
+	}
+}
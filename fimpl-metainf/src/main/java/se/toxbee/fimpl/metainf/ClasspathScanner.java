@@ -0,0 +1,290 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.toxbee.fimpl.metainf;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+import static se.toxbee.fimpl.common.Util.close;
+
+/**
+ * <p>ClasspathScanner walks classpath roots (folders and jars) once<br/>
+ * and indexes all files directly under a base path by file name.</p>
+ *
+ * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
+ * @version 1.0
+ * @since Mar, 01, 2014
+ */
+class ClasspathScanner {
+	private ClasspathScanner() {
+	}
+
+	/**
+	 * <p>Returns the classpath roots of a ClassLoader, parents first.</p>
+	 *
+	 * <p>Only {@link URLClassLoader}:s and the system class loader (through <tt>java.class.path</tt>)<br/>
+	 * can be enumerated, an empty list is returned if cl or any of its parents can't - e.g. the<br/>
+	 * platform class loader of Java 9+. Likewise if there is a module path (<tt>jdk.module.path</tt>),<br/>
+	 * since its modules are found through the loaders but aren't on <tt>java.class.path</tt>.</p>
+	 *
+	 * <p>Like the ClassLoader:s do, the jars in the <tt>Class-Path</tt> of the manifest of a jar<br/>
+	 * are followed, e.g. those of <tt>java -jar app.jar</tt>. They come right after the jar.</p>
+	 *
+	 * @param cl the ClassLoader.
+	 * @return the roots.
+	 */
+	static List<URL> roots( ClassLoader cl ) {
+		String modulePath = System.getProperty( "jdk.module.path" );
+		if ( modulePath != null && !modulePath.isEmpty() ) {
+			return Collections.emptyList();
+		}
+
+		LinkedList<ClassLoader> chain = new LinkedList<ClassLoader>();
+		for ( ClassLoader c = cl; c != null; c = c.getParent() ) {
+			chain.addFirst( c );
+		}
+
+		ClassLoader system = ClassLoader.getSystemClassLoader();
+		Set<URL> roots = new LinkedHashSet<URL>();
+		for ( ClassLoader c : chain ) {
+			if ( c instanceof URLClassLoader ) {
+				for ( URL url : ((URLClassLoader) c).getURLs() ) {
+					addRoot( roots, url );
+				}
+			} else if ( c == system ) {
+				for ( URL url : classPath() ) {
+					addRoot( roots, url );
+				}
+			} else {
+				// Some ClassLoader we don't know how to enumerate.
+				return Collections.emptyList();
+			}
+		}
+
+		return new ArrayList<URL>( roots );
+	}
+
+	/*
+	 * Adds root, and then the Class-Path of its manifest if it's a jar not already added.
+	 */
+	private static void addRoot( Set<URL> roots, URL root ) {
+		if ( root == null || !roots.add( root ) ) {
+			return;
+		}
+
+		File file = file( root );
+		if ( file == null || !file.isFile() ) {
+			return;
+		}
+
+		URL base;
+		String classPath;
+		try {
+			base = file.toURI().toURL();
+			JarFile jarFile = new JarFile( file );
+			try {
+				Manifest manifest = jarFile.getManifest();
+				classPath = manifest == null ? null : manifest.getMainAttributes().getValue( Attributes.Name.CLASS_PATH );
+			} finally {
+				close( jarFile );
+			}
+		} catch ( IOException e ) {
+			// Not a readable jar, the ClassLoader skips it too.
+			return;
+		}
+
+		if ( classPath == null ) {
+			return;
+		}
+
+		for ( String entry : classPath.trim().split( "\\s+" ) ) {
+			if ( !entry.isEmpty() ) {
+				try {
+					// Relative to the jar, just as the ClassLoader resolves them.
+					addRoot( roots, new URL( base, entry ) );
+				} catch ( MalformedURLException e ) {
+					// Ignored by the ClassLoader too.
+				}
+			}
+		}
+	}
+
+	private static List<URL> classPath() {
+		List<URL> urls = new ArrayList<URL>();
+		for ( String entry : System.getProperty( "java.class.path", "" ).split( File.pathSeparator ) ) {
+			if ( !entry.isEmpty() ) {
+				try {
+					urls.add( new File( entry ).toURI().toURL() );
+				} catch ( MalformedURLException e ) {
+					throw new RuntimeException( e );
+				}
+			}
+		}
+
+		return urls;
+	}
+
+	/**
+	 * Scans the roots for files directly under base, skipping roots that can't be read.
+	 *
+	 * @param roots the roots: folders, jars or <tt>jar:...!/</tt> URLs.
+	 * @param base the base path, empty or ending with '/'.
+	 * @param wanted the file names to look for, or null for all.
+	 * @return map of file name -> URLs of the file, in the order of roots.
+	 */
+	static Map<String, List<URL>> scan( Collection<URL> roots, String base, Set<String> wanted ) {
+		return scan( roots, base, wanted, null );
+	}
+
+	/**
+	 * Scans the roots for files directly under base, skipping roots that can't be read,<br/>
+	 * e.g. jars that are unreadable or not zip files at all, as the ClassLoader:s do,<br/>
+	 * and roots that aren't local.
+	 *
+	 * @param roots the roots: folders, jars or <tt>jar:...!/</tt> URLs.
+	 * @param base the base path, empty or ending with '/'.
+	 * @param wanted the file names to look for, or null for all.
+	 * @param skipped the roots that couldn't be read or aren't local are added to this if not null.
+	 * @return map of file name -> URLs of the file, in the order of roots.
+	 */
+	static Map<String, List<URL>> scan( Collection<URL> roots, String base, Set<String> wanted, Collection<URL> skipped ) {
+		Map<String, List<URL>> found = new HashMap<String, List<URL>>();
+
+		for ( URL root : roots ) {
+			if ( root == null ) {
+				continue;
+			}
+
+			try {
+				File file = file( root );
+				if ( file == null ) {
+					// Can't be enumerated, e.g. remote.
+					if ( skipped != null ) {
+						skipped.add( root );
+					}
+					continue;
+				}
+
+				if ( file.isDirectory() ) {
+					scanFolder( found, new File( file, base ), wanted );
+				} else if ( file.isFile() ) {
+					scanJar( found, file, base, wanted );
+				}
+			} catch ( IOException e ) {
+				if ( skipped != null ) {
+					skipped.add( root );
+				}
+			}
+		}
+
+		return found;
+	}
+
+	private static void scanFolder( Map<String, List<URL>> found, File dir, Set<String> wanted ) throws IOException {
+		File[] files = dir.listFiles();
+		if ( files == null ) {
+			return;
+		}
+
+		for ( File f : files ) {
+			String name = f.getName();
+			if ( f.isFile() && (wanted == null || wanted.contains( name )) ) {
+				add( found, name, f.toURI().toURL() );
+			}
+		}
+	}
+
+	private static void scanJar( Map<String, List<URL>> found, File jar, String base, Set<String> wanted ) throws IOException {
+		JarFile jarFile = new JarFile( jar );
+
+		try {
+			String prefix = "jar:" + jar.toURI().toURL().toExternalForm() + "!/";
+
+			Enumeration<JarEntry> entries = jarFile.entries();
+			while ( entries.hasMoreElements() ) {
+				JarEntry entry = entries.nextElement();
+				String path = entry.getName();
+
+				if ( entry.isDirectory() || !path.startsWith( base ) || path.indexOf( '/', base.length() ) >= 0 ) {
+					continue;
+				}
+
+				String name = path.substring( base.length() );
+				if ( !name.isEmpty() && (wanted == null || wanted.contains( name )) ) {
+					add( found, name, new URL( prefix + path ) );
+				}
+			}
+		} finally {
+			close( jarFile );
+		}
+	}
+
+	private static void add( Map<String, List<URL>> found, String name, URL url ) {
+		List<URL> urls = found.get( name );
+		if ( urls == null ) {
+			found.put( name, urls = new ArrayList<URL>( 1 ) );
+		}
+
+		urls.add( url );
+	}
+
+	/**
+	 * Returns the local file of a root, or null if it isn't local.
+	 *
+	 * @param root the root.
+	 * @return the file or null.
+	 */
+	static File file( URL root ) {
+		try {
+			if ( root.getProtocol().equals( "jar" ) ) {
+				String spec = root.getFile();
+				int sep = spec.indexOf( "!/" );
+				if ( sep < 0 || sep + 2 != spec.length() ) {
+					// Points into the jar, not at the root of it.
+					return null;
+				}
+
+				root = new URL( spec.substring( 0, sep ) );
+			}
+
+			return root.getProtocol().equals( "file" ) ? new File( root.toURI() ) : null;
+		} catch ( MalformedURLException e ) {
+			return null;
+		} catch ( URISyntaxException e ) {
+			return null;
+		} catch ( IllegalArgumentException e ) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.toxbee.fimpl.metainf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+
+import se.toxbee.fimpl.common.BinaryIndex;
+import se.toxbee.fimpl.impl.InterfaceLookupProvider;
+
+import static se.toxbee.fimpl.common.Util.close;
+
+/**
+ * <p>IndexLookupProvider looks up "interfaces" in the {@link BinaryIndex}:es<br/>
+ * found on the classpath, one per jar or folder, as written by<br/>
+ * <tt>ProvidedImplementationProcessor</tt> with the option <tt>meta.index</tt>.</p>
+ *
+ * <p>All indexes are loaded once, on first use. Indexes in plain files are memory-mapped,<br/>
+ * entries in jars are compressed and are thus read into memory instead.</p>
+ *
+ * <p>An index that can't be read, e.g. one that is truncated or of a newer version, is skipped.<br/>
+ * The "interfaces" of its jar or folder are looked up in its META-INF/services instead.</p>
+ *
+ * <p>The streams provided are only understood by {@link IndexTransformer}.</p>
+ *
+ * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
+ * @version 1.0
+ * @since Feb, 27, 2014
+ */
+public class IndexLookupProvider implements InterfaceLookupProvider {
+	public static final String DEFAULT_LOCATION = "META-INF/fimpl.idx";
+
+	private static final String SERVICES = "META-INF/services/";
+
+	protected final ClassLoader classLoader;
+	protected final String location;
+
+	protected volatile List<BinaryIndex> indexes;
+
+	/*
+	 * The roots of the indexes that couldn't be read, a null root if the indexes couldn't even be found.
+	 */
+	protected volatile List<String> skipped;
+
+	public IndexLookupProvider( ClassLoader cl ) {
+		this( cl, DEFAULT_LOCATION );
+	}
+
+	public IndexLookupProvider( ClassLoader cl, String location ) {
+		// Set classLoader.
+		if ( cl == null ) {
+			cl = Thread.currentThread().getContextClassLoader();
+		}
+		this.classLoader = cl;
+		this.location = location == null ? DEFAULT_LOCATION : location;
+	}
+
+	/**
+	 * Returns the location of the indexes in each jar or folder.
+	 *
+	 * @return the location.
+	 */
+	public String getLocation() {
+		return this.location;
+	}
+
+	/**
+	 * Returns all indexes found, loading them if not loaded.
+	 *
+	 * @return the indexes.
+	 */
+	public List<BinaryIndex> indexes() {
+		List<BinaryIndex> indexes = this.indexes;
+		if ( indexes == null ) {
+			synchronized ( this ) {
+				indexes = this.indexes;
+				if ( indexes == null ) {
+					List<String> skipped = new ArrayList<String>( 0 );
+					indexes = this.loadIndexes( skipped );
+
+					// Written before indexes, which is read first.
+					this.skipped = skipped;
+					this.indexes = indexes;
+				}
+			}
+		}
+
+		return indexes;
+	}
+
+	/**
+	 * Forgets all loaded indexes, they are loaded again on next use.
+	 */
+	public void reload() {
+		this.indexes = null;
+	}
+
+	@Override
+	public <I> Iterator<InputStream> interfaceLookupStream( Class<I> interfase ) {
+		String name = interfase.getName();
+
+		List<InputStream> streams = null;
+		for ( BinaryIndex index : this.indexes() ) {
+			if ( index.contains( name ) ) {
+				if ( streams == null ) {
+					streams = new ArrayList<InputStream>( 1 );
+				}
+
+				streams.add( new IndexStream( index, name ) );
+			}
+		}
+
+		// Fall back on META-INF/services where the index is broken.
+		List<URL> fallbacks = this.fallbacks( name );
+		if ( !fallbacks.isEmpty() ) {
+			if ( streams == null ) {
+				streams = new ArrayList<InputStream>( fallbacks.size() );
+			}
+
+			for ( URL url : fallbacks ) {
+				try {
+					streams.add( new ServicesStream( url.openStream() ) );
+				} catch ( IOException e ) {
+					// Not there.
+				}
+			}
+		}
+
+		return streams == null || streams.isEmpty() ? null : streams.iterator();
+	}
+
+	/**
+	 * Returns the URLs of the META-INF/services files of name to read in place of broken indexes.
+	 *
+	 * @param name the name of the "interface".
+	 * @return the URLs.
+	 */
+	private List<URL> fallbacks( String name ) {
+		List<String> skipped = this.skipped;
+		if ( skipped.isEmpty() ) {
+			return Collections.emptyList();
+		}
+
+		try {
+			if ( skipped.contains( null ) ) {
+				return Collections.list( this.classLoader.getResources( SERVICES + name ) );
+			}
+
+			List<URL> urls = new ArrayList<URL>( skipped.size() );
+			for ( String root : skipped ) {
+				urls.add( new URL( root + SERVICES + name ) );
+			}
+
+			return urls;
+		} catch ( IOException e ) {
+			return Collections.emptyList();
+		}
+	}
+
+	/**
+	 * Loads all indexes found, adding the roots of those that can't be read to skipped.<br/>
+	 * If the indexes can't be found at all, null is added to skipped.
+	 *
+	 * @param skipped the roots of the indexes that couldn't be read.
+	 * @return the indexes.
+	 */
+	protected List<BinaryIndex> loadIndexes( List<String> skipped ) {
+		Enumeration<URL> urls;
+		try {
+			urls = this.classLoader.getResources( this.location );
+		} catch ( IOException e ) {
+			skipped.add( null );
+			return Collections.emptyList();
+		}
+
+		List<BinaryIndex> indexes = new ArrayList<BinaryIndex>();
+		while ( urls.hasMoreElements() ) {
+			URL url = urls.nextElement();
+			try {
+				indexes.add( new BinaryIndex( map( url ) ) );
+			} catch ( IOException e ) {
+				skipped.add( root( url ) );
+			} catch ( IllegalArgumentException e ) {
+				// Foreign or of a newer version.
+				skipped.add( root( url ) );
+			} catch ( BufferUnderflowException e ) {
+				// Truncated.
+				skipped.add( root( url ) );
+			} catch ( IndexOutOfBoundsException e ) {
+				// Truncated.
+				skipped.add( root( url ) );
+			}
+		}
+
+		return Collections.unmodifiableList( indexes );
+	}
+
+	/**
+	 * Returns the jar or folder of the index at url.
+	 *
+	 * @param url the index.
+	 * @return the root, ending with a "/".
+	 */
+	private String root( URL url ) {
+		String s = url.toString();
+		return s.substring( 0, s.length() - this.location.length() );
+	}
+
+	/**
+	 * Maps the resource at url into a buffer.
+	 *
+	 * @param url the resource.
+	 * @return the buffer.
+	 * @throws IOException if reading fails.
+	 */
+	static ByteBuffer map( URL url ) throws IOException {
+		if ( url.getProtocol().equals( "file" ) ) {
+			RandomAccessFile file;
+			try {
+				file = new RandomAccessFile( new File( url.toURI() ), "r" );
+			} catch ( URISyntaxException e ) {
+				throw new IOException( e );
+			}
+
+			try {
+				return file.getChannel().map( FileChannel.MapMode.READ_ONLY, 0, file.length() );
+			} finally {
+				close( file );
+			}
+		}
+
+		// Not a plain file, i.e: compressed in a jar, can't be mapped.
+		InputStream in = url.openStream();
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buf = new byte[8192];
+			for ( int n; (n = in.read( buf )) > 0; ) {
+				out.write( buf, 0, n );
+			}
+
+			return ByteBuffer.wrap( out.toByteArray() );
+		} finally {
+			close( in );
+		}
+	}
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.toxbee.fimpl.metainf;
+
+import se.toxbee.fimpl.impl.ImplementationReaderPipe;
+
+/**
+ * IndexReader is a pipe of IndexTransformer -> IndexLookupProvider.
+ *
+ * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
+ * @version 1.0
+ * @since Feb, 27, 2014
+ */
+public class IndexReader extends ImplementationReaderPipe {
+	public IndexReader() {
+		super( new IndexTransformer(), new IndexLookupProvider( null ) );
+	}
+
+	public IndexReader( ClassLoader cl, String location ) {
+		super( new IndexTransformer(), new IndexLookupProvider( cl, location ) );
+	}
+}
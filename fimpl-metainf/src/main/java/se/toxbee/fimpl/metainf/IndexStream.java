@@ -0,0 +1,69 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.toxbee.fimpl.metainf;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import se.toxbee.fimpl.common.BinaryIndex;
+
+/**
+ * IndexStream is the stream of the entries of an "interface" in a {@link BinaryIndex}.<br/>
+ * The raw bytes can be read, but {@link IndexTransformer} reads the index directly.
+ *
+ * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
+ * @version 1.0
+ * @since Feb, 27, 2014
+ */
+class IndexStream extends InputStream {
+	final BinaryIndex index;
+	final String interfase;
+	private final ByteBuffer bytes;
+
+	/**
+	 * Constructs the stream.
+	 *
+	 * @param index the index.
+	 * @param interfase the name of the interface.
+	 */
+	IndexStream( BinaryIndex index, String interfase ) {
+		this.index = index;
+		this.interfase = interfase;
+		this.bytes = index.entryBytes( interfase );
+	}
+
+	@Override
+	public int read() {
+		return this.bytes.hasRemaining() ? this.bytes.get() & 0xFF : -1;
+	}
+
+	@Override
+	public int read( byte[] b, int off, int len ) {
+		if ( !this.bytes.hasRemaining() ) {
+			return -1;
+		}
+
+		len = Math.min( len, this.bytes.remaining() );
+		this.bytes.get( b, off, len );
+		return len;
+	}
+
+	@Override
+	public int available() {
+		return this.bytes.remaining();
+	}
+}
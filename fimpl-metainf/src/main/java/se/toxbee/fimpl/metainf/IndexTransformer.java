@@ -0,0 +1,62 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.toxbee.fimpl.metainf;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import se.toxbee.fimpl.common.ImplementationInformation;
+import se.toxbee.fimpl.impl.CollectionIndexTransformer;
+import se.toxbee.fimpl.impl.CountingInputStream;
+
+/**
+ * IndexTransformer transforms the streams of an {@link IndexLookupProvider} to ImplementationInformation:s.
+ *
+ * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
+ * @version 1.0
+ * @since Feb, 27, 2014
+ */
+public class IndexTransformer implements CollectionIndexTransformer {
+	@Override
+	public Iterator<ImplementationInformation> readImplementationCollection( Iterator<InputStream> in ) {
+		if ( in == null || !in.hasNext() ) {
+			return null;
+		}
+
+		List<ImplementationInformation> list = new ArrayList<ImplementationInformation>();
+
+		while ( in.hasNext() ) {
+			InputStream next = in.next();
+			InputStream s = CountingInputStream.unwrap( next );
+			if ( s instanceof ServicesStream ) {
+				// The index of that root is broken, read its META-INF/services file instead.
+				MetainfTransformer.parse( list, new StringBuilder(), next );
+				continue;
+			}
+
+			if ( !(s instanceof IndexStream) ) {
+				throw new IllegalArgumentException( "Only streams provided by IndexLookupProvider are supported." );
+			}
+
+			IndexStream is = (IndexStream) s;
+			is.index.read( is.interfase, list );
+		}
+
+		return list.iterator();
+	}
+}
@@ -24,7 +24,8 @@ import java.util.Iterator;
 
 /**
 * IterAdapter wraps {@link java.util.Enumeration} of {@link java.net.URL}s<br/>
-* to {@link java.util.Iterator} of {@link java.io.InputStream}s.
+* to {@link java.util.Iterator} of {@link java.io.InputStream}s.<br/>
+* The streams are opened lazily, on first use, by whichever thread uses them.
 *
 * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
 * @version 1.0
@@ -49,14 +50,63 @@ class IterAdapter implements Iterator<InputStream> {
 
 	@Override
 	public InputStream next() {
-		try {
-			return this.urls.nextElement().openStream();
-		} catch ( IOException e ) {
-			throw new RuntimeException( e );
-		}
+		return new LazyStream( this.urls.nextElement() );
 	}
 
 	@Override
 	public void remove() {
 	}
+
+	/**
+	 * InputStream that opens the URL on first read.
+	 */
+	static class LazyStream extends InputStream {
+		private final URL url;
+		private InputStream in;
+		private boolean closed;
+
+		LazyStream( URL url ) {
+			this.url = url;
+		}
+
+		private InputStream in() throws IOException {
+			if ( this.closed ) {
+				throw new IOException( "Stream closed." );
+			}
+
+			if ( this.in == null ) {
+				this.in = this.url.openStream();
+			}
+
+			return this.in;
+		}
+
+		@Override
+		public int read() throws IOException {
+			return this.in().read();
+		}
+
+		@Override
+		public int read( byte[] b, int off, int len ) throws IOException {
+			return this.in().read( b, off, len );
+		}
+
+		@Override
+		public long skip( long n ) throws IOException {
+			return this.in().skip( n );
+		}
+
+		@Override
+		public int available() throws IOException {
+			return this.in().available();
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.closed = true;
+			if ( this.in != null ) {
+				this.in.close();
+			}
+		}
+	}
 }
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.toxbee.fimpl.metainf;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import se.toxbee.fimpl.common.Util;
+
+
+/**
+ * <p>JarFileCache is a bounded, least-recently-used cache of the names of the entries of jars.</p>
+ *
+ * <p>A jar is opened once to index it and closed right away, the streams of its entries are<br/>
+ * opened through <tt>jar:</tt> URLs anyway. So no file is held open, nor locked on Windows.<br/>
+ * A jar whose size or modification time changed is indexed again.</p>
+ *
+ * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
+ * @version 1.0
+ * @since Mar, 03, 2014
+ */
+class JarFileCache implements Closeable {
+	public static final int DEFAULT_MAX_SIZE = 64;
+
+	/**
+	 * The names of the entries of a jar, as it was when indexed.
+	 */
+	static class Handle {
+		final Set<String> names;
+		final long length;
+		final long lastModified;
+
+		Handle( JarFile jar, long length, long lastModified ) {
+			Set<String> names = new HashSet<String>();
+			Enumeration<JarEntry> entries = jar.entries();
+			while ( entries.hasMoreElements() ) {
+				names.add( entries.nextElement().getName() );
+			}
+
+			this.names = Collections.unmodifiableSet( names );
+			this.length = length;
+			this.lastModified = lastModified;
+		}
+	}
+
+	private final Map<File, Handle> handles;
+	private int maxSize;
+
+	/**
+	 * Constructs the cache.
+	 *
+	 * @param maxSize the maximum number of indexed jars, at least 1.
+	 */
+	JarFileCache( int maxSize ) {
+		this.maxSize = checkSize( maxSize );
+		this.handles = new LinkedHashMap<File, Handle>( 16, 0.75f, true ) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry( Map.Entry<File, Handle> eldest ) {
+				return this.size() > JarFileCache.this.maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Sets the maximum number of indexed jars, excess jars are forgotten right away.
+	 *
+	 * @param maxSize the maximum number, at least 1.
+	 */
+	synchronized void setMaxSize( int maxSize ) {
+		this.maxSize = checkSize( maxSize );
+
+		Iterator<Handle> iter = this.handles.values().iterator();
+		for ( int excess = this.handles.size() - maxSize; excess > 0; --excess ) {
+			iter.next();
+			iter.remove();
+		}
+	}
+
+	private static int checkSize( int maxSize ) {
+		if ( maxSize < 1 ) {
+			throw new IllegalArgumentException( "maxSize must be at least 1." );
+		}
+
+		return maxSize;
+	}
+
+	/**
+	 * Returns the handle of a jar, indexing it if not indexed or changed since.
+	 *
+	 * @param file the jar.
+	 * @return the handle.
+	 * @throws IOException if the jar can't be opened.
+	 */
+	synchronized Handle get( File file ) throws IOException {
+		long length = file.length();
+		long lastModified = file.lastModified();
+
+		Handle handle = this.handles.get( file );
+		if ( handle == null || handle.length != length || handle.lastModified != lastModified ) {
+			JarFile jar = new JarFile( file );
+			try {
+				handle = new Handle( jar, length, lastModified );
+			} finally {
+				Util.close( jar );
+			}
+
+			this.handles.put( file, handle );
+		}
+
+		return handle;
+	}
+
+	/**
+	 * Returns the number of indexed jars.
+	 *
+	 * @return the number.
+	 */
+	synchronized int size() {
+		return this.handles.size();
+	}
+
+	/**
+	 * Forgets all indexed jars.
+	 */
+	@Override
+	public synchronized void close() {
+		this.handles.clear();
+	}
+}
@@ -15,6 +15,7 @@
  */
 package se.toxbee.fimpl.metainf;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -24,21 +25,38 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.Vector;
 import java.util.jar.JarFile;
 
 import se.toxbee.fimpl.impl.InterfaceLookupProvider;
 
 /**
- * MetainfLookupProvider looks up in META-INF + jars or folders like it.
+ * <p>MetainfLookupProvider looks up in META-INF + jars or folders like it.</p>
+ *
+ * <p>The names of the entries of local jars among the extra URLs, see {@link #setURLs(URL...)},<br/>
+ * are kept in a bounded cache, so lookups don't reopen the jars. No jar is kept open.<br/>
+ * {@link #close()} empties the cache.</p>
+ *
+ * <p>{@link #interfaceLookupStreams(Class[])} walks every classpath root once for all the<br/>
+ * "interfaces", when the roots can be enumerated, see {@link ClasspathScanner#roots(ClassLoader)}.<br/>
+ * If some root can't be read it looks the "interfaces" up one by one instead, so the result is always<br/>
+ * the same as that of {@link #interfaceLookupStream(Class)}.</p>
  *
  * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
  * @version 1.0
  * @since Jan, 25, 2014
  */
-public class MetainfLookupProvider implements InterfaceLookupProvider {
+public class MetainfLookupProvider implements InterfaceLookupProvider, Closeable {
 	public MetainfLookupProvider( ClassLoader cl ) {
 		this( cl, "META-INF/services/" );
 	}
@@ -59,6 +77,8 @@ public class MetainfLookupProvider implements InterfaceLookupProvider {
 
 	protected final ClassLoader classLoader;
 
+	private final JarFileCache jars = new JarFileCache( JarFileCache.DEFAULT_MAX_SIZE );
+
 	/**
 	 * <p>Sets the suggested base path - if the given path is null,<br/>
 	 * the InterfaceLookupProvider might provide some other, "natural" base path</p>
@@ -93,6 +113,8 @@ public class MetainfLookupProvider implements InterfaceLookupProvider {
 	 * @param urls the urls, if null, there are none.
 	 */
 	public void setURLs( URL... urls ) {
+		this.close();
+
 		if ( urls == null || urls.length == 0 ) {
 			this.urls = null;
 		} else {
@@ -113,6 +135,23 @@ public class MetainfLookupProvider implements InterfaceLookupProvider {
 		}
 	}
 
+	/**
+	 * Sets the maximum number of jars whose entry names are kept, 64 by default.
+	 *
+	 * @param maxSize the maximum number, at least 1.
+	 */
+	public void setJarCacheSize( int maxSize ) {
+		this.jars.setMaxSize( maxSize );
+	}
+
+	/**
+	 * Forgets the entry names of all jars, they are indexed again if needed by later lookups.
+	 */
+	@Override
+	public void close() {
+		this.jars.close();
+	}
+
 	@Override
 	public <I> Iterator<InputStream> interfaceLookupStream( Class<I> interfase ) {
 		String fullUri = this.path + interfase.getName();
@@ -127,6 +166,75 @@ public class MetainfLookupProvider implements InterfaceLookupProvider {
 		return res.hasMoreElements() ? new IterAdapter( res ) : null;
 	}
 
+	@Override
+	public Map<Class<?>, Iterator<InputStream>> interfaceLookupStreams( Class<?>... interfaces ) {
+		List<URL> roots = interfaces.length < 2 ? null : this.scannableRoots();
+		if ( roots == null ) {
+			return InterfaceLookupProvider.super.interfaceLookupStreams( interfaces );
+		}
+
+		Set<String> wanted = new HashSet<String>();
+		for ( Class<?> interfase : interfaces ) {
+			wanted.add( interfase.getName() );
+		}
+
+		List<URL> skipped = new ArrayList<URL>( 0 );
+		Map<String, List<URL>> index = ClasspathScanner.scan( roots, this.path, wanted, skipped );
+		if ( !skipped.isEmpty() ) {
+			// Let the lookups one by one decide what to make of them, so both give the same.
+			return InterfaceLookupProvider.super.interfaceLookupStreams( interfaces );
+		}
+
+		return streams( index, interfaces );
+	}
+
+	/**
+	 * Returns the roots to look in, the extra URLs if set, otherwise those of the ClassLoader.
+	 *
+	 * @return the roots, or null if they can't all be walked by {@link ClasspathScanner}.
+	 */
+	protected List<URL> scannableRoots() {
+		List<URL> roots = this.urls == null ? ClasspathScanner.roots( this.classLoader ) : Arrays.asList( this.urls );
+		if ( roots.isEmpty() ) {
+			return null;
+		}
+
+		for ( URL root : roots ) {
+			if ( root == null ) {
+				continue;
+			}
+
+			File file = ClasspathScanner.file( root );
+			if ( file == null ) {
+				return null;
+			}
+
+			// An extra URL taken for a jar, see setURLs(), is never looked in as a folder.
+			if ( root.getProtocol().equals( "jar" ) && file.isDirectory() ) {
+				return null;
+			}
+		}
+
+		return roots;
+	}
+
+	/**
+	 * Picks the streams of interfaces out of an index of file name -> URLs.
+	 *
+	 * @param index the index.
+	 * @param interfaces the interfaces.
+	 * @return map of interface -> streams or null, in the order given.
+	 */
+	static Map<Class<?>, Iterator<InputStream>> streams( Map<String, List<URL>> index, Class<?>... interfaces ) {
+		Map<Class<?>, Iterator<InputStream>> map = new LinkedHashMap<Class<?>, Iterator<InputStream>>();
+		for ( Class<?> interfase : interfaces ) {
+			List<URL> urls = index.get( interfase.getName() );
+			map.put( interfase, urls == null ? null : new IterAdapter( Collections.enumeration( urls ) ) );
+		}
+
+		return map;
+	}
+
 	private Enumeration<URL> getResources( String fulluri ) throws IOException {
 		if ( urls == null ) {
 			return classLoader.getResources( fulluri );
@@ -157,53 +265,38 @@ public class MetainfLookupProvider implements InterfaceLookupProvider {
 			try {
 				String protocol = currentUrl.getProtocol();
 				if ( protocol.equals( "jar" ) ) {
-	                /*
-                    * If the connection for currentUrl or resURL is
-                    * used, getJarFile() will throw an exception if the
-                    * entry doesn't exist.
-                    */
-					URL jarURL = ((JarURLConnection) currentUrl.openConnection()).getJarFileURL();
-					JarFile jarFile;
-					JarURLConnection juc;
+					String file = currentUrl.getFile();
+					int sepIdx = file.lastIndexOf( "!/" );
+					if ( sepIdx == -1 ) {
+						// Invalid URL, don't look here again
+						search[i] = null;
+						continue;
+					}
+
+					String entryName = file.substring( sepIdx + 2 ) + resourceName;
+					File jar = ClasspathScanner.file( new URL( file.substring( 0, sepIdx ) ) );
+					if ( jar == null ) {
+						URL resource = this.findInRemoteJar( currentUrl, entryName, resourceName, search, i );
+						if ( resource != null ) {
+							return resource;
+						}
+						continue;
+					}
+
+					JarFileCache.Handle handle;
 					try {
-						juc = makeJUC( jarURL );
-						jarFile = juc.getJarFile();
+						handle = this.jars.get( jar );
 					} catch ( IOException e ) {
 						// Don't look for this jar file again
 						search[i] = null;
 						throw e;
 					}
 
-					try {
-						juc = makeJUC( jarURL );
-						jarFile = juc.getJarFile();
-						String entryName;
-						if ( currentUrl.getFile().endsWith( "!/" ) ) {
-							entryName = resourceName;
-						} else {
-							String file = currentUrl.getFile();
-							int sepIdx = file.lastIndexOf( "!/" );
-							if ( sepIdx == -1 ) {
-								// Invalid URL, don't look here again
-								search[i] = null;
-								continue;
-							}
-							sepIdx += 2;
-							entryName = file.substring( sepIdx ) + resourceName;
-						}
-						if ( entryName.equals( "META-INF/" ) && jarFile.getEntry( "META-INF/MANIFEST.MF" ) != null ) {
-							return targetURL( currentUrl, "META-INF/MANIFEST.MF" );
-						}
-						if ( jarFile.getEntry( entryName ) != null ) {
-							return targetURL( currentUrl, resourceName );
-						}
-					} finally {
-						if ( !juc.getUseCaches() ) {
-							try {
-								jarFile.close();
-							} catch ( Exception e ) {
-							}
-						}
+					if ( entryName.equals( "META-INF/" ) && handle.names.contains( "META-INF/MANIFEST.MF" ) ) {
+						return targetURL( currentUrl, "META-INF/MANIFEST.MF" );
+					}
+					if ( handle.names.contains( entryName ) ) {
+						return targetURL( currentUrl, resourceName );
 					}
 				} else if ( protocol.equals( "file" ) ) {
 					String baseFile = currentUrl.getFile();
@@ -264,6 +357,43 @@ public class MetainfLookupProvider implements InterfaceLookupProvider {
 		return null;
 	}
 
+	private URL findInRemoteJar( URL currentUrl, String entryName, String resourceName, URL[] search, int i ) throws IOException {
+		/*
+		 * If the connection for currentUrl or resURL is
+		 * used, getJarFile() will throw an exception if the
+		 * entry doesn't exist.
+		 */
+		URL jarURL = ((JarURLConnection) currentUrl.openConnection()).getJarFileURL();
+		JarFile jarFile;
+		JarURLConnection juc;
+		try {
+			juc = makeJUC( jarURL );
+			jarFile = juc.getJarFile();
+		} catch ( IOException e ) {
+			// Don't look for this jar file again
+			search[i] = null;
+			throw e;
+		}
+
+		try {
+			if ( entryName.equals( "META-INF/" ) && jarFile.getEntry( "META-INF/MANIFEST.MF" ) != null ) {
+				return targetURL( currentUrl, "META-INF/MANIFEST.MF" );
+			}
+			if ( jarFile.getEntry( entryName ) != null ) {
+				return targetURL( currentUrl, resourceName );
+			}
+		} finally {
+			if ( !juc.getUseCaches() ) {
+				try {
+					jarFile.close();
+				} catch ( Exception e ) {
+				}
+			}
+		}
+
+		return null;
+	}
+
 	private URL targetURL( URL base, String name ) throws MalformedURLException {
 		return new URL( base.getProtocol(), base.getHost(), base.getPort(), base.getFile() + name, null );
 	}
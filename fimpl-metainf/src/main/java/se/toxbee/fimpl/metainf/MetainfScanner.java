@@ -0,0 +1,292 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.toxbee.fimpl.metainf;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import se.toxbee.fimpl.common.ImplementationInformation;
+import se.toxbee.fimpl.common.ImplementationInformation.Impl;
+
+import static se.toxbee.fimpl.common.Util.CHARSET;
+import static se.toxbee.fimpl.common.Util.close;
+
+/**
+ * <p>MetainfScanner parses index files the same way as {@link MetainfTransformer#readInfo},<br/>
+ * but on bytes: the whole stream is read into a reusable buffer in bulk, separators are<br/>
+ * found with a lookup table, and only the fields that are kept are decoded.</p>
+ *
+ * <p>This only works for separators that are ASCII, in a charset where ASCII bytes<br/>
+ * never occur inside multi-byte characters, see {@link #isAsciiCompatible(Charset)}.</p>
+ *
+ * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
+ * @version 1.0
+ * @since Mar, 02, 2014
+ */
+class MetainfScanner {
+	static final byte OTHER = 0;
+	static final byte PIECE = 1;
+	static final byte LINE = 2;
+
+	private static final int INITIAL_SIZE = 4096;
+	private static final int MAX_RETAINED_SIZE = 1 << 20;
+
+	private static final ThreadLocal<MetainfScanner> LOCAL = new ThreadLocal<MetainfScanner>() {
+		@Override
+		protected MetainfScanner initialValue() {
+			return new MetainfScanner();
+		}
+	};
+
+	private byte[] bytes = new byte[INITIAL_SIZE];
+	private char[] chars = new char[128];
+
+	/**
+	 * Returns the scanner of the current thread.
+	 *
+	 * @return the scanner.
+	 */
+	static MetainfScanner get() {
+		return LOCAL.get();
+	}
+
+	/**
+	 * Builds a lookup table: unsigned byte -> {@link #OTHER}, {@link #PIECE} or {@link #LINE}.<br/>
+	 * Line separators win over piece separators, as in {@link MetainfTransformer#readToTab}.
+	 *
+	 * @param lines the line separators.
+	 * @param pieces the piece separators.
+	 * @return the table, or null if the separators aren't ASCII.
+	 */
+	static byte[] table( char[] lines, char[] pieces ) {
+		byte[] table = new byte[256];
+		for ( char c : pieces ) {
+			if ( c >= 0x80 ) {
+				return null;
+			}
+			table[c] = PIECE;
+		}
+		for ( char c : lines ) {
+			if ( c >= 0x80 ) {
+				return null;
+			}
+			table[c] = LINE;
+		}
+
+		return table;
+	}
+
+	/**
+	 * Returns whether or not ASCII bytes always are ASCII characters in a charset.
+	 *
+	 * @param cs the charset.
+	 * @return true if so.
+	 */
+	static boolean isAsciiCompatible( Charset cs ) {
+		String name = cs.name();
+		return name.equals( "UTF-8" ) || name.equals( "US-ASCII" ) || name.equals( "ISO-8859-1" );
+	}
+
+	/**
+	 * Parses all of a stream into list and closes it.
+	 *
+	 * @param list the list to add to.
+	 * @param in the stream.
+	 * @param table the separator table from {@link #table(char[], char[])}.
+	 */
+	void scan( List<ImplementationInformation> list, InputStream in, byte[] table ) {
+		int len = this.fill( in );
+		try {
+			this.scan( list, len, table );
+		} finally {
+			if ( this.bytes.length > MAX_RETAINED_SIZE ) {
+				this.bytes = new byte[INITIAL_SIZE];
+			}
+		}
+	}
+
+	private void scan( List<ImplementationInformation> list, int len, byte[] table ) {
+		// p is always at a separator when a field is done, ++p skips it.
+		for ( int p = 0; p < len; ++p ) {
+			// Read implementation class.
+			int s = p;
+			p = this.next( table, p, len );
+			if ( this.at( table, p, len ) != PIECE ) {
+				this.add( list, s, p, 0, null, null );
+				continue;
+			}
+			String clazz = this.string( s, p );
+
+			// Read priority.
+			s = ++p;
+			p = this.next( table, p, len );
+			int prio = this.parseInt( s, p );
+			if ( this.at( table, p, len ) != PIECE ) {
+				add( list, clazz, prio, null, null );
+				continue;
+			}
+
+			// Read type.
+			s = ++p;
+			p = this.next( table, p, len );
+			String type = this.string( s, p );
+			if ( this.at( table, p, len ) != PIECE ) {
+				add( list, clazz, prio, type, null );
+				continue;
+			}
+
+			// Read extras.
+			s = ++p;
+			p = this.next( table, p, len );
+			String extras = this.string( s, p );
+			if ( this.at( table, p, len ) != PIECE ) {
+				add( list, clazz, prio, type, extras );
+				continue;
+			}
+
+			// Read supertypes.
+			s = ++p;
+			p = this.next( table, p, len );
+			Set<String> supertypes = Impl.parseSupertypes( this.string( s, p ) );
+
+			// Eat anything left before newline.
+			byte[] b = this.bytes;
+			while ( p < len && table[b[p] & 0xFF] != LINE ) {
+				++p;
+			}
+
+			add( list, clazz, prio, type, extras, supertypes );
+		}
+	}
+
+	/*
+	 * Index of the first separator at or after p, or len.
+	 */
+	private int next( byte[] table, int p, int len ) {
+		byte[] b = this.bytes;
+		while ( p < len && table[b[p] & 0xFF] == OTHER ) {
+			++p;
+		}
+
+		return p;
+	}
+
+	/*
+	 * Class of the separator at p, LINE at the end - it ends the line just as well.
+	 */
+	private int at( byte[] table, int p, int len ) {
+		return p < len ? table[this.bytes[p] & 0xFF] : LINE;
+	}
+
+	private void add( List<ImplementationInformation> list, int s, int p, int prio, String type, Object extras ) {
+		if ( p > s ) {
+			list.add( new Impl( this.string( s, p ), prio, type, extras ) );
+		}
+	}
+
+	private static void add( List<ImplementationInformation> list, String clazz, int prio, String type, Object extras ) {
+		add( list, clazz, prio, type, extras, null );
+	}
+
+	private static void add( List<ImplementationInformation> list, String clazz, int prio, String type, Object extras, Set<String> supertypes ) {
+		if ( !clazz.isEmpty() ) {
+			list.add( new Impl( clazz, prio, type, extras, supertypes ) );
+		}
+	}
+
+	/*
+	 * Integer.parseInt of [s, p), without decoding for plain numbers.
+	 */
+	private int parseInt( int s, int p ) {
+		if ( s == p ) {
+			return 0;
+		}
+
+		byte[] b = this.bytes;
+		int i = s;
+		boolean neg = false;
+		if ( p - s > 1 && (b[i] == '-' || b[i] == '+') ) {
+			neg = b[i++] == '-';
+		}
+
+		// 9 digits never overflow.
+		if ( p - i <= 9 ) {
+			int v = 0;
+			for ( ; i < p; ++i ) {
+				int d = b[i] - '0';
+				if ( d < 0 || d > 9 ) {
+					return Integer.parseInt( this.string( s, p ) );
+				}
+				v = v * 10 + d;
+			}
+
+			return neg ? -v : v;
+		}
+
+		return Integer.parseInt( this.string( s, p ) );
+	}
+
+	/*
+	 * Decodes [s, p), ASCII is copied straight into chars.
+	 */
+	private String string( int s, int p ) {
+		int n = p - s;
+		if ( n == 0 ) {
+			return "";
+		}
+
+		if ( this.chars.length < n ) {
+			this.chars = new char[Math.max( n, this.chars.length * 2 )];
+		}
+
+		byte[] b = this.bytes;
+		char[] c = this.chars;
+		for ( int i = 0; i < n; ++i ) {
+			byte x = b[s + i];
+			if ( x < 0 ) {
+				return new String( b, s, n, CHARSET );
+			}
+			c[i] = (char) x;
+		}
+
+		return new String( c, 0, n );
+	}
+
+	/*
+	 * Reads all of in into bytes, returns the length.
+	 */
+	private int fill( InputStream in ) {
+		int len = 0;
+		try {
+			for ( int n; (n = in.read( this.bytes, len, this.bytes.length - len )) >= 0; ) {
+				len += n;
+				if ( len == this.bytes.length ) {
+					this.bytes = Arrays.copyOf( this.bytes, len * 2 );
+				}
+			}
+		} catch ( IOException e ) {
+			throw new RuntimeException( e );
+		} finally {
+			close( in );
+		}
+
+		return len;
+	}
+}
@@ -21,8 +21,16 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 import se.toxbee.fimpl.common.ImplementationInformation;
 import se.toxbee.fimpl.common.ImplementationInformation.Impl;
@@ -32,7 +40,15 @@ import static se.toxbee.fimpl.common.Util.CHARSET;
 import static se.toxbee.fimpl.common.Util.close;
 
 /**
- * MetainfTransformer transforms InputStream:s to ImplementationInformation:s.
+ * <p>MetainfTransformer transforms InputStream:s to ImplementationInformation:s.</p>
+ *
+ * <p>By default the streams are parsed one after the other, on the calling thread.<br/>
+ * With an executor set, see {@link #setExecutor(ExecutorService)}, each stream is opened<br/>
+ * and parsed in a task of its own instead. The result is the same in both modes:<br/>
+ * the implementations of each stream, in the order the streams were provided.</p>
+ *
+ * <p>The calling thread runs the tasks that the executor hasn't started yet itself,<br/>
+ * so it is safe to read from a thread of the executor, even if all of its threads are busy.</p>
  *
  * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
  * @version 1.0
@@ -44,12 +60,40 @@ public class MetainfTransformer implements CollectionIndexTransformer {
 	private static char[] LINE_SEPARATORS = new char[] { '\n', '\r' };
 	private static char[] PIECE_SEPARATOR = new char[] { '\t' };
 
+	/*
+	 * Separator lookup table for MetainfScanner, null if the separators aren't ASCII.
+	 */
+	private static volatile byte[] SEPARATOR_TABLE = MetainfScanner.table( LINE_SEPARATORS, PIECE_SEPARATOR );
+
 	public static void setPieceSeparators( char[] pieceSeparators ) {
 		PIECE_SEPARATOR = pieceSeparators;
+		SEPARATOR_TABLE = MetainfScanner.table( LINE_SEPARATORS, PIECE_SEPARATOR );
 	}
 
 	public static void setLineSeparators( char[] lineSeparators ) {
 		LINE_SEPARATORS = lineSeparators;
+		SEPARATOR_TABLE = MetainfScanner.table( LINE_SEPARATORS, PIECE_SEPARATOR );
+	}
+
+	protected volatile ExecutorService executor;
+
+	/**
+	 * Sets the executor to parse streams with, e.g. a {@link java.util.concurrent.ForkJoinPool}.<br/>
+	 * The executor is not shut down by the transformer.
+	 *
+	 * @param executor the executor, or null to parse on the calling thread.
+	 */
+	public void setExecutor( ExecutorService executor ) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Returns the executor streams are parsed with.
+	 *
+	 * @return the executor, or null if streams are parsed on the calling thread.
+	 */
+	public ExecutorService getExecutor() {
+		return this.executor;
 	}
 
 	@Override
@@ -58,20 +102,115 @@ public class MetainfTransformer implements CollectionIndexTransformer {
 			return null;
 		}
 
+		ExecutorService executor = this.executor;
+		return executor == null ? readSequential( in ) : readParallel( in, executor );
+	}
+
+	private Iterator<ImplementationInformation> readSequential( Iterator<InputStream> in ) {
 		StringBuilder builder = new StringBuilder( BUF_SIZE );
 		List<ImplementationInformation> list = new ArrayList<ImplementationInformation>();
 
 		while ( in.hasNext() ) {
-			// Open stream & reader.
-			Reader r = new InputStreamReader( in.next(), CHARSET );
-			BufferedReader reader = new BufferedReader( r );
-			while ( readInfo( list, builder, reader ) );
-			close( reader );
+			parse( list, builder, in.next() );
+		}
+
+		return list.iterator();
+	}
+
+	private Iterator<ImplementationInformation> readParallel( Iterator<InputStream> in, ExecutorService executor ) {
+		InputStream first = in.next();
+		if ( !in.hasNext() ) {
+			// Only one stream, no point in handing it off.
+			return readSequential( Collections.singletonList( first ).iterator() );
+		}
+
+		// Submit in order, tasks open & parse concurrently.
+		List<FutureTask<List<ImplementationInformation>>> tasks = new ArrayList<FutureTask<List<ImplementationInformation>>>();
+		tasks.add( new FutureTask<List<ImplementationInformation>>( new ParseTask( first ) ) );
+		while ( in.hasNext() ) {
+			tasks.add( new FutureTask<List<ImplementationInformation>>( new ParseTask( in.next() ) ) );
+		}
+
+		for ( FutureTask<List<ImplementationInformation>> task : tasks ) {
+			try {
+				executor.execute( task );
+			} catch ( RejectedExecutionException e ) {
+				// Run below instead.
+				break;
+			}
+		}
+
+		// Merge in submission order, keeps the result deterministic.
+		List<ImplementationInformation> list = new ArrayList<ImplementationInformation>();
+		try {
+			for ( FutureTask<List<ImplementationInformation>> task : tasks ) {
+				/*
+				 * Run the task here unless the executor already started it, a no-op otherwise.
+				 * We thus only ever wait for tasks that are running, and never deadlock
+				 * if called from a thread of a bounded executor, e.g. findAsync() on the same pool.
+				 */
+				task.run();
+				list.addAll( task.get() );
+			}
+		} catch ( InterruptedException e ) {
+			cancel( tasks );
+			Thread.currentThread().interrupt();
+			throw new RuntimeException( e );
+		} catch ( ExecutionException e ) {
+			cancel( tasks );
+			Throwable cause = e.getCause();
+			if ( cause instanceof RuntimeException ) {
+				throw (RuntimeException) cause;
+			} else if ( cause instanceof Error ) {
+				throw (Error) cause;
+			}
+			throw new RuntimeException( cause );
 		}
 
 		return list.iterator();
 	}
 
+	private static void cancel( List<? extends Future<?>> futures ) {
+		for ( Future<?> future : futures ) {
+			future.cancel( true );
+		}
+	}
+
+	/**
+	 * Parses one stream into a list of its own.
+	 */
+	private static class ParseTask implements Callable<List<ImplementationInformation>> {
+		private final InputStream in;
+
+		ParseTask( InputStream in ) {
+			this.in = in;
+		}
+
+		@Override
+		public List<ImplementationInformation> call() {
+			List<ImplementationInformation> list = new ArrayList<ImplementationInformation>();
+			parse( list, new StringBuilder( BUF_SIZE ), this.in );
+			return list;
+		}
+	}
+
+	static void parse( List<ImplementationInformation> list, StringBuilder builder, InputStream in ) {
+		byte[] table = SEPARATOR_TABLE;
+		if ( table != null && MetainfScanner.isAsciiCompatible( CHARSET ) ) {
+			MetainfScanner.get().scan( list, in, table );
+			return;
+		}
+
+		// Open reader.
+		Reader r = new InputStreamReader( in, CHARSET );
+		BufferedReader reader = new BufferedReader( r );
+		try {
+			while ( readInfo( list, builder, reader ) );
+		} finally {
+			close( reader );
+		}
+	}
+
 	static boolean readInfo( List<ImplementationInformation> list, StringBuilder buf, Reader reader ) {
 		// Read implementation class.
 		int retr = readToTab( buf, reader );
@@ -103,17 +242,25 @@ public class MetainfTransformer implements CollectionIndexTransformer {
 			return addInfo( list, retr, clazz, prio, type, extras );
 		}
 
+		// Read supertypes.
+		retr = readToTab( buf, reader );
+		Set<String> supertypes = Impl.parseSupertypes( buf.toString() );
+
 		// Eat anything left before newline.
-		while ( true ) {
-			if ( isComplete( retr = read( reader ) ) ) {
-				return addInfo( list, retr, clazz, prio, type, extras );
-			}
+		while ( !isComplete( retr ) ) {
+			retr = read( reader );
 		}
+
+		return addInfo( list, retr, clazz, prio, type, extras, supertypes );
 	}
 
 	static boolean addInfo( List<ImplementationInformation> list, int r, String clazz, int prio, String type, Object extras  ) {
+		return addInfo( list, r, clazz, prio, type, extras, null );
+	}
+
+	static boolean addInfo( List<ImplementationInformation> list, int r, String clazz, int prio, String type, Object extras, Set<String> supertypes ) {
 		if ( !clazz.isEmpty() ) {
-			list.add( new Impl( clazz, prio, type, extras ) );
+			list.add( new Impl( clazz, prio, type, extras, supertypes ) );
 		}
 		return r != -1;
 	}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.toxbee.fimpl.metainf;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>PrescanLookupProvider is a {@link MetainfLookupProvider} that walks all classpath roots<br/>
+ * once, on first use, and indexes every file under the suggested base path by name.<br/>
+ * Lookups are then a map lookup instead of a search through every jar.</p>
+ *
+ * <p>The roots are the extra URLs if set, otherwise those of the ClassLoader and its parents.<br/>
+ * If the ClassLoader can't be enumerated, or some root can't be scanned, e.g. a remote jar,<br/>
+ * lookups fall back to {@link MetainfLookupProvider}.</p>
+ *
+ * <p>Files added to the classpath after the scan are not seen until {@link #rescan()}.</p>
+ *
+ * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
+ * @version 1.0
+ * @since Mar, 01, 2014
+ */
+public class PrescanLookupProvider extends MetainfLookupProvider {
+	private static final Map<String, List<URL>> NOT_SCANNABLE = Collections.unmodifiableMap( Collections.<String, List<URL>>emptyMap() );
+
+	/*
+	 * file name -> URLs, null if not scanned yet.
+	 * NOT_SCANNABLE if the classpath can't be scanned.
+	 */
+	protected volatile Map<String, List<URL>> index;
+
+	public PrescanLookupProvider( ClassLoader cl ) {
+		super( cl );
+	}
+
+	public PrescanLookupProvider( ClassLoader cl, String path, URL... urls ) {
+		super( cl, path, urls );
+	}
+
+	@Override
+	public void setSuggestedBase( String path ) {
+		super.setSuggestedBase( path );
+		this.rescan();
+	}
+
+	@Override
+	public void setURLs( URL... urls ) {
+		super.setURLs( urls );
+		this.rescan();
+	}
+
+	/**
+	 * Forgets the scan, the classpath is scanned again on next use.
+	 */
+	public void rescan() {
+		this.index = null;
+	}
+
+	/**
+	 * Returns the index of file name -> URLs, scanning the classpath if not scanned.
+	 *
+	 * @return the index, or null if the classpath can't be scanned.
+	 */
+	public Map<String, List<URL>> index() {
+		Map<String, List<URL>> index = this.index;
+		if ( index == null ) {
+			synchronized ( this ) {
+				index = this.index;
+				if ( index == null ) {
+					this.index = index = this.scan();
+				}
+			}
+		}
+
+		return index == NOT_SCANNABLE ? null : index;
+	}
+
+	protected Map<String, List<URL>> scan() {
+		List<URL> roots = this.scannableRoots();
+		if ( roots == null ) {
+			return NOT_SCANNABLE;
+		}
+
+		// An index missing some root would be taken for complete.
+		List<URL> skipped = new ArrayList<URL>( 0 );
+		Map<String, List<URL>> index = ClasspathScanner.scan( roots, this.path, null, skipped );
+		return skipped.isEmpty() ? Collections.unmodifiableMap( index ) : NOT_SCANNABLE;
+	}
+
+	@Override
+	public <I> Iterator<InputStream> interfaceLookupStream( Class<I> interfase ) {
+		Map<String, List<URL>> index = this.index();
+		if ( index == null ) {
+			return super.interfaceLookupStream( interfase );
+		}
+
+		List<URL> urls = index.get( interfase.getName() );
+		return urls == null ? null : new IterAdapter( Collections.enumeration( urls ) );
+	}
+
+	@Override
+	public Map<Class<?>, Iterator<InputStream>> interfaceLookupStreams( Class<?>... interfaces ) {
+		Map<String, List<URL>> index = this.index();
+		return index == null ? super.interfaceLookupStreams( interfaces ) : streams( index, interfaces );
+	}
+}
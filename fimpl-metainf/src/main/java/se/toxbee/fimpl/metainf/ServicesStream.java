@@ -0,0 +1,38 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.toxbee.fimpl.metainf;
+
+import java.io.FilterInputStream;
+import java.io.InputStream;
+
+/**
+ * ServicesStream is a META-INF/services file of a jar or folder whose {@link se.toxbee.fimpl.common.BinaryIndex}<br/>
+ * couldn't be read, provided by {@link IndexLookupProvider} in place of an {@link IndexStream}.
+ *
+ * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
+ * @version 1.0
+ * @since Feb, 27, 2014
+ */
+class ServicesStream extends FilterInputStream {
+	/**
+	 * Constructs the stream.
+	 *
+	 * @param in the stream of the META-INF/services file.
+	 */
+	ServicesStream( InputStream in ) {
+		super( in );
+	}
+}
@@ -0,0 +1,400 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.toxbee.fimpl.metainf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URL;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import se.toxbee.fimpl.ImplementationListener;
+import se.toxbee.fimpl.ImplementationReader;
+import se.toxbee.fimpl.common.BinaryIndex;
+import se.toxbee.fimpl.common.ImplementationInformation;
+import se.toxbee.fimpl.common.Util;
+import se.toxbee.fimpl.impl.Instrumentable;
+
+import static se.toxbee.fimpl.common.Util.close;
+import static se.toxbee.fimpl.common.Util.guardNull;
+
+/**
+ * <p>SnapshotReader keeps what another {@link ImplementationReader} found in a file,<br/>
+ * so that later starts of the JVM can skip looking, parsing and sorting altogether.</p>
+ *
+ * <p>The snapshot is keyed by a fingerprint of the classpath roots: the path, size and<br/>
+ * modification time of each jar, and of each file under the base path of each folder.<br/>
+ * It is read with one read on first use, and thrown away if the fingerprint differs.<br/>
+ * "Interfaces" not in the snapshot are read from the delegate and remembered,<br/>
+ * {@link #save()} then writes them all - atomically if the file system can.</p>
+ *
+ * <p>Layout: int magic, short version, short n, byte[n] fingerprint, then a {@link BinaryIndex}<br/>
+ * whose entries are already sorted. If the roots can't all be fingerprinted,<br/>
+ * i.e. some are not local or they are unknown, the delegate is always used and nothing is saved.</p>
+ *
+ * @author Centril<twingoow@gmail.com> / Mazdak Farrokhzad.
+ * @version 1.0
+ * @since Mar, 09, 2014
+ */
+public class SnapshotReader implements ImplementationReader, Instrumentable {
+	public static final int MAGIC = 0x46494D53; // "FIMS"
+	public static final short VERSION = 1;
+
+	private static final String SERVICES = "META-INF/services/";
+
+	protected final ImplementationReader delegate;
+	protected final File file;
+	protected final List<URL> roots;
+	protected final String base;
+
+	/*
+	 * interface name -> sorted implementations, null until loaded.
+	 */
+	private Map<String, List<ImplementationInformation>> known;
+	private byte[] fingerprint;
+	private boolean dirty;
+
+	/**
+	 * Constructs a snapshot of a {@link MetainfReader} over the roots of a ClassLoader.
+	 *
+	 * @param file the snapshot file.
+	 * @param cl the ClassLoader, null for the context ClassLoader.
+	 */
+	public SnapshotReader( File file, ClassLoader cl ) {
+		this( new MetainfReader( cl, SERVICES ), file, ClasspathScanner.roots( cl == null ? Thread.currentThread().getContextClassLoader() : cl ), SERVICES );
+	}
+
+	/**
+	 * Constructs a snapshot of a reader.
+	 *
+	 * @param delegate the reader to snapshot.
+	 * @param file the snapshot file.
+	 * @param roots the classpath roots the delegate reads from.
+	 * @param base the base path in folders whose files are fingerprinted, e.g: <tt>META-INF/services/</tt>.
+	 */
+	public SnapshotReader( ImplementationReader delegate, File file, List<URL> roots, String base ) {
+		this.delegate = guardNull( delegate );
+		this.file = guardNull( file );
+		this.roots = Collections.unmodifiableList( new ArrayList<URL>( roots ) );
+		this.base = base == null ? "" : base;
+	}
+
+	/**
+	 * Returns the snapshot file.
+	 *
+	 * @return the file.
+	 */
+	public File getFile() {
+		return this.file;
+	}
+
+	@Override
+	public void setListener( ImplementationListener listener ) {
+		if ( this.delegate instanceof Instrumentable ) {
+			((Instrumentable) this.delegate).setListener( listener );
+		}
+	}
+
+	/**
+	 * Returns whether or not an "interface" is answered from the snapshot, loading it if not loaded.
+	 *
+	 * @param interfase the interface.
+	 * @return true if it is.
+	 */
+	public synchronized boolean isSnapshotted( Class<?> interfase ) {
+		Map<String, List<ImplementationInformation>> known = this.known();
+		return known != null && known.containsKey( interfase.getName() );
+	}
+
+	@Override
+	public <I> Iterator<ImplementationInformation> readImplementationCollection( Class<I> interfase ) {
+		return this.readImplementationCollections( interfase ).get( interfase );
+	}
+
+	@Override
+	public Map<Class<?>, Iterator<ImplementationInformation>> readImplementationCollections( Class<?>... interfaces ) {
+		Map<Class<?>, Iterator<ImplementationInformation>> map = new LinkedHashMap<Class<?>, Iterator<ImplementationInformation>>();
+		List<Class<?>> missing = new ArrayList<Class<?>>( interfaces.length );
+
+		synchronized ( this ) {
+			Map<String, List<ImplementationInformation>> known = this.known();
+			if ( known == null ) {
+				return this.delegate.readImplementationCollections( interfaces );
+			}
+
+			for ( Class<?> interfase : interfaces ) {
+				List<ImplementationInformation> infos = known.get( interfase.getName() );
+				map.put( interfase, infos == null || infos.isEmpty() ? null : infos.iterator() );
+				if ( infos == null ) {
+					missing.add( interfase );
+				}
+			}
+		}
+
+		if ( missing.isEmpty() ) {
+			return map;
+		}
+
+		Map<Class<?>, Iterator<ImplementationInformation>> read = this.delegate.readImplementationCollections( missing.toArray( new Class<?>[missing.size()] ) );
+
+		synchronized ( this ) {
+			// Unless reloaded meanwhile.
+			Map<String, List<ImplementationInformation>> known = this.known;
+
+			for ( Map.Entry<Class<?>, Iterator<ImplementationInformation>> e : read.entrySet() ) {
+				List<ImplementationInformation> infos = sorted( e.getValue() );
+				if ( known != null ) {
+					known.put( e.getKey().getName(), infos );
+				}
+				map.put( e.getKey(), infos.isEmpty() ? null : infos.iterator() );
+			}
+
+			this.dirty = known != null;
+		}
+
+		return map;
+	}
+
+	/**
+	 * Writes the snapshot if anything was read from the delegate since it was loaded or saved.<br/>
+	 * The file is written to a temporary file of its own next to it and then moved into place,<br/>
+	 * so other JVM:s saving at the same time never interleave their writes.
+	 *
+	 * @return true if written.
+	 */
+	public synchronized boolean save() {
+		if ( !this.dirty || this.known() == null ) {
+			return false;
+		}
+
+		File tmp = null;
+		try {
+			File dir = this.file.getAbsoluteFile().getParentFile();
+			if ( !dir.isDirectory() && !dir.mkdirs() ) {
+				throw new IOException( "Could not create: " + dir );
+			}
+
+			tmp = Files.createTempFile( dir.toPath(), this.file.getName(), ".tmp" ).toFile();
+			FileOutputStream out = new FileOutputStream( tmp );
+			try {
+				this.write( out );
+			} finally {
+				close( out );
+			}
+
+			try {
+				Files.move( tmp.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+			} catch ( AtomicMoveNotSupportedException e ) {
+				Files.move( tmp.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING );
+			}
+		} catch ( IOException e ) {
+			if ( tmp != null ) {
+				tmp.delete();
+			}
+
+			throw new RuntimeException( e );
+		}
+
+		this.dirty = false;
+		return true;
+	}
+
+	/**
+	 * Forgets the snapshot in memory, the file is loaded again and the classpath fingerprinted again on next use.
+	 */
+	public synchronized void reload() {
+		this.known = null;
+		this.fingerprint = null;
+		this.dirty = false;
+	}
+
+	/* ----------------------------------------------
+	 * Loading & writing.
+	 * ----------------------------------------------
+	 */
+
+	/*
+	 * Must hold the lock. Returns null if the classpath can't be fingerprinted.
+	 */
+	private Map<String, List<ImplementationInformation>> known() {
+		if ( this.known == null ) {
+			this.fingerprint = fingerprint( this.roots, this.base );
+			if ( this.fingerprint == null ) {
+				return null;
+			}
+
+			this.known = this.load( this.fingerprint );
+		}
+
+		return this.known;
+	}
+
+	private Map<String, List<ImplementationInformation>> load( byte[] fingerprint ) {
+		Map<String, List<ImplementationInformation>> known = new HashMap<String, List<ImplementationInformation>>();
+
+		ByteBuffer buf = read( this.file );
+		if ( buf == null ) {
+			return known;
+		}
+
+		try {
+			if ( buf.getInt() != MAGIC || buf.getShort() != VERSION ) {
+				return known;
+			}
+
+			byte[] stored = new byte[buf.getShort()];
+			buf.get( stored );
+			if ( !Arrays.equals( stored, fingerprint ) ) {
+				// The classpath has changed.
+				return known;
+			}
+
+			BinaryIndex index = new BinaryIndex( buf );
+			for ( String interfase : index.interfaces() ) {
+				known.put( interfase, Collections.unmodifiableList( index.read( interfase, new ArrayList<ImplementationInformation>( index.count( interfase ) ) ) ) );
+			}
+		} catch ( BufferUnderflowException e ) {
+			known.clear();
+		} catch ( IllegalArgumentException e ) {
+			// Corrupt, treat as missing.
+			known.clear();
+		}
+
+		return known;
+	}
+
+	private void write( FileOutputStream out ) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream dout = new DataOutputStream( bytes );
+		dout.writeInt( MAGIC );
+		dout.writeShort( VERSION );
+		dout.writeShort( this.fingerprint.length );
+		dout.write( this.fingerprint );
+		BinaryIndex.write( this.known, dout );
+
+		// One write, like the one read.
+		bytes.writeTo( out );
+		out.getFD().sync();
+	}
+
+	private static ByteBuffer read( File file ) {
+		if ( !file.isFile() ) {
+			return null;
+		}
+
+		try {
+			RandomAccessFile in = new RandomAccessFile( file, "r" );
+			try {
+				byte[] bytes = new byte[(int) in.length()];
+				in.readFully( bytes );
+				return ByteBuffer.wrap( bytes );
+			} finally {
+				close( in );
+			}
+		} catch ( IOException e ) {
+			// Unreadable, treat as missing.
+			return null;
+		}
+	}
+
+	private static List<ImplementationInformation> sorted( Iterator<ImplementationInformation> iter ) {
+		List<ImplementationInformation> list = new ArrayList<ImplementationInformation>();
+		if ( iter != null ) {
+			while ( iter.hasNext() ) {
+				list.add( iter.next() );
+			}
+		}
+
+		Collections.sort( list );
+		return Collections.unmodifiableList( list );
+	}
+
+	/**
+	 * Computes the fingerprint of classpath roots: the path, size and modification time of jars,<br/>
+	 * and of the files directly under base in folders.
+	 *
+	 * @param roots the roots.
+	 * @param base the base path in folders, empty or ending with '/'.
+	 * @return the fingerprint, or null if there are no roots or some root isn't local.
+	 */
+	static byte[] fingerprint( Collection<URL> roots, String base ) {
+		// No roots: the class loader couldn't be enumerated, nothing to tell a stale snapshot by.
+		if ( roots.isEmpty() ) {
+			return null;
+		}
+
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance( "SHA-1" );
+		} catch ( NoSuchAlgorithmException e ) {
+			throw new RuntimeException( e );
+		}
+
+		ByteBuffer buf = ByteBuffer.allocate( 16 );
+		for ( URL root : roots ) {
+			if ( root == null ) {
+				continue;
+			}
+
+			File file = ClasspathScanner.file( root );
+			if ( file == null ) {
+				return null;
+			}
+
+			if ( file.isDirectory() ) {
+				update( digest, buf, file );
+
+				File[] files = new File( file, base ).listFiles();
+				if ( files != null ) {
+					Arrays.sort( files );
+					for ( File f : files ) {
+						update( digest, buf, f );
+					}
+				}
+			} else {
+				update( digest, buf, file );
+			}
+		}
+
+		return digest.digest();
+	}
+
+	private static void update( MessageDigest digest, ByteBuffer buf, File file ) {
+		digest.update( file.getPath().getBytes( Util.CHARSET ) );
+
+		buf.clear();
+		buf.putLong( file.length() ).putLong( file.lastModified() );
+		digest.update( buf.array() );
+	}
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.toxbee.fimpl.metainf
+
+import se.toxbee.fimpl.ImplementationListener
+import se.toxbee.fimpl.common.BinaryIndex
+import se.toxbee.fimpl.common.ImplementationInformation
+import spock.lang.Specification
+
+import java.util.jar.JarEntry
+import java.util.jar.JarOutputStream
+
+class IndexReaderTest extends Specification {
+	interface iface {}
+	interface other {}
+
+	File dir
+
+	void setup() {
+		dir = File.createTempFile( "fimpl", "" )
+		dir.delete()
+		dir.mkdirs()
+	}
+
+	void cleanup() {
+		dir.deleteDir()
+	}
+
+	def infos( String prefix, int n ) {
+		(0..<n).collect { new ImplementationInformation.Impl( "${prefix}${it}", it ) } as Set
+	}
+
+	byte[] index( Map map ) {
+		def out = new ByteArrayOutputStream()
+		BinaryIndex.write( map, out )
+		out.toByteArray()
+	}
+
+	def "Reads indexes in folders and jars"() {
+		given:
+			def folder = new File( dir, "folder" )
+			new File( folder, "META-INF" ).mkdirs()
+			new File( folder, IndexLookupProvider.DEFAULT_LOCATION ).bytes = index( [(iface.name): infos( "f", 3 )] )
+
+			def jar = new File( dir, "a.jar" )
+			def jos = new JarOutputStream( new FileOutputStream( jar ) )
+			jos.putNextEntry( new JarEntry( IndexLookupProvider.DEFAULT_LOCATION ) )
+			jos.write( index( [(iface.name): infos( "j", 2 ), (other.name): infos( "o", 1 )] ) )
+			jos.close()
+
+			def cl = new URLClassLoader( [folder.toURI().toURL(), jar.toURI().toURL()] as URL[], (ClassLoader) null )
+			def reader = new IndexReader( cl, null )
+		when:
+			def found = reader.readImplementationCollection( iface ).collect { it.implementorClass }
+		then:
+			found as Set == ["f0", "f1", "f2", "j0", "j1"] as Set
+			reader.readImplementationCollection( other ).collect { it.implementorClass } == ["o0"]
+			reader.readImplementationCollection( Runnable ) == null
+		cleanup:
+			cl.close()
+	}
+
+	def "Instrumented reads unwrap counted streams"() {
+		given:
+			def folder = new File( dir, "folder" )
+			new File( folder, "META-INF" ).mkdirs()
+			new File( folder, IndexLookupProvider.DEFAULT_LOCATION ).bytes = index( [(iface.name): infos( "f", 3 )] )
+
+			def parsed = []
+			def cl = new URLClassLoader( [folder.toURI().toURL()] as URL[], (ClassLoader) null )
+			def reader = new IndexReader( cl, null )
+			reader.setListener( new ImplementationListener() {
+				@Override
+				void parse( Class<?> interfase, int streams, long bytes, int entries, long nanos ) {
+					parsed << [interfase, streams, entries]
+				}
+			} )
+		when:
+			def found = reader.readImplementationCollection( iface ).collect { it.implementorClass }
+		then:
+			found as Set == ["f0", "f1", "f2"] as Set
+			parsed == [[iface, 1, 3]]
+		cleanup:
+			cl.close()
+	}
+
+	def "Falls back on META-INF/services where an index is broken"() {
+		given:
+			def broken = new File( dir, "broken" )
+			new File( broken, "META-INF/services" ).mkdirs()
+			def bytes = index( [(iface.name): infos( "b", 3 )] )
+			new File( broken, IndexLookupProvider.DEFAULT_LOCATION ).bytes = Arrays.copyOf( bytes, bytes.length - 3 )
+			new File( broken, "META-INF/services/" + iface.name ).text = "s0\ns1\t1\n"
+
+			def foreign = new File( dir, "foreign" )
+			new File( foreign, "META-INF" ).mkdirs()
+			new File( foreign, IndexLookupProvider.DEFAULT_LOCATION ).text = "not an index"
+
+			def folder = new File( dir, "folder" )
+			new File( folder, "META-INF" ).mkdirs()
+			new File( folder, IndexLookupProvider.DEFAULT_LOCATION ).bytes = index( [(iface.name): infos( "f", 2 )] )
+
+			def urls = [broken, foreign, folder].collect { it.toURI().toURL() }
+			def cl = new URLClassLoader( urls as URL[], (ClassLoader) null )
+			def provider = new IndexLookupProvider( cl, null )
+			def reader = new IndexReader( cl, null )
+		expect:
+			provider.indexes().size() == 1
+			reader.readImplementationCollection( iface ).collect { it.implementorClass } as Set == ["s0", "s1", "f0", "f1"] as Set
+			reader.readImplementationCollection( other ) == null
+		cleanup:
+			cl.close()
+	}
+
+	def "Transformer only reads index streams"() {
+		when:
+			new IndexTransformer().readImplementationCollection( [new ByteArrayInputStream( new byte[0] )].iterator() )
+		then:
+			thrown( IllegalArgumentException )
+		expect:
+			new IndexTransformer().readImplementationCollection( [].iterator() ) == null
+	}
+}
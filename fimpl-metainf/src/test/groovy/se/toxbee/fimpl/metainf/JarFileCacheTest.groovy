@@ -0,0 +1,106 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.toxbee.fimpl.metainf
+
+import spock.lang.Specification
+
+import java.util.jar.JarEntry
+import java.util.jar.JarOutputStream
+
+class JarFileCacheTest extends Specification {
+	File dir
+
+	void setup() {
+		dir = File.createTempFile( "fimpl", "" )
+		dir.delete()
+		dir.mkdirs()
+	}
+
+	void cleanup() {
+		dir.deleteDir()
+	}
+
+	File jar( String name, String... entries ) {
+		def jar = new File( dir, name )
+		def jos = new JarOutputStream( new FileOutputStream( jar ) )
+		entries.each {
+			jos.putNextEntry( new JarEntry( it ) )
+			jos.write( it.bytes )
+		}
+		jos.close()
+		jar
+	}
+
+	def "Indexes entry names"() {
+		given:
+			def cache = new JarFileCache( 4 )
+			def a = jar( "a.jar", "META-INF/services/x", "y" )
+		expect:
+			cache.get( a ).names == ["META-INF/services/x", "y"] as Set
+			cache.size() == 1
+			cache.get( a ).is( cache.get( a ) )
+		cleanup:
+			cache.close()
+	}
+
+	def "Indexes again when the jar changed"() {
+		given:
+			def cache = new JarFileCache( 4 )
+			def a = jar( "a.jar", "x" )
+			def first = cache.get( a )
+		when:
+			jar( "a.jar", "x", "y" )
+			a.lastModified = first.lastModified + 2000
+		then:
+			cache.get( a ).names == ["x", "y"] as Set
+			cache.size() == 1
+	}
+
+	def "Evicts least recently used"() {
+		given:
+			def cache = new JarFileCache( 2 )
+			def jars = (0..<3).collect { jar( "${it}.jar", "e${it}" ) }
+		when:
+			def first = cache.get( jars[0] )
+			cache.get( jars[1] )
+			cache.get( jars[0] )
+			cache.get( jars[2] )
+		then:
+			cache.size() == 2
+			cache.get( jars[0] ).is( first )
+			!cache.get( jars[1] ).is( first )
+		when:
+			cache.setMaxSize( 1 )
+		then:
+			cache.size() == 1
+		when:
+			cache.close()
+		then:
+			cache.size() == 0
+	}
+
+	def "Bad size or jar"() {
+		when:
+			new JarFileCache( 0 )
+		then:
+			thrown( IllegalArgumentException )
+		when:
+			new JarFileCache( 1 ).get( new File( dir, "missing.jar" ) )
+		then:
+			thrown( IOException )
+	}
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.toxbee.fimpl.metainf
+
+import spock.lang.Specification
+
+import java.util.jar.Attributes
+import java.util.jar.JarEntry
+import java.util.jar.JarOutputStream
+import java.util.jar.Manifest
+
+class MetainfLookupProviderTest extends Specification {
+	interface iface {}
+	interface other {}
+
+	static final String BASE = "META-INF/services/"
+
+	File dir
+
+	void setup() {
+		dir = File.createTempFile( "fimpl", "" )
+		dir.delete()
+		dir.mkdirs()
+	}
+
+	void cleanup() {
+		dir.deleteDir()
+	}
+
+	File jar( String name, Map files, String classPath = null ) {
+		def jar = new File( dir, name )
+		jar.parentFile.mkdirs()
+		def manifest = new Manifest()
+		manifest.mainAttributes.put( Attributes.Name.MANIFEST_VERSION, "1.0" )
+		if ( classPath != null ) {
+			manifest.mainAttributes.put( Attributes.Name.CLASS_PATH, classPath )
+		}
+		def jos = new JarOutputStream( new FileOutputStream( jar ), manifest )
+		files.each { k, v ->
+			jos.putNextEntry( new JarEntry( BASE + k ) )
+			jos.write( v.bytes )
+		}
+		jos.close()
+		jar
+	}
+
+	List<String> read( Iterator<InputStream> streams ) {
+		streams == null ? null : streams.collect { it.text }
+	}
+
+	def "Looks up in jars and folders among the URLs"() {
+		given:
+			def folder = new File( dir, "folder/" )
+			new File( folder, BASE ).mkdirs()
+			new File( folder, BASE + iface.name ).text = "f"
+			def a = jar( "a.jar", [(iface.name): "a"] )
+			def b = jar( "b.jar", [(iface.name): "b", (other.name): "o"] )
+			def provider = new MetainfLookupProvider( null, BASE, folder.toURI().toURL(), a.toURI().toURL(), b.toURI().toURL() )
+		expect:
+			read( provider.interfaceLookupStream( iface ) ) == ["f", "a", "b"]
+			read( provider.interfaceLookupStream( other ) ) == ["o"]
+			provider.interfaceLookupStream( Runnable ) == null
+		cleanup:
+			provider.close()
+	}
+
+	def "Keeps jars open until closed"() {
+		given:
+			def jars = (0..<3).collect { jar( "${it}.jar", [(iface.name): "${it}"] ) }
+			def provider = new MetainfLookupProvider( null, BASE, jars.collect { it.toURI().toURL() } as URL[] )
+		when:
+			provider.interfaceLookupStream( iface )
+		then:
+			provider.jars.size() == 3
+		when:
+			provider.setJarCacheSize( 1 )
+			read( provider.interfaceLookupStream( other ) ) == null
+		then:
+			provider.jars.size() == 1
+		when:
+			provider.close()
+		then:
+			provider.jars.size() == 0
+			read( provider.interfaceLookupStream( iface ) ) == ["0", "1", "2"]
+		cleanup:
+			provider.close()
+	}
+
+	def "Looks up many interfaces in one pass"() {
+		given:
+			def folder = new File( dir, "folder/" )
+			new File( folder, BASE ).mkdirs()
+			new File( folder, BASE + iface.name ).text = "f"
+			def a = jar( "a.jar", [(iface.name): "a"] )
+			def b = jar( "b.jar", [(iface.name): "b", (other.name): "o"] )
+			def urls = [folder.toURI().toURL(), a.toURI().toURL(), b.toURI().toURL()] as URL[]
+			def cl = new URLClassLoader( urls, (ClassLoader) null )
+			def providers = [new MetainfLookupProvider( null, BASE, urls ), new MetainfLookupProvider( cl )]
+		expect:
+			providers.every { provider ->
+				def streams = provider.interfaceLookupStreams( iface, other, Runnable )
+				streams.keySet() as List == [iface, other, Runnable] &&
+				read( streams[iface] ) == ["f", "a", "b"] &&
+				read( streams[other] ) == ["o"] &&
+				streams[Runnable] == null
+			}
+			// The ClassLoader isn't asked.
+			providers[1].interfaceLookupStreams( iface, other )[iface] instanceof IterAdapter
+		cleanup:
+			providers*.close()
+			cl.close()
+	}
+
+	def "Falls back when the roots can't be walked"() {
+		given:
+			def cl = Mock(ClassLoader)
+			def provider = new MetainfLookupProvider( cl )
+		when:
+			def streams = provider.interfaceLookupStreams( iface, other )
+		then:
+			1 * cl.getResources( BASE + iface.name ) >> Collections.emptyEnumeration()
+			1 * cl.getResources( BASE + other.name ) >> Collections.emptyEnumeration()
+			streams == [(iface): null, (other): null]
+	}
+
+	def "Looks up many interfaces just as one by one"() {
+		given:
+			def folder = new File( dir, "folder/" )
+			new File( folder, BASE ).mkdirs()
+			new File( folder, BASE + iface.name ).text = "f"
+			def lib = jar( "lib/lib.jar", [(iface.name): "lib", (other.name): "o"] )
+			def app = jar( "app.jar", [(iface.name): "app"], "lib/lib.jar" )
+			def junk = new File( dir, "junk.jar" )
+			junk.text = "not a zip"
+			def loaders = [
+				new URLClassLoader( [app.toURI().toURL(), folder.toURI().toURL()] as URL[], (ClassLoader) null ),
+				new URLClassLoader( [junk.toURI().toURL(), app.toURI().toURL()] as URL[], (ClassLoader) null ),
+			]
+			def providers = loaders.collect { new MetainfLookupProvider( it ) } +
+					new MetainfLookupProvider( null, BASE, app.toURI().toURL(), folder.toURI().toURL() )
+		expect:
+			providers.every { provider ->
+				def streams = provider.interfaceLookupStreams( iface, other, Runnable )
+				[iface, other, Runnable].every { read( streams[it] ) == read( provider.interfaceLookupStream( it ) ) }
+			}
+			read( providers[0].interfaceLookupStreams( iface, other )[iface] ) == ["app", "lib", "f"]
+		cleanup:
+			providers*.close()
+			loaders*.close()
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.toxbee.fimpl.metainf
+
+import se.toxbee.fimpl.common.ImplementationInformation
+import se.toxbee.fimpl.common.Util
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class MetainfScannerTest extends Specification {
+	static final char[] LINES = ['\n', '\r'] as char[]
+	static final char[] PIECES = ['\t'] as char[]
+
+	def scan( String text, byte[] table = MetainfScanner.table( LINES, PIECES ) ) {
+		def list = []
+		MetainfScanner.get().scan( list, new ByteArrayInputStream( text.getBytes( Util.CHARSET ) ), table )
+		list.collect { describe( it ) }
+	}
+
+	def readInfo( String text ) {
+		def list = []
+		def reader = new BufferedReader( new StringReader( text ) )
+		def buf = new StringBuilder()
+		while ( MetainfTransformer.readInfo( list, buf, reader ) );
+		list.collect { describe( it ) }
+	}
+
+	def describe( ImplementationInformation i ) {
+		[i.implementorClass, i.priority, i.type, i.extras, i.supertypes]
+	}
+
+	@Unroll
+	def "Agrees with readInfo: #text"() {
+		expect:
+			scan( text ) == readInfo( text )
+		where:
+			text << [
+				"",
+				"clazz",
+				"clazz\n",
+				"\n\n\r\n",
+				"clazz\t0\ttype\textra\tignored-stuff\t\t\t\nnext",
+				"clazz\t\ttype\textra\r\nclazz\t1337\nclazz\t-1337\nclazz\t+7",
+				"clazz\t0\t\textra\nclazz\t\t\textra",
+				"\t1\ttype\nclazz\t2",
+				"clazz\t",
+				"clazz\t1\t",
+				"clazz\t1\ttype\t",
+				"clazz\t2147483647\nclazz\t-2147483648",
+				"se.\u00e5\u00e4\u00f6.Klass\t3\ttyp/\u00f6\textra\u20ac",
+				"clazz\t0\t\t\ta.A,b.B\nclazz2\t1\t\t\t\nclazz3\t2\tt\te\ta.A\tignored",
+			]
+	}
+
+	def "Supertypes"() {
+		expect:
+			scan( "clazz\t0\t\t\ta.A,b.B,,c.C" ) == [["clazz", 0, null, null, ["a.A", "b.B", "c.C"] as Set]]
+			scan( "clazz\t0\t\t\t" ) == [["clazz", 0, null, null, null]]
+	}
+
+	def "Agrees with readInfo on large input"() {
+		given:
+			def text = (0..<5000).collect { "com.example.Impl${it}\t${it - 2500}\ttype/${it % 7}\textras${it}" }.join( "\n" )
+		expect:
+			scan( text ) == readInfo( text )
+			scan( text ).size() == 5000
+	}
+
+	@Unroll
+	def "Bad priority throws: #text"() {
+		when:
+			scan( text )
+		then:
+			thrown( NumberFormatException )
+		where:
+			text << ["clazz\tabc", "clazz\t-", "clazz\t 1", "clazz\t99999999999"]
+	}
+
+	def "Table"() {
+		given:
+			def table = MetainfScanner.table( LINES, [';', '\n'] as char[] )
+		expect:
+			table[(int) ';'] == MetainfScanner.PIECE
+			table[(int) '\n'] == MetainfScanner.LINE
+			table[(int) '\r'] == MetainfScanner.LINE
+			table[(int) 'a'] == MetainfScanner.OTHER
+			MetainfScanner.table( LINES, ['\u00a7'] as char[] ) == null
+			MetainfScanner.isAsciiCompatible( Util.CHARSET )
+			!MetainfScanner.isAsciiCompatible( java.nio.charset.Charset.forName( "UTF-16" ) )
+	}
+
+	def "Transformer honours custom separators"() {
+		given:
+			def transformer = new MetainfTransformer()
+			def read = { String text -> transformer.readImplementationCollection( [new ByteArrayInputStream( text.getBytes( Util.CHARSET ) )].iterator() ).collect { describe( it ) } }
+		when:
+			MetainfTransformer.setPieceSeparators( [';'] as char[] )
+		then:
+			read( "clazz;1;type\tx" ) == [["clazz", 1, "type\tx", null, null]]
+		when:
+			MetainfTransformer.setPieceSeparators( ['\u00a7'] as char[] )
+		then:
+			read( "clazz\u00a71\u00a7type" ) == [["clazz", 1, "type", null, null]]
+		cleanup:
+			MetainfTransformer.setPieceSeparators( PIECES )
+	}
+}
@@ -21,6 +21,10 @@ import se.toxbee.fimpl.common.ImplementationInformation
 import spock.lang.Shared
 import spock.lang.Specification
 
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
 class MetainfTransformerTest extends Specification {
 	def @Shared i_1 = info( "clazz", 0, "type", "extra" )
 	def @Shared i_2 = info( "clazz", 0, null, "extra" )
@@ -61,6 +65,69 @@ clazz"""
 			r3.collect().equals( expected )
 	}
 
+	def "ReadImplementationCollection with executor"() {
+		given:
+			def sequential = new MetainfTransformer()
+			def parallel = new MetainfTransformer()
+			def executor = Executors.newFixedThreadPool( 4 )
+			parallel.setExecutor( executor )
+			def texts = (0..<20).collect { i -> (0..<i).collect { "clazz${i}_${it}\t${it}\ttype" }.join( "\n" ) }
+			def streams = { texts.collect { new ByteArrayInputStream( it.getBytes( Util.CHARSET ) ) }.iterator() }
+		expect:
+			parallel.getExecutor().is( executor )
+			parallel.readImplementationCollection( [].iterator() ) == null
+			parallel.readImplementationCollection( streams() ).collect() == sequential.readImplementationCollection( streams() ).collect()
+			parallel.readImplementationCollection( [new ByteArrayInputStream( testText.getBytes( Util.CHARSET ) )].iterator() ).collect().size() == 8
+		cleanup:
+			executor.shutdown()
+	}
+
+	def "ReadImplementationCollection with executor rethrows"() {
+		given:
+			def transformer = new MetainfTransformer()
+			def executor = Executors.newFixedThreadPool( 2 )
+			transformer.setExecutor( executor )
+			def broken = Mock( InputStream )
+			broken.read( _, _, _ ) >> { throw new IOException() }
+		when:
+			transformer.readImplementationCollection( [new ByteArrayInputStream( "clazz".bytes ), broken].iterator() )
+		then:
+			def e = thrown( RuntimeException )
+			e.cause instanceof IOException
+		cleanup:
+			executor.shutdown()
+	}
+
+	def "ReadImplementationCollection on a thread of the executor"() {
+		given:
+			def transformer = new MetainfTransformer()
+			def executor = Executors.newFixedThreadPool( 1 )
+			transformer.setExecutor( executor )
+			def streams = { (0..<4).collect { new ByteArrayInputStream( "clazz${it}".getBytes( Util.CHARSET ) ) }.iterator() }
+		when:
+			def found = executor.submit( { transformer.readImplementationCollection( streams() ).collect() } as Callable ).get( 10, TimeUnit.SECONDS )
+		then:
+			found*.implementorClass == ["clazz0", "clazz1", "clazz2", "clazz3"]
+		when:
+			executor.shutdown()
+		then:
+			transformer.readImplementationCollection( streams() ).collect()*.implementorClass == ["clazz0", "clazz1", "clazz2", "clazz3"]
+		cleanup:
+			executor.shutdown()
+	}
+
+	def "IterAdapter opens lazily"() {
+		given:
+			def file = File.createTempFile( "fimpl", "" )
+			file.text = "clazz"
+			def stream = new IterAdapter( Collections.enumeration( [file.toURI().toURL()] ) ).next()
+		when:
+			file.delete()
+			stream.read()
+		then:
+			thrown( IOException )
+	}
+
 	def retr;
 	def StringBuilder buf = new StringBuilder()
 	def Reader reader
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.toxbee.fimpl.metainf
+
+import spock.lang.Specification
+
+import java.util.jar.Attributes
+import java.util.jar.JarEntry
+import java.util.jar.JarOutputStream
+import java.util.jar.Manifest
+
+class PrescanLookupProviderTest extends Specification {
+	interface iface {}
+	interface other {}
+
+	static final String BASE = "META-INF/services/"
+
+	File dir
+
+	void setup() {
+		dir = File.createTempFile( "fimpl", "" )
+		dir.delete()
+		dir.mkdirs()
+	}
+
+	void cleanup() {
+		dir.deleteDir()
+	}
+
+	File folder( String name, Map files ) {
+		def folder = new File( dir, name )
+		def services = new File( folder, BASE )
+		services.mkdirs()
+		files.each { k, v -> new File( services, k ).text = v }
+		new File( services, "nested" ).mkdirs()
+		folder
+	}
+
+	File jar( String name, Map files, String classPath = null ) {
+		def jar = new File( dir, name )
+		jar.parentFile.mkdirs()
+		def manifest = new Manifest()
+		manifest.mainAttributes.put( Attributes.Name.MANIFEST_VERSION, "1.0" )
+		if ( classPath != null ) {
+			manifest.mainAttributes.put( Attributes.Name.CLASS_PATH, classPath )
+		}
+		def jos = new JarOutputStream( new FileOutputStream( jar ), manifest )
+		files.each { k, v ->
+			jos.putNextEntry( new JarEntry( BASE + k ) )
+			jos.write( v.bytes )
+		}
+		jos.putNextEntry( new JarEntry( BASE + "nested/" + iface.name ) )
+		jos.write( "nested".bytes )
+		jos.close()
+		jar
+	}
+
+	List<String> read( Iterator<InputStream> streams ) {
+		streams == null ? null : streams.collect { it.text }
+	}
+
+	def "Indexes folders and jars of the ClassLoader"() {
+		given:
+			def a = folder( "a", [(iface.name): "a"] )
+			def b = jar( "b.jar", [(iface.name): "b", (other.name): "o"] )
+			def cl = new URLClassLoader( [a.toURI().toURL(), b.toURI().toURL()] as URL[], (ClassLoader) null )
+			def provider = new PrescanLookupProvider( cl )
+		expect:
+			read( provider.interfaceLookupStream( iface ) ) == ["a", "b"]
+			read( provider.interfaceLookupStream( other ) ) == ["o"]
+			provider.interfaceLookupStream( Runnable ) == null
+			provider.index().keySet() == [iface.name, other.name] as Set
+		cleanup:
+			cl.close()
+	}
+
+	def "Scans once until rescan"() {
+		given:
+			def a = folder( "a", [(iface.name): "a"] )
+			def cl = new URLClassLoader( [a.toURI().toURL()] as URL[], (ClassLoader) null )
+			def provider = new PrescanLookupProvider( cl )
+		when:
+			def index = provider.index()
+			new File( a, BASE + other.name ).text = "o"
+		then:
+			provider.index().is( index )
+			provider.interfaceLookupStream( other ) == null
+		when:
+			provider.rescan()
+		then:
+			read( provider.interfaceLookupStream( other ) ) == ["o"]
+		cleanup:
+			cl.close()
+	}
+
+	def "Scans the extra URLs when set"() {
+		given:
+			def a = folder( "a", [(iface.name): "a"] )
+			def b = jar( "b.jar", [(iface.name): "b"] )
+			def provider = new PrescanLookupProvider( null, BASE, a.toURI().toURL(), b.toURI().toURL() )
+		expect:
+			read( provider.interfaceLookupStream( iface ) ) == ["a", "b"]
+	}
+
+	def "Agrees with MetainfLookupProvider"() {
+		given:
+			def a = folder( "a", [(iface.name): "a"] )
+			def b = jar( "b.jar", [(iface.name): "b", (other.name): "o"] )
+			def cl = new URLClassLoader( [a.toURI().toURL(), b.toURI().toURL()] as URL[], (ClassLoader) null )
+		expect:
+			[iface, other, Runnable].every {
+				read( new PrescanLookupProvider( cl ).interfaceLookupStream( it ) ) == read( new MetainfLookupProvider( cl ).interfaceLookupStream( it ) )
+			}
+		cleanup:
+			cl.close()
+	}
+
+	def "Falls back when the ClassLoader can't be enumerated"() {
+		given:
+			def a = folder( "a", [(iface.name): "a"] )
+			def inner = new URLClassLoader( [a.toURI().toURL()] as URL[], (ClassLoader) null )
+			def cl = new ClassLoader( inner ) {}
+			def provider = new PrescanLookupProvider( cl )
+		expect:
+			provider.index() == null
+			read( provider.interfaceLookupStream( iface ) ) == ["a"]
+		cleanup:
+			inner.close()
+	}
+
+	def "Looks up many interfaces in the index"() {
+		given:
+			def a = folder( "a", [(iface.name): "a"] )
+			def b = jar( "b.jar", [(iface.name): "b", (other.name): "o"] )
+			def provider = new PrescanLookupProvider( null, BASE, a.toURI().toURL(), b.toURI().toURL() )
+		when:
+			def streams = provider.interfaceLookupStreams( other, iface, Runnable )
+		then:
+			streams.keySet() as List == [other, iface, Runnable]
+			read( streams[iface] ) == ["a", "b"]
+			read( streams[other] ) == ["o"]
+			streams[Runnable] == null
+	}
+
+	def "Follows the Class-Path of manifests"() {
+		given:
+			def a = folder( "a", [(iface.name): "a"] )
+			def c = jar( "lib/c.jar", [(iface.name): "c"] )
+			def d = jar( "lib/d.jar", [(iface.name): "d"], "c.jar" )
+			def app = jar( "app.jar", [(iface.name): "app"], "lib/d.jar  lib/c.jar missing.jar" )
+			def cl = new URLClassLoader( [app.toURI().toURL(), a.toURI().toURL()] as URL[], (ClassLoader) null )
+		expect:
+			ClasspathScanner.roots( cl ) == [app, d, c, new File( dir, "missing.jar" ), a]*.toURI()*.toURL()
+			read( new PrescanLookupProvider( cl ).interfaceLookupStream( iface ) ) == ["app", "d", "c", "a"]
+			read( new PrescanLookupProvider( cl ).interfaceLookupStream( iface ) ) == read( new MetainfLookupProvider( cl ).interfaceLookupStream( iface ) )
+		cleanup:
+			cl.close()
+	}
+
+	def "No roots with loaders or modules that can't be enumerated"() {
+		given:
+			def a = folder( "a", [(iface.name): "a"] )
+			def cl = new URLClassLoader( [a.toURI().toURL()] as URL[], new ClassLoader( null ) {} )
+			def plain = new URLClassLoader( [a.toURI().toURL()] as URL[], (ClassLoader) null )
+			def modulePath = System.getProperty( "jdk.module.path" )
+		expect:
+			ClasspathScanner.roots( cl ).isEmpty()
+			read( new PrescanLookupProvider( cl ).interfaceLookupStream( iface ) ) == ["a"]
+		when:
+			System.setProperty( "jdk.module.path", dir.path )
+		then:
+			ClasspathScanner.roots( plain ).isEmpty()
+			read( new PrescanLookupProvider( plain ).interfaceLookupStream( iface ) ) == ["a"]
+		cleanup:
+			if ( modulePath == null ) {
+				System.clearProperty( "jdk.module.path" )
+			} else {
+				System.setProperty( "jdk.module.path", modulePath )
+			}
+			cl.close()
+			plain.close()
+	}
+
+	def "Skips roots that can't be read"() {
+		given:
+			def junk = new File( dir, "junk.jar" )
+			junk.text = "not a zip"
+			def a = folder( "a", [(iface.name): "a"] )
+			def cl = new URLClassLoader( [junk.toURI().toURL(), a.toURI().toURL()] as URL[], (ClassLoader) null )
+			def skipped = []
+		when:
+			def index = ClasspathScanner.scan( ClasspathScanner.roots( cl ), BASE, null, skipped )
+		then:
+			index[iface.name]*.text == ["a"]
+			skipped == [junk.toURI().toURL()]
+			read( new PrescanLookupProvider( cl ).interfaceLookupStream( iface ) ) == read( new MetainfLookupProvider( cl ).interfaceLookupStream( iface ) )
+		cleanup:
+			cl.close()
+	}
+
+	def "Falls back when some root can't be scanned"() {
+		given:
+			def a = folder( "a", [(iface.name): "a"] )
+			def outer = new File( dir, "outer.jar" )
+			def jos = new JarOutputStream( new FileOutputStream( outer ) )
+			jos.putNextEntry( new JarEntry( "inner/" + BASE + iface.name ) )
+			jos.write( "inner".bytes )
+			jos.close()
+			def inner = new URL( "jar:" + outer.toURI().toURL() + "!/inner/" )
+			def provider = new PrescanLookupProvider( null, BASE, a.toURI().toURL(), inner )
+		expect:
+			provider.index() == null
+			read( provider.interfaceLookupStream( iface ) ) == ["a", "inner"]
+			read( provider.interfaceLookupStreams( iface, other )[iface] ) == ["a", "inner"]
+		cleanup:
+			provider.close()
+	}
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2014 toxbee.se
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package se.toxbee.fimpl.metainf
+
+import se.toxbee.fimpl.ImplementationReader
+import se.toxbee.fimpl.common.ImplementationInformation
+import spock.lang.Specification
+
+class SnapshotReaderTest extends Specification {
+	interface iface {}
+	interface other {}
+
+	File dir
+	File root
+	File file
+	def reads = []
+	def infos = [new ImplementationInformation.Impl( "a", 1, "t", "x" ), new ImplementationInformation.Impl( "b", 5 )]
+	def delegate = { i -> reads << i; i == iface ? infos.iterator() : null } as ImplementationReader
+
+	void setup() {
+		dir = File.createTempFile( "fimpl", "" )
+		dir.delete()
+		root = new File( dir, "root" )
+		new File( root, "META-INF/services" ).mkdirs()
+		file = new File( dir, "cache/snapshot" )
+	}
+
+	void cleanup() {
+		dir.deleteDir()
+	}
+
+	def snapshot( List<URL> roots = [root.toURI().toURL()] ) {
+		new SnapshotReader( delegate, file, roots, "META-INF/services/" )
+	}
+
+	def "Reads from the snapshot once saved"() {
+		given:
+			def first = snapshot()
+		when:
+			def found = first.readImplementationCollection( iface ).collect()
+		then:
+			found == [infos[1], infos[0]]
+			first.readImplementationCollection( other ) == null
+			reads == [iface, other]
+			first.save()
+			!first.save()
+			file.isFile()
+		when:
+			def second = snapshot()
+			def all = second.readImplementationCollections( iface, other )
+		then:
+			second.isSnapshotted( iface )
+			second.isSnapshotted( other )
+			all[iface].collect() == found
+			all[other] == null
+			reads.size() == 2
+	}
+
+	def "Snapshots META-INF/services of a ClassLoader"() {
+		given:
+			new File( root, "META-INF/services/" + iface.name ).text = "com.example.A\t3\n"
+			def cl = new URLClassLoader( [root.toURI().toURL()] as URL[], (ClassLoader) null )
+		when:
+			def first = new SnapshotReader( file, cl )
+			def found = first.readImplementationCollection( iface ).collect()
+		then:
+			found*.implementorClass == ["com.example.A"]
+			first.save()
+		when:
+			def second = new SnapshotReader( file, cl )
+		then:
+			second.isSnapshotted( iface )
+			second.readImplementationCollection( iface ).collect() == found
+		cleanup:
+			cl.close()
+	}
+
+	def "Keeps extras and type"() {
+		given:
+			snapshot().with { readImplementationCollection( iface ); save() }
+		when:
+			def found = snapshot().readImplementationCollection( iface ).collect()
+		then:
+			found*.implementorClass == ["b", "a"]
+			found*.type == [null, "t"]
+			found*.extras == [null, "x"]
+	}
+
+	def "Discarded when the classpath changes"() {
+		given:
+			snapshot().with { readImplementationCollection( iface ); save() }
+		when:
+			new File( root, "META-INF/services/" + iface.name ).text = "a\n"
+			snapshot().readImplementationCollection( iface )
+		then:
+			reads == [iface, iface]
+	}
+
+	def "Corrupt or unreadable snapshots are ignored"() {
+		given:
+			file.parentFile.mkdirs()
+			file.bytes = [0x46, 0x49, 0x4D, 0x53, 0, 1, 0, 20, 1, 2] as byte[]
+		expect:
+			snapshot().readImplementationCollection( iface ).collect() == [infos[1], infos[0]]
+			reads == [iface]
+	}
+
+	def "Not local roots are never snapshotted"() {
+		given:
+			def reader = snapshot( [new URL( "http://example.com/a.jar" )] )
+		when:
+			reader.readImplementationCollection( iface )
+			reader.readImplementationCollection( iface )
+		then:
+			reads == [iface, iface]
+			!reader.save()
+			!file.exists()
+			!reader.isSnapshotted( iface )
+	}
+
+	def "Unknown roots are never snapshotted"() {
+		given:
+			def reader = snapshot( [] )
+		when:
+			reader.readImplementationCollection( iface )
+			reader.readImplementationCollection( iface )
+		then:
+			reads == [iface, iface]
+			!reader.save()
+			!file.exists()
+	}
+
+	def "Saves through a temporary file of its own"() {
+		given:
+			def reader = snapshot()
+			reader.readImplementationCollection( iface )
+			file.parentFile.mkdirs()
+			new File( file.path + ".tmp" ).text = "someone else's"
+		expect:
+			reader.save()
+			file.parentFile.list().sort() == [file.name, file.name + ".tmp"]
+			new File( file.path + ".tmp" ).text == "someone else's"
+	}
+
+	def "Fingerprint"() {
+		given:
+			def roots = [root.toURI().toURL()]
+			def a = SnapshotReader.fingerprint( roots, "META-INF/services/" )
+		expect:
+			a == SnapshotReader.fingerprint( roots, "META-INF/services/" )
+		when:
+			new File( root, "META-INF/services/x" ).text = "y"
+		then:
+			a != SnapshotReader.fingerprint( roots, "META-INF/services/" )
+			SnapshotReader.fingerprint( [new URL( "http://example.com/" )], "" ) == null
+			SnapshotReader.fingerprint( [], "" ) == null
+	}
+}